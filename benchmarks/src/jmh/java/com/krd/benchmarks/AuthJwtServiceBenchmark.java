@@ -0,0 +1,74 @@
+package com.krd.benchmarks;
+
+import com.krd.auth.Jwt;
+import com.krd.auth.JwtConfig;
+import com.krd.auth.JwtService;
+import com.krd.auth.TokenValidationResult;
+import com.krd.auth.VerifiedTokenCache.AuthenticationSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Token generation and verification of the jwt-auth-starter {@link JwtService}.
+ */
+@State(Scope.Benchmark)
+public class AuthJwtServiceBenchmark {
+
+    @Param({"FULL", "COMPACT"})
+    public JwtConfig.ClaimProfile claimProfile;
+
+    @Param({"false", "true"})
+    public boolean fastPathVerification;
+
+    private JwtService jwtService;
+    private String token;
+    private String forgedToken;
+
+    @Setup
+    public void setUp() {
+        var config = new JwtConfig();
+        config.setSecret("benchmark-secret-that-is-at-least-256-bits-long");
+        config.setAccessTokenExpiration(3600);
+        config.setRefreshTokenExpiration(604800);
+        config.setClaimProfile(claimProfile);
+        config.getCompact().setRoles(List.of("USER", "ADMIN"));
+        config.setFastPathVerification(fastPathVerification);
+
+        jwtService = new JwtService(config);
+        token = jwtService.generateAccessToken(BenchmarkUser.INSTANCE).toString();
+
+        // Same header and claims with a tampered signature
+        var signature = token.substring(token.lastIndexOf('.') + 1);
+        forgedToken = token.substring(0, token.lastIndexOf('.') + 1) + new StringBuilder(signature).reverse();
+    }
+
+    @Benchmark
+    public Jwt generateAccessToken() {
+        return jwtService.generateAccessToken(BenchmarkUser.INSTANCE);
+    }
+
+    @Benchmark
+    public Jwt parseToken() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public AuthenticationSnapshot verifyAccessToken() {
+        return jwtService.verifyAccessToken(token);
+    }
+
+    @Benchmark
+    public TokenValidationResult validateForgedToken() {
+        return jwtService.validateAccessToken(forgedToken);
+    }
+
+    @Benchmark
+    public TokenValidationResult validateGarbageToken() {
+        return jwtService.validateAccessToken("not a token");
+    }
+}
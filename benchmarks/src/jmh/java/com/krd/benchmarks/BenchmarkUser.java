@@ -0,0 +1,51 @@
+package com.krd.benchmarks;
+
+import java.util.Set;
+
+/**
+ * Fixed user for token benchmarks, usable with both JWT implementations.
+ */
+final class BenchmarkUser implements com.krd.starter.jwt.JwtUser, com.krd.auth.JwtUser {
+
+    static final BenchmarkUser INSTANCE = new BenchmarkUser();
+
+    private static final Set<String> ROLES = Set.of("USER", "ADMIN");
+
+    private BenchmarkUser() {
+    }
+
+    @Override
+    public Long getId() {
+        return 4242L;
+    }
+
+    @Override
+    public String getEmail() {
+        return "jane.doe@example.com";
+    }
+
+    @Override
+    public String getUsername() {
+        return "janedoe";
+    }
+
+    @Override
+    public String getFirstName() {
+        return "Jane";
+    }
+
+    @Override
+    public String getLastName() {
+        return "Doe";
+    }
+
+    @Override
+    public Set<String> getRoles() {
+        return ROLES;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
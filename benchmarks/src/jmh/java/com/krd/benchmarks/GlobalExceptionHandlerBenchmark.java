@@ -0,0 +1,63 @@
+package com.krd.benchmarks;
+
+import com.krd.starter.exception.ErrorResponse;
+import com.krd.starter.exception.GlobalExceptionHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Error response building of {@link GlobalExceptionHandler} for the most frequent
+ * client errors. Exceptions are created once, so only the handler is measured.
+ */
+@State(Scope.Benchmark)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private WebRequest request;
+    private IllegalArgumentException illegalArgument;
+    private MethodArgumentNotValidException validationFailure;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        handler = new GlobalExceptionHandler();
+        request = new ServletWebRequest(new MockHttpServletRequest("POST", "/users"));
+        illegalArgument = new IllegalArgumentException("Current password is incorrect");
+
+        var target = new Object();
+        var bindingResult = new BeanPropertyBindingResult(target, "registerUserRequest");
+        bindingResult.addError(new FieldError("registerUserRequest", "email", "not-an-email", false,
+                null, null, "must be a well-formed email address"));
+        bindingResult.addError(new FieldError("registerUserRequest", "password", "short", false,
+                null, null, "Password must be at least 8 characters long"));
+        var parameter = new MethodParameter(
+                GlobalExceptionHandlerBenchmark.class.getDeclaredMethod("register", Object.class), 0);
+        validationFailure = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> illegalArgument() {
+        return handler.handleIllegalArgumentException(illegalArgument, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> validationErrors() {
+        return handler.handleValidationErrors(validationFailure, request);
+    }
+
+    /**
+     * Stands in for the controller method whose argument failed validation.
+     */
+    @SuppressWarnings("unused")
+    private void register(Object request) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.krd.benchmarks;
+
+import com.krd.starter.jwt.Jwt;
+import com.krd.starter.jwt.JwtConfig;
+import com.krd.starter.jwt.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Claim accessors of a parsed {@link Jwt}, as called by controllers and services.
+ */
+@State(Scope.Benchmark)
+public class JwtAccessorBenchmark {
+
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() {
+        var config = new JwtConfig();
+        config.setSecret("benchmark-secret-that-is-at-least-256-bits-long");
+        config.setAccessTokenExpiration(3600);
+        config.setRefreshTokenExpiration(604800);
+
+        var jwtService = new JwtService(config);
+        jwt = jwtService.parseToken(jwtService.generateAccessToken(BenchmarkUser.INSTANCE).toString());
+    }
+
+    @Benchmark
+    public void accessors(Blackhole blackhole) {
+        blackhole.consume(jwt.getUserId());
+        blackhole.consume(jwt.getEmail());
+        blackhole.consume(jwt.getUsername());
+        blackhole.consume(jwt.getRoles());
+        blackhole.consume(jwt.getAuthorities());
+        blackhole.consume(jwt.isEnabled());
+        blackhole.consume(jwt.isExpired());
+    }
+
+    @Benchmark
+    public String toCompactString() {
+        return jwt.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package com.krd.benchmarks;
+
+import com.krd.starter.jwt.JwtAuthenticationFilter;
+import com.krd.starter.jwt.JwtConfig;
+import com.krd.starter.jwt.JwtService;
+import com.krd.starter.jwt.VerifiedTokenCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+
+/**
+ * A full pass of the spring-api-starter {@link JwtAuthenticationFilter} over a request
+ * with a valid bearer token, from header extraction to the populated security context.
+ */
+@State(Scope.Thread)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean tokenCache;
+
+    @Param({"false", "true"})
+    public boolean fastPathVerification;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    /**
+     * Authentication seen by the rest of the chain.
+     */
+    private Authentication authentication;
+
+    @Setup
+    public void setUp() {
+        var config = new JwtConfig();
+        config.setSecret("benchmark-secret-that-is-at-least-256-bits-long");
+        config.setAccessTokenExpiration(3600);
+        config.setRefreshTokenExpiration(604800);
+        config.setFastPathVerification(fastPathVerification);
+
+        var jwtService = new JwtService(config);
+        filter = new JwtAuthenticationFilter(jwtService, tokenCache ? new VerifiedTokenCache(10_000) : null);
+
+        var token = jwtService.generateAccessToken(BenchmarkUser.INSTANCE).toString();
+        request = new MockHttpServletRequest("GET", "/users/4242");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+
+        chain = (req, res) -> authentication = SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, chain);
+            return authentication;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.krd.benchmarks;
+
+import com.krd.starter.validation.PasswordPolicy;
+import com.krd.starter.validation.PasswordValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * {@link PasswordValidator#isValid} with the default policy, for a valid password (every
+ * rule is checked) and for a password rejected by the last rule.
+ */
+@State(Scope.Benchmark)
+public class PasswordValidatorBenchmark {
+
+    @Param({"Correct-Horse-42", "CorrectHorse42"})
+    public String password;
+
+    private PasswordValidator validator;
+    private ConstraintValidatorContext context;
+
+    @Setup
+    public void setUp() {
+        validator = new PasswordValidator(new PasswordPolicy());
+        context = noOpContext();
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(password, context);
+    }
+
+    /**
+     * A context whose violation builders do nothing and return themselves.
+     */
+    private static ConstraintValidatorContext noOpContext() {
+        var types = new Class<?>[]{
+                ConstraintValidatorContext.class,
+                ConstraintValidatorContext.ConstraintViolationBuilder.class
+        };
+        return (ConstraintValidatorContext) Proxy.newProxyInstance(
+                PasswordValidatorBenchmark.class.getClassLoader(), types,
+                (proxy, method, args) -> method.getReturnType().isInstance(proxy) ? proxy : null
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package com.krd.benchmarks;
+
+import com.krd.starter.payment.gateway.StripePaymentGateway;
+import com.krd.starter.payment.models.PaymentResult;
+import com.krd.starter.payment.models.WebhookRequest;
+import com.stripe.Stripe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link StripePaymentGateway#parseWebhookRequest} with a locally signed
+ * {@code payment_intent.succeeded} event: signature verification, event
+ * deserialization and order id extraction, without any network access.
+ */
+@State(Scope.Benchmark)
+public class StripeWebhookBenchmark {
+
+    private static final String WEBHOOK_SECRET = "whsec_benchmark";
+
+    private static final String PAYLOAD = """
+            {"id":"evt_benchmark","object":"event","api_version":"%s","created":1700000000,\
+            "type":"payment_intent.succeeded","data":{"object":{"id":"pi_benchmark",\
+            "object":"payment_intent","amount":2599,"currency":"usd","status":"succeeded",\
+            "metadata":{"order_id":"42"}}}}""".formatted(Stripe.API_VERSION);
+
+    private StripePaymentGateway gateway;
+    private WebhookRequest request;
+
+    @Setup
+    public void setUp() {
+        gateway = new StripePaymentGateway();
+        ReflectionTestUtils.setField(gateway, "webhookSecretKey", WEBHOOK_SECRET);
+        ReflectionTestUtils.setField(gateway, "websiteUrl", "http://localhost");
+    }
+
+    /**
+     * Signs the payload again for every iteration, staying within Stripe's timestamp tolerance.
+     */
+    @Setup(Level.Iteration)
+    public void sign() throws GeneralSecurityException {
+        long timestamp = System.currentTimeMillis() / 1000;
+        var mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(WEBHOOK_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        var signature = HexFormat.of().formatHex(
+                mac.doFinal((timestamp + "." + PAYLOAD).getBytes(StandardCharsets.UTF_8)));
+
+        request = new WebhookRequest(Map.of("stripe-signature", "t=" + timestamp + ",v1=" + signature), PAYLOAD);
+    }
+
+    @Benchmark
+    public Optional<PaymentResult> parseWebhookRequest() {
+        return gateway.parseWebhookRequest(request);
+    }
+}
@@ -1,5 +1,6 @@
 package com.krd.starter.exception;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
@@ -23,6 +24,8 @@ import java.time.LocalDateTime;
  *     <li>Authorization failures (403)</li>
  * </ul>
  *
+ * <p>Every response is reported to {@link ErrorResponseMetrics} by status and handler.
+ *
  * <p><b>Usage:</b>
  * Add the {@code exception-handling-security-starter} dependency to your microservice
  * that uses Spring Security. This starter automatically registers this handler via
@@ -41,6 +44,16 @@ import java.time.LocalDateTime;
 @Order(Ordered.LOWEST_PRECEDENCE) // Same precedence as GlobalExceptionHandler
 public class SecurityExceptionHandler {
 
+    private ErrorResponseMetrics metrics = ErrorResponseMetrics.NOOP;
+
+    /**
+     * Injects the metrics to report error responses to, when an {@link ErrorResponseMetrics} bean exists.
+     */
+    @Autowired(required = false)
+    public void setMetrics(ErrorResponseMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Handles bad credentials (failed login attempts).
      * Returns 401 Unauthorized.
@@ -58,6 +71,7 @@ public class SecurityExceptionHandler {
                 .path(getRequestPath(request))
                 .build();
 
+        metrics.errorResponded(HttpStatus.UNAUTHORIZED.value(), "bad_credentials");
         return ResponseEntity
                 .status(HttpStatus.UNAUTHORIZED)
                 .body(errorResponse);
@@ -83,6 +97,7 @@ public class SecurityExceptionHandler {
                 .path(getRequestPath(request))
                 .build();
 
+        metrics.errorResponded(HttpStatus.FORBIDDEN.value(), "access_denied");
         return ResponseEntity
                 .status(HttpStatus.FORBIDDEN)
                 .body(errorResponse);
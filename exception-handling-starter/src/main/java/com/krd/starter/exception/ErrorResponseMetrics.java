@@ -0,0 +1,32 @@
+package com.krd.starter.exception;
+
+/**
+ * Receives the error responses written by the exception handlers of the starters.
+ *
+ * <p>The default method does nothing, so the starter works without a metrics library.
+ * When Micrometer is on the classpath, {@link MicrometerErrorResponseMetrics} is registered
+ * automatically and counts the responses as Micrometer counters.
+ *
+ * <p>Handlers report a fixed handler name rather than the exception class, so tag
+ * cardinality stays bounded no matter which exceptions an application throws.
+ *
+ * @see MicrometerErrorResponseMetrics
+ * @since 1.0.0
+ */
+public interface ErrorResponseMetrics {
+
+    /**
+     * Metrics that discard every measurement.
+     */
+    ErrorResponseMetrics NOOP = new ErrorResponseMetrics() {
+    };
+
+    /**
+     * Records an error response.
+     *
+     * @param status the HTTP status of the response
+     * @param handler the fixed name of the handler that produced it (e.g. {@code validation})
+     */
+    default void errorResponded(int status, String handler) {
+    }
+}
@@ -1,8 +1,14 @@
 package com.krd.starter.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
 
 /**
  * Auto-configuration for the Exception Handling Starter.
@@ -32,6 +38,10 @@ import org.springframework.context.annotation.ComponentScan;
  * }
  * </pre>
  *
+ * <p><b>Metrics:</b>
+ * When Micrometer is on the classpath, error responses of all exception handlers are
+ * counted as {@code krd.http.error.responses} (see {@link MicrometerErrorResponseMetrics}).
+ *
  * <p><b>Conditional Activation:</b>
  * This auto-configuration is only activated for web applications. Non-web applications
  * (e.g., batch jobs, CLI tools) will not load this configuration.
@@ -47,6 +57,25 @@ import org.springframework.context.annotation.ComponentScan;
 @ConditionalOnWebApplication // Only activate for web applications
 @ComponentScan(basePackages = "com.krd.starter.exception")
 public class ExceptionHandlingAutoConfiguration {
-    // No beans to define - just enables component scanning
     // GlobalExceptionHandler is discovered automatically via @ControllerAdvice annotation
+
+    /**
+     * Publishes {@link ErrorResponseMetrics} to Micrometer when it is on the classpath.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class ErrorResponseMetricsConfiguration {
+
+        /**
+         * Creates the error response metrics, backed by the application's meter registry if it has one.
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public ErrorResponseMetrics errorResponseMetrics(ObjectProvider<MeterRegistry> registry) {
+            MeterRegistry meterRegistry = registry.getIfAvailable();
+            return meterRegistry != null
+                    ? new MicrometerErrorResponseMetrics(meterRegistry)
+                    : ErrorResponseMetrics.NOOP;
+        }
+    }
 }
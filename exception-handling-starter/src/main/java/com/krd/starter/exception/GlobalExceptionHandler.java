@@ -2,6 +2,7 @@ package com.krd.starter.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -26,6 +28,7 @@ import java.util.stream.Collectors;
  *     <li>Validation errors (400)</li>
  *     <li>Malformed requests (400)</li>
  *     <li>Unsupported media types (415)</li>
+ *     <li>{@link ResponseStatusException} with its own status (e.g. 503 under overload)</li>
  *     <li>Unexpected server errors (500)</li>
  * </ul>
  *
@@ -36,6 +39,8 @@ import java.util.stream.Collectors;
  * <p><b>Domain-specific exceptions</b> (e.g., UserNotFoundException, ChatNotFoundException)
  * should be handled in microservice-specific {@code @ControllerAdvice} classes with higher precedence.
  *
+ * <p>Every response is reported to {@link ErrorResponseMetrics} by status and handler.
+ *
  * <p><b>Extending this handler:</b>
  * <pre>
  * &#64;ControllerAdvice
@@ -59,6 +64,16 @@ public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    private ErrorResponseMetrics metrics = ErrorResponseMetrics.NOOP;
+
+    /**
+     * Injects the metrics to report error responses to, when an {@link ErrorResponseMetrics} bean exists.
+     */
+    @Autowired(required = false)
+    public void setMetrics(ErrorResponseMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Handles validation errors from @Valid and @Validated annotations.
      * Returns 400 Bad Request with field-level error details.
@@ -87,6 +102,7 @@ public class GlobalExceptionHandler {
                 .errors(fieldErrors)
                 .build();
 
+        metrics.errorResponded(HttpStatus.BAD_REQUEST.value(), "validation");
         return ResponseEntity.badRequest().body(errorResponse);
     }
 
@@ -107,6 +123,7 @@ public class GlobalExceptionHandler {
                 .path(getRequestPath(request))
                 .build();
 
+        metrics.errorResponded(HttpStatus.BAD_REQUEST.value(), "malformed_request");
         return ResponseEntity.badRequest().body(errorResponse);
     }
 
@@ -127,11 +144,37 @@ public class GlobalExceptionHandler {
                 .path(getRequestPath(request))
                 .build();
 
+        metrics.errorResponded(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "unsupported_media_type");
         return ResponseEntity
                 .status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
                 .body(errorResponse);
     }
 
+    /**
+     * Handles ResponseStatusException (e.g., a full password hashing queue).
+     * Returns the exception's status, reason and headers (such as Retry-After).
+     */
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorResponse> handleResponseStatusException(
+            ResponseStatusException ex,
+            WebRequest request) {
+
+        HttpStatus status = HttpStatus.resolve(ex.getStatusCode().value());
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(ex.getStatusCode().value())
+                .error(status != null ? status.getReasonPhrase() : ex.getStatusCode().toString())
+                .message(ex.getReason())
+                .path(getRequestPath(request))
+                .build();
+
+        metrics.errorResponded(ex.getStatusCode().value(), "response_status");
+        return ResponseEntity
+                .status(ex.getStatusCode())
+                .headers(ex.getHeaders())
+                .body(errorResponse);
+    }
+
     /**
      * Handles IllegalStateException (e.g., trying to delete last admin, remove own admin role).
      * Returns 400 Bad Request.
@@ -149,6 +192,7 @@ public class GlobalExceptionHandler {
                 .path(getRequestPath(request))
                 .build();
 
+        metrics.errorResponded(HttpStatus.BAD_REQUEST.value(), "illegal_state");
         return ResponseEntity.badRequest().body(errorResponse);
     }
 
@@ -184,6 +228,7 @@ public class GlobalExceptionHandler {
                 .path(getRequestPath(request))
                 .build();
 
+        metrics.errorResponded(status.value(), "illegal_argument");
         return ResponseEntity.status(status).body(errorResponse);
     }
 
@@ -210,6 +255,7 @@ public class GlobalExceptionHandler {
                 .path(getRequestPath(request))
                 .build();
 
+        metrics.errorResponded(HttpStatus.INTERNAL_SERVER_ERROR.value(), "unexpected");
         return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(errorResponse);
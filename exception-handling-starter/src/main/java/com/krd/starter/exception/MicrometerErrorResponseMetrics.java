@@ -0,0 +1,32 @@
+package com.krd.starter.exception;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * {@link ErrorResponseMetrics} backed by a Micrometer counter.
+ *
+ * <p>Publishes {@code krd.http.error.responses}, tagged with the HTTP {@code status} and
+ * the {@code handler} that produced the response.
+ *
+ * @since 1.0.0
+ */
+public class MicrometerErrorResponseMetrics implements ErrorResponseMetrics {
+
+    private final MeterRegistry registry;
+
+    public MicrometerErrorResponseMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void errorResponded(int status, String handler) {
+        // Only on the error path; the registry returns the existing counter for known tags
+        Counter.builder("krd.http.error.responses")
+                .description("Error responses written by the exception handlers")
+                .tag("status", String.valueOf(status))
+                .tag("handler", handler)
+                .register(registry)
+                .increment();
+    }
+}
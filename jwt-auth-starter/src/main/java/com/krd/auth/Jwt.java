@@ -1,29 +1,65 @@
 package com.krd.auth;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
 
-import javax.crypto.SecretKey;
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
- * Wrapper class for JWT claims and secret key.
+ * Immutable JWT token: its claims together with the exact compact form it was
+ * issued or parsed from.
  * <p>
  * This class provides convenient methods to access user information
  * from JWT tokens and check token expiration.
+ * <p>
+ * Tokens are signed exactly once, in {@link JwtService}. Converting a token back to
+ * a string returns the stored compact form and never re-signs it.
+ * <p>
+ * Claims are decoded once, when the token is created, into a {@link JwtPrincipal}.
+ * The accessors below read from the principal and never re-parse claims.
  *
  * @see JwtService
  * @see JwtAuthenticationFilter
+ * @see JwtPrincipal
  */
-@Data
-public class Jwt {
+@Getter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public final class Jwt {
 
     private final Claims claims;
-    private final SecretKey secretKey;
+
+    @EqualsAndHashCode.Include
+    private final String compact;
+
+    private final JwtPrincipal principal;
+
+    /**
+     * Creates a token from its claims and its signed compact form.
+     *
+     * @param claims the token claims
+     * @param compact the signed compact token string
+     */
+    public Jwt(Claims claims, String compact) {
+        this(claims, compact, JwtPrincipal.from(claims));
+    }
+
+    /**
+     * Creates a token from its claims, its signed compact form and its decoded principal.
+     *
+     * @param claims the token claims
+     * @param compact the signed compact token string
+     * @param principal the claims decoded by {@link JwtPrincipal#from(Claims, RoleRegistry)}
+     */
+    public Jwt(Claims claims, String compact, JwtPrincipal principal) {
+        this.claims = claims;
+        this.compact = compact;
+        this.principal = principal;
+    }
 
     /**
      * Checks if this JWT token has expired.
@@ -31,7 +67,16 @@ public class Jwt {
      * @return true if the token has expired, false otherwise
      */
     public boolean isExpired() {
-        return claims.getExpiration().before(new Date());
+        return principal.isExpired();
+    }
+
+    /**
+     * Extracts the expiration time from the JWT claims.
+     *
+     * @return the token expiration time
+     */
+    public Date getExpiration() {
+        return claims.getExpiration();
     }
 
     /**
@@ -40,61 +85,85 @@ public class Jwt {
      * @return the user's ID
      */
     public Long getUserId() {
-        return Long.valueOf(claims.getSubject());
+        return principal.userId();
+    }
+
+    /**
+     * Extracts the unique token id from the {@code jti} claim.
+     *
+     * @return the token id, or null for tokens issued before token ids were introduced
+     */
+    public String getTokenId() {
+        return principal.tokenId();
+    }
+
+    /**
+     * Extracts the user's token epoch at the time the token was issued.
+     *
+     * @return the token epoch, or 0 if the token carries none
+     * @see JwtUser#getTokenEpoch()
+     */
+    public long getTokenEpoch() {
+        return principal.tokenEpoch();
     }
 
     /**
      * Extracts the user's email from the JWT claims.
      *
-     * @return the user's email
+     * @return the user's email, or null for compact tokens
      */
     public String getEmail() {
-        return claims.get("email", String.class);
+        return principal.email();
     }
 
     /**
      * Extracts the user's username from the JWT claims.
      *
-     * @return the user's username
+     * @return the user's username, or null for compact tokens
      */
     public String getUsername() {
-        return claims.get("username", String.class);
+        return principal.username();
     }
 
     /**
      * Extracts the user's first name from the JWT claims.
      *
-     * @return the user's first name
+     * @return the user's first name, or null for compact tokens
      */
     public String getFirstName() {
-        return claims.get("firstName", String.class);
+        return principal.firstName();
     }
 
     /**
      * Extracts the user's last name from the JWT claims.
      *
-     * @return the user's last name
+     * @return the user's last name, or null for compact tokens
      */
     public String getLastName() {
-        return claims.get("lastName", String.class);
+        return principal.lastName();
     }
 
     /**
      * Extracts the user's roles from the JWT claims.
      * <p>
-     * Roles are stored as a comma-separated string in the token
-     * and parsed back into a Set.
+     * Roles are stored as a comma-separated string in the token and decoded once
+     * into a shared, immutable Set.
      *
-     * @return a set of role names
+     * @return an immutable set of role names
      */
     public Set<String> getRoles() {
-        String rolesString = claims.get("roles", String.class);
-        if (rolesString == null || rolesString.isEmpty()) {
-            return Set.of();
-        }
-        return Arrays.stream(rolesString.split(","))
-                .map(String::trim)
-                .collect(Collectors.toSet());
+        return principal.roles();
+    }
+
+    /**
+     * Returns the Spring Security authorities for the user's roles (e.g. "ROLE_ADMIN").
+     * <p>
+     * Tokens with the same roles share the same immutable list.
+     *
+     * @return an immutable list of granted authorities
+     */
+    public List<GrantedAuthority> getAuthorities() {
+        return principal.authorities();
     }
 
     /**
@@ -103,22 +172,28 @@ public class Jwt {
      * @return true if the user account is enabled
      */
     public boolean isEnabled() {
-        Boolean enabled = claims.get("enabled", Boolean.class);
-        return enabled != null && enabled;
+        return principal.enabled();
+    }
+
+    /**
+     * Writes the compact token to the given output without creating an intermediate copy.
+     *
+     * @param out the writer, response buffer or builder to append to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append(compact);
     }
 
     /**
-     * Converts this JWT back to a compact string representation.
+     * Returns the compact string representation of this JWT.
      * <p>
-     * This is used to generate the token string that's sent to clients.
+     * This is the token string that's sent to clients.
      *
      * @return the JWT token as a string
      */
     @Override
     public String toString() {
-        return Jwts.builder()
-                .claims(claims)
-                .signWith(secretKey)
-                .compact();
+        return compact;
     }
 }
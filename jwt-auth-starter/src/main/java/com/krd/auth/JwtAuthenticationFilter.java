@@ -1,19 +1,19 @@
 package com.krd.auth;
 
+import com.krd.auth.TokenValidationResult.Failure;
+import com.krd.auth.TokenValidationResult.Valid;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Filter that intercepts HTTP requests to authenticate users via JWT tokens.
@@ -30,15 +30,84 @@ import java.util.stream.Collectors;
  * If no token is present or the token is invalid, the request proceeds without
  * authentication. Protected endpoints will then return 401/403 errors as configured
  * by Spring Security.
+ * <p>
+ * When a {@link VerifiedTokenCache} is supplied, tokens that were already verified are
+ * served from the cache until they expire, skipping signature verification and claims parsing.
+ * <p>
+ * When a {@link TokenRevocationChecker} is supplied, every token - cached or not - is
+ * checked against it by its {@code jti} claim.
+ * <p>
+ * When a {@link TokenEpochChecker} is supplied, every token is also rejected once its
+ * user's token epoch has moved past the epoch the token was issued with.
+ * <p>
+ * Rejected tokens are counted per {@link TokenValidationResult.Failure} reason (see
+ * {@link #getRejectedCount(TokenValidationResult.Failure)}). Rejections never throw, so
+ * a flood of invalid tokens stays cheap. The time spent authenticating each request
+ * (excluding the rest of the filter chain) is reported to {@link JwtMetrics}.
  *
  * @see JwtService
  * @see Jwt
+ * @see VerifiedTokenCache
+ * @see TokenRevocationChecker
+ * @see TokenEpochChecker
  */
-@AllArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
 
+    /**
+     * Optional cache of verified tokens (null when caching is disabled).
+     */
+    private final VerifiedTokenCache tokenCache;
+
+    /**
+     * Optional revocation check (null when revocation is disabled).
+     */
+    private final TokenRevocationChecker revocationChecker;
+
+    /**
+     * Optional token epoch check (null when token epochs are disabled).
+     */
+    private final TokenEpochChecker epochChecker;
+
+    /**
+     * Rejected tokens, indexed by {@link Failure#ordinal()}.
+     */
+    private final LongAdder[] rejected = newCounters();
+
+    private JwtMetrics metrics = JwtMetrics.NOOP;
+
+    public JwtAuthenticationFilter(JwtService jwtService) {
+        this(jwtService, null, null, null);
+    }
+
+    public JwtAuthenticationFilter(JwtService jwtService, VerifiedTokenCache tokenCache) {
+        this(jwtService, tokenCache, null, null);
+    }
+
+    public JwtAuthenticationFilter(JwtService jwtService, VerifiedTokenCache tokenCache,
+                                   TokenRevocationChecker revocationChecker) {
+        this(jwtService, tokenCache, revocationChecker, null);
+    }
+
+    public JwtAuthenticationFilter(JwtService jwtService, VerifiedTokenCache tokenCache,
+                                   TokenRevocationChecker revocationChecker, TokenEpochChecker epochChecker) {
+        this.jwtService = jwtService;
+        this.tokenCache = tokenCache;
+        this.revocationChecker = revocationChecker;
+        this.epochChecker = epochChecker;
+    }
+
+    /**
+     * Injects the metrics to report to, when a {@link JwtMetrics} bean exists.
+     *
+     * @param metrics the metrics
+     */
+    @Autowired(required = false)
+    public void setMetrics(JwtMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Processes each HTTP request to extract and validate JWT tokens.
      *
@@ -53,6 +122,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                   HttpServletResponse response,
                                   FilterChain filterChain) throws ServletException, IOException {
 
+        long start = System.nanoTime();
+
         // Extract the Authorization header from the request
         var authHeader = request.getHeader("Authorization");
 
@@ -60,32 +131,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             // No token or improperly formatted - proceed without authentication
             // Spring Security will handle authorization for protected endpoints
+            metrics.requestFiltered(null, System.nanoTime() - start);
             filterChain.doFilter(request, response);
             return;
         }
 
         // Extract the token (remove "Bearer " prefix)
         var token = authHeader.substring(7); // "Bearer ".length() == 7
-        var jwt = jwtService.parseToken(token);
+        var result = validate(token);
 
-        // Validate the token
-        if (jwt == null || jwt.isExpired() || !jwt.isEnabled()) {
-            // Invalid, expired, or disabled user - proceed without authentication
+        if (!(result instanceof Valid valid)) {
+            // Invalid, expired, revoked, or disabled user - proceed without authentication
+            rejected[((Failure) result).ordinal()].increment();
+            metrics.requestFiltered(result, System.nanoTime() - start);
             filterChain.doFilter(request, response);
             return;
         }
-
-        // At this point, we have a valid token for an enabled user
-        // Convert roles to Spring Security authorities
-        var authorities = jwt.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                .collect(Collectors.toList());
+        var snapshot = valid.snapshot();
 
         // Create authentication token with user ID as principal and roles as authorities
         var authentication = new UsernamePasswordAuthenticationToken(
-                jwt.getUserId(),  // Principal (can be retrieved in controllers with @AuthenticationPrincipal)
-                null,             // Credentials (not needed after authentication)
-                authorities       // Authorities (roles for authorization)
+                snapshot.userId(),       // Principal (can be retrieved in controllers with @AuthenticationPrincipal)
+                null,                    // Credentials (not needed after authentication)
+                snapshot.authorities()   // Authorities (roles for authorization)
         );
 
         // Attach additional request metadata to the authentication
@@ -96,8 +164,71 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Store the authentication in Spring Security context
         // This makes the user authenticated for this request
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        metrics.requestFiltered(result, System.nanoTime() - start);
 
         // Continue with the filter chain
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Returns how many tokens were rejected for a reason since the filter was created.
+     *
+     * @param reason the failure reason
+     * @return the number of rejected tokens
+     */
+    public long getRejectedCount(Failure reason) {
+        return rejected[reason.ordinal()].sum();
+    }
+
+    /**
+     * Validates a token, consulting the verified-token cache first when it is enabled.
+     * <p>
+     * Invalid, expired, revoked and stale tokens, and tokens of disabled users, are not accepted.
+     *
+     * @param token the compact token string
+     * @return the validation result
+     */
+    private TokenValidationResult validate(String token) {
+        var result = validateSignature(token);
+        if (!(result instanceof Valid valid)) {
+            return result;
+        }
+
+        // Revocation and token epochs are checked on every request, even for cached tokens
+        var snapshot = valid.snapshot();
+        if (revocationChecker != null && snapshot.tokenId() != null
+                && revocationChecker.isRevoked(snapshot.tokenId(), snapshot.expiresAtMillis())) {
+            return Failure.REVOKED;
+        }
+        if (epochChecker != null && epochChecker.isStale(snapshot.userId(), snapshot.tokenEpoch())) {
+            return Failure.STALE;
+        }
+        return result;
+    }
+
+    private TokenValidationResult validateSignature(String token) {
+        if (tokenCache == null) {
+            return jwtService.validateAccessToken(token);
+        }
+
+        var digest = VerifiedTokenCache.TokenDigest.of(token);
+        var snapshot = tokenCache.get(digest);
+        if (snapshot != null) {
+            return new Valid(snapshot);
+        }
+
+        var result = jwtService.validateAccessToken(token);
+        if (result instanceof Valid valid) {
+            tokenCache.put(digest, valid.snapshot());
+        }
+        return result;
+    }
+
+    private static LongAdder[] newCounters() {
+        var counters = new LongAdder[Failure.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
 }
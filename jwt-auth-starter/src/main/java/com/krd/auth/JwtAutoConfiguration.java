@@ -3,13 +3,17 @@ package com.krd.auth;
 import com.krd.auth.config.CorsConfig;
 import com.krd.auth.validation.PasswordPolicy;
 import com.krd.security.SecurityRules;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -39,6 +43,7 @@ import java.util.List;
  *   <li>Spring Security with JWT-based stateless authentication</li>
  *   <li>Modular security rules via SecurityRules interface</li>
  *   <li>Method-level security with @PreAuthorize annotations</li>
+ *   <li>Micrometer metrics for token handling, when Micrometer is on the classpath</li>
  * </ul>
  * <p>
  * <strong>Required Configuration:</strong>
@@ -50,8 +55,24 @@ import java.util.List;
  *     refreshTokenExpiration: 604800
  * </pre>
  * <p>
+ * <strong>Verify-only Configuration</strong> (resource servers that never issue tokens):
+ * <pre>
+ * spring:
+ *   jwt:
+ *     mode: verify-only
+ *     jwks: classpath:jwks.json
+ * </pre>
+ * Tokens are then validated locally with the public keys of the JWKS, selected by
+ * {@code kid}; no shared secret and no call to the issuing service is needed.
+ * <p>
  * <strong>Optional Configuration:</strong>
  * <pre>
+ * spring:
+ *   jwt:
+ *     token-cache:
+ *       enabled: true
+ *       maximum-size: 10000
+ *
  * cors:
  *   allowed-origins:
  *     - http://localhost:3000
@@ -130,6 +151,21 @@ public class JwtAutoConfiguration {
         return new JwtService(config);
     }
 
+    /**
+     * Creates the VerifiedTokenCache bean used by the authentication filter.
+     * <p>
+     * Only created when {@code spring.jwt.token-cache.enabled=true}.
+     *
+     * @param config the JWT configuration properties
+     * @return the verified-token cache
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "spring.jwt.token-cache", name = "enabled", havingValue = "true")
+    public VerifiedTokenCache verifiedTokenCache(JwtConfig config) {
+        return new VerifiedTokenCache(config.getTokenCache().getMaximumSize());
+    }
+
     /**
      * Creates the JwtAuthenticationFilter bean for request authentication.
      * <p>
@@ -139,12 +175,19 @@ public class JwtAutoConfiguration {
      * Only created if no other JwtAuthenticationFilter bean is defined.
      *
      * @param jwtService the JWT service for token operations
+     * @param tokenCache the verified-token cache, if enabled
+     * @param revocationChecker the token revocation check, if an application defines one
+     * @param epochChecker the token epoch check, if an application defines one
      * @return the JWT authentication filter
      */
     @Bean
     @ConditionalOnMissingBean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtService jwtService) {
-        return new JwtAuthenticationFilter(jwtService);
+    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtService jwtService,
+                                                           ObjectProvider<VerifiedTokenCache> tokenCache,
+                                                           ObjectProvider<TokenRevocationChecker> revocationChecker,
+                                                           ObjectProvider<TokenEpochChecker> epochChecker) {
+        return new JwtAuthenticationFilter(jwtService, tokenCache.getIfAvailable(),
+                revocationChecker.getIfAvailable(), epochChecker.getIfAvailable());
     }
 
     /**
@@ -244,4 +287,25 @@ public class JwtAutoConfiguration {
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
                 .build();
     }
+
+    /**
+     * Publishes {@link JwtMetrics} to Micrometer when it is on the classpath.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class JwtMetricsConfiguration {
+
+        /**
+         * Creates the JWT metrics, backed by the application's meter registry if it has one.
+         *
+         * @param registry the meter registry, if available
+         * @return the JWT metrics
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public JwtMetrics jwtMetrics(ObjectProvider<MeterRegistry> registry) {
+            var meterRegistry = registry.getIfAvailable();
+            return meterRegistry != null ? new MicrometerJwtMetrics(meterRegistry) : JwtMetrics.NOOP;
+        }
+    }
 }
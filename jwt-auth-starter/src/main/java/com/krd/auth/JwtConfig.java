@@ -3,8 +3,11 @@ package com.krd.auth;
 import io.jsonwebtoken.security.Keys;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
 
 import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuration properties for JWT token generation and validation.
@@ -17,6 +20,41 @@ import javax.crypto.SecretKey;
  *     accessTokenExpiration: 900    # 15 minutes
  *     refreshTokenExpiration: 604800 # 7 days
  * </pre>
+ * <p>
+ * <strong>Key rotation:</strong> tokens carry the id of their signing key in the
+ * {@code kid} header. To rotate without downtime, move the current secret to
+ * {@code verificationKeys} under its old id and configure a new secret and key id:
+ * <pre>
+ * spring:
+ *   jwt:
+ *     secret: ${JWT_SECRET}
+ *     keyId: 2024-11
+ *     verificationKeys:
+ *       - keyId: 2024-10
+ *         secret: ${JWT_PREVIOUS_SECRET}
+ * </pre>
+ * Once every token signed with the old key has expired, the old entry can be removed.
+ * <p>
+ * <strong>Asymmetric signing:</strong> to let other services verify tokens without
+ * being able to issue them, sign with a private JWK (e.g. RSA or Ed25519) instead of
+ * the shared secret, and give those services the matching public JWKS:
+ * <pre>
+ * spring:
+ *   jwt:
+ *     signingJwk: file:/etc/secrets/jwt-signing-key.json
+ * </pre>
+ * The JWK's {@code kid} is used as the key id. If {@code secret} is still configured,
+ * tokens without a {@code kid} header keep being verified with it.
+ * <p>
+ * <strong>Verify-only mode:</strong> resource servers that only need to validate tokens
+ * can run without any signing material. Tokens are verified locally against the public
+ * keys of a JWKS file, and {@link JwtService} refuses to issue tokens:
+ * <pre>
+ * spring:
+ *   jwt:
+ *     mode: verify-only
+ *     jwks: classpath:jwks.json    # or file:/etc/jwt/jwks.json
+ * </pre>
  *
  * @see JwtService
  */
@@ -31,6 +69,9 @@ public class JwtConfig {
      * stored in environment variables, not hardcoded.
      * <p>
      * Minimum length: 32 characters (256 bits) for HS256 algorithm.
+     * <p>
+     * Not needed when tokens are signed with {@link #signingJwk}, or in
+     * {@link Mode#VERIFY_ONLY} mode.
      */
     private String secret;
 
@@ -54,14 +95,185 @@ public class JwtConfig {
      */
     private int refreshTokenExpiration;
 
+    /**
+     * Identifier of the signing key, written to the {@code kid} header of issued tokens.
+     * <p>
+     * Change it together with {@link #secret} when rotating keys.
+     * <p>
+     * Default: "primary"
+     */
+    private String keyId = "primary";
+
+    /**
+     * Whether this service issues tokens or only verifies them.
+     * <p>
+     * Default: {@link Mode#SIGN_AND_VERIFY}
+     */
+    private Mode mode = Mode.SIGN_AND_VERIFY;
+
+    /**
+     * Location of the JWKS with the public keys accepted in {@link Mode#VERIFY_ONLY} mode
+     * (e.g. {@code classpath:jwks.json} or {@code file:/etc/jwt/jwks.json}).
+     * <p>
+     * Every key needs a {@code kid}. Private and secret keys are rejected.
+     */
+    private Resource jwks;
+
+    /**
+     * Location of a private JWK to sign tokens with instead of {@link #secret}
+     * (e.g. {@code file:/etc/secrets/jwt-signing-key.json} or {@code classpath:jwk.json}).
+     * <p>
+     * Default: not set (tokens are signed with the HMAC secret)
+     */
+    private Resource signingJwk;
+
+    /**
+     * Retired keys that are still accepted when verifying tokens, but never used for signing.
+     * <p>
+     * Tokens without a {@code kid} header (issued before key ids were introduced)
+     * are always verified with the current {@link #secret}.
+     */
+    private List<VerificationKey> verificationKeys = new ArrayList<>();
+
+    /**
+     * Settings for the verified-token cache used by the authentication filter.
+     */
+    private TokenCache tokenCache = new TokenCache();
+
+    /**
+     * Which claims are written to new tokens.
+     * <p>
+     * Both profiles are always accepted when verifying, so the profile can be changed
+     * while tokens of the other profile are still in circulation.
+     * <p>
+     * Default: {@link ClaimProfile#FULL}
+     */
+    private ClaimProfile claimProfile = ClaimProfile.FULL;
+
+    /**
+     * Settings for the {@link ClaimProfile#COMPACT} claim profile.
+     */
+    private Compact compact = new Compact();
+
+    /**
+     * Whether access tokens are verified with the allocation-light HMAC fast path
+     * before falling back to the generic jjwt parser.
+     * <p>
+     * Tokens the fast path cannot handle are always verified by jjwt, so this never
+     * changes which tokens are accepted. With it disabled, every forged or expired token
+     * costs a jjwt exception with its stack trace.
+     * <p>
+     * Default: true
+     */
+    private boolean fastPathVerification = true;
+
     /**
      * Generates a SecretKey from the configured secret string.
      * <p>
-     * This key is used for both signing and verifying JWT tokens.
+     * A new key is derived on every call. Token signing and verification use the
+     * keys pre-computed by {@link JwtKeyRing} instead.
      *
      * @return the secret key for JWT operations
      */
     public SecretKey getSecretKey() {
         return Keys.hmacShaKeyFor(secret.getBytes());
     }
+
+    /**
+     * How this service uses JWT keys.
+     */
+    public enum Mode {
+
+        /**
+         * Issue tokens and verify them (the default).
+         */
+        SIGN_AND_VERIFY,
+
+        /**
+         * Only verify tokens, using the public keys from {@link JwtConfig#getJwks()}.
+         */
+        VERIFY_ONLY
+    }
+
+    /**
+     * Claims written to new tokens.
+     */
+    public enum ClaimProfile {
+
+        /**
+         * User id, email, username, first and last name, roles and enabled flag.
+         */
+        FULL,
+
+        /**
+         * Only what authorization needs, with short claim names: user id ({@code sub}),
+         * roles ({@code r}, or {@code rb} as a bitset against {@link Compact#getRoles()})
+         * and the enabled flag ({@code en}). Email and names are left out.
+         */
+        COMPACT
+    }
+
+    /**
+     * Settings for compact tokens.
+     */
+    @Data
+    public static class Compact {
+
+        /**
+         * Role registry for encoding roles as a bitset: the index of each role is its bit.
+         * <p>
+         * Only append to this list - reordering or removing roles changes the meaning of
+         * tokens that are still valid. Tokens of users with a role that is not listed
+         * carry their roles as a string instead.
+         * <p>
+         * Default: empty (roles are always written as a string)
+         */
+        private List<String> roles = new ArrayList<>();
+
+        /**
+         * Compress the payload with DEFLATE when its estimated JSON size exceeds this
+         * many bytes. Compressed tokens can only be read by jjwt-based verifiers.
+         * <p>
+         * Default: 0 (never compress)
+         */
+        private int compressionThreshold = 0;
+    }
+
+    /**
+     * A retired signing key that is only used for verification.
+     */
+    @Data
+    public static class VerificationKey {
+
+        /**
+         * The key id found in the {@code kid} header of tokens signed with this key.
+         */
+        private String keyId;
+
+        /**
+         * The secret the key was derived from.
+         */
+        private String secret;
+    }
+
+    /**
+     * Settings for {@link VerifiedTokenCache}.
+     */
+    @Data
+    public static class TokenCache {
+
+        /**
+         * Whether verified access tokens are cached by the authentication filter.
+         * <p>
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of cached tokens.
+         * <p>
+         * Default: 10000
+         */
+        private long maximumSize = 10_000;
+    }
 }
@@ -1,12 +1,17 @@
 package com.krd.auth;
 
+import com.krd.auth.TokenValidationResult.Failure;
+import com.krd.auth.TokenValidationResult.Valid;
+import com.krd.auth.VerifiedTokenCache.AuthenticationSnapshot;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
-import lombok.AllArgsConstructor;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
-import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -15,6 +20,11 @@ import java.util.stream.Collectors;
  * This service handles the creation of access and refresh tokens,
  * as well as parsing and validating tokens from requests.
  * <p>
+ * The claims written to new tokens depend on {@code spring.jwt.claim-profile}; tokens of
+ * either profile are accepted when parsing.
+ * <p>
+ * Token generation, parsing and validation are timed through {@link JwtMetrics}.
+ * <p>
  * Usage example:
  * <pre>
  * {@code
@@ -32,12 +42,40 @@ import java.util.stream.Collectors;
  *
  * @see Jwt
  * @see JwtConfig
+ * @see JwtKeyRing
  * @see JwtUser
  */
-@AllArgsConstructor
 public class JwtService {
 
     private final JwtConfig config;
+    private final JwtKeyRing keyRing;
+    private final RoleRegistry roleRegistry;
+
+    /**
+     * Fast-path verifier for access tokens (null when disabled).
+     */
+    private final FastPathTokenVerifier fastPathVerifier;
+
+    private JwtMetrics metrics = JwtMetrics.NOOP;
+
+    public JwtService(JwtConfig config) {
+        this.config = config;
+        this.keyRing = JwtKeyRing.from(config);
+        this.roleRegistry = new RoleRegistry(config.getCompact().getRoles());
+        this.fastPathVerifier = config.isFastPathVerification()
+                ? new FastPathTokenVerifier(keyRing, roleRegistry, this::validateWithParser)
+                : null;
+    }
+
+    /**
+     * Injects the metrics to report to, when a {@link JwtMetrics} bean exists.
+     *
+     * @param metrics the metrics
+     */
+    @Autowired(required = false)
+    public void setMetrics(JwtMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     /**
      * Generates a short-lived access token for the given user.
@@ -48,6 +86,7 @@ public class JwtService {
      * @param user the user to generate a token for
      * @return a JWT access token
      * @throws IllegalArgumentException if user is null or disabled
+     * @throws IllegalStateException in verify-only mode
      */
     public Jwt generateAccessToken(JwtUser user) {
         validateUser(user);
@@ -65,6 +104,7 @@ public class JwtService {
      * @param user the user to generate a token for
      * @return a JWT refresh token
      * @throws IllegalArgumentException if user is null or disabled
+     * @throws IllegalStateException in verify-only mode
      */
     public Jwt generateRefreshToken(JwtUser user) {
         validateUser(user);
@@ -87,30 +127,89 @@ public class JwtService {
     }
 
     /**
-     * Generates a JWT token with the specified expiration time.
+     * Generates and signs a JWT token with the specified expiration time.
      *
      * @param user the user to generate a token for
      * @param tokenExpiration expiration time in seconds
      * @return a JWT token
      */
     private Jwt generateToken(JwtUser user, long tokenExpiration) {
+        if (!keyRing.canSign()) {
+            throw new IllegalStateException("Token issuance is disabled: spring.jwt.mode is VERIFY_ONLY");
+        }
+
+        long start = System.nanoTime();
+
         // Convert roles Set to comma-separated string for storage in JWT
         String rolesString = user.getRoles().stream()
                 .collect(Collectors.joining(","));
 
-        var claims = Jwts.claims()
-                .subject(user.getId().toString())
-                .add("email", user.getEmail())
-                .add("username", user.getUsername())
-                .add("firstName", user.getFirstName())
-                .add("lastName", user.getLastName())
-                .add("roles", rolesString)
-                .add("enabled", user.isEnabled())
+        var compactProfile = config.getClaimProfile() == JwtConfig.ClaimProfile.COMPACT;
+        var builder = Jwts.claims()
+                .id(UUID.randomUUID().toString())
+                .subject(user.getId().toString());
+
+        if (compactProfile) {
+            // Only what authorization needs, under short claim names
+            long roleBits = roleRegistry.encode(user.getRoles());
+            if (roleBits >= 0) {
+                builder.add(JwtPrincipal.COMPACT_ROLE_BITS, roleBits);
+            } else {
+                builder.add(JwtPrincipal.COMPACT_ROLES, rolesString);
+            }
+            builder.add(JwtPrincipal.COMPACT_ENABLED, user.isEnabled());
+        } else {
+            builder.add("email", user.getEmail())
+                    .add("username", user.getUsername())
+                    .add("firstName", user.getFirstName())
+                    .add("lastName", user.getLastName())
+                    .add("roles", rolesString)
+                    .add("enabled", user.isEnabled());
+        }
+
+        // Omitted for users whose tokens were never invalidated
+        long tokenEpoch = user.getTokenEpoch();
+        if (tokenEpoch != 0) {
+            builder.add(compactProfile ? JwtPrincipal.COMPACT_TOKEN_EPOCH : JwtPrincipal.TOKEN_EPOCH, tokenEpoch);
+        }
+
+        var claims = builder
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + 1000 * tokenExpiration))
                 .build();
 
-        return new Jwt(claims, config.getSecretKey());
+        var jws = Jwts.builder()
+                .header().keyId(keyRing.getSigningKeyId()).and()
+                .claims(claims);
+
+        int compressionThreshold = config.getCompact().getCompressionThreshold();
+        if (compactProfile && compressionThreshold > 0 && estimateJsonSize(claims) > compressionThreshold) {
+            jws.compressWith(Jwts.ZIP.DEF);
+        }
+
+        // Sign once - the compact form is kept on the Jwt and never rebuilt
+        var compact = jws
+                .signWith(keyRing.getSigningKey())
+                .compact();
+
+        var jwt = new Jwt(claims, compact, JwtPrincipal.from(claims, roleRegistry));
+        metrics.tokenGenerated(System.nanoTime() - start);
+        return jwt;
+    }
+
+    /**
+     * Estimates the size of the claims once serialized to JSON.
+     *
+     * @param claims the claims
+     * @return the approximate number of bytes
+     */
+    private static int estimateJsonSize(Claims claims) {
+        int size = 2;
+        for (var entry : claims.entrySet()) {
+            // "name":value, plus quotes for string values
+            size += entry.getKey().length() + String.valueOf(entry.getValue()).length() + 6;
+        }
+        return size;
     }
 
     /**
@@ -123,26 +222,142 @@ public class JwtService {
      * @return a Jwt object if valid, null otherwise
      */
     public Jwt parseToken(String token) {
+        long start = System.nanoTime();
+        Jwt jwt;
         try {
             var claims = getClaims(token);
-            return new Jwt(claims, config.getSecretKey());
+            jwt = new Jwt(claims, token, JwtPrincipal.from(claims, roleRegistry));
         } catch (JwtException e) {
             // Invalid token (signature mismatch, malformed, etc.)
-            return null;
+            jwt = null;
+        }
+        metrics.tokenParsed(jwt != null, System.nanoTime() - start);
+        return jwt;
+    }
+
+    /**
+     * Verifies an access token and returns what is needed to authenticate a request.
+     * <p>
+     * Unlike {@link #parseToken(String)}, this also rejects expired tokens and tokens of
+     * disabled users.
+     *
+     * @param token the JWT token string (without "Bearer " prefix)
+     * @return the authentication derived from the token, or null if the token is not acceptable
+     * @see #validateAccessToken(String)
+     */
+    public AuthenticationSnapshot verifyAccessToken(String token) {
+        return validateAccessToken(token) instanceof Valid valid ? valid.snapshot() : null;
+    }
+
+    /**
+     * Validates an access token and reports why it was rejected, without throwing.
+     * <p>
+     * Tokens that are not even structurally a signed JWT are rejected up front, without
+     * reaching jjwt. When {@code spring.jwt.fastPathVerification} is enabled (the default),
+     * the allocation-light HMAC verifier classifies bad signatures, expired tokens and
+     * disabled users without any exception; jjwt is only used for tokens it cannot handle,
+     * such as tokens with an unknown {@code kid}, compressed payloads or an {@code nbf}
+     * claim, and rejecting those still costs a jjwt exception.
+     *
+     * @param token the JWT token string (without "Bearer " prefix)
+     * @return the validation result; failures are shared constants
+     */
+    public TokenValidationResult validateAccessToken(String token) {
+        long start = System.nanoTime();
+        TokenValidationResult result;
+        if (!isWellFormed(token)) {
+            result = Failure.MALFORMED;
+        } else if (fastPathVerifier != null) {
+            result = fastPathVerifier.verify(token);
+        } else {
+            result = validateWithParser(token);
         }
+        metrics.tokenValidated(result, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Checks that a token has the shape of a signed JWT: three non-empty base64url parts.
+     * <p>
+     * Tokens failing this check can never be accepted by jjwt, so they are rejected
+     * without paying for its exceptions.
+     *
+     * @param token the JWT token string
+     * @return true if the token may be a signed JWT
+     */
+    private static boolean isWellFormed(String token) {
+        if (token == null) {
+            return false;
+        }
+        int dots = 0;
+        int partLength = 0;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (partLength == 0 || ++dots > 2) {
+                    return false;
+                }
+                partLength = 0;
+            } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_') {
+                partLength++;
+            } else {
+                return false;
+            }
+        }
+        return dots == 2 && partLength > 0;
+    }
+
+    /**
+     * Validates an access token with the generic jjwt parser.
+     *
+     * @param token the JWT token string
+     * @return the validation result
+     */
+    private TokenValidationResult validateWithParser(String token) {
+        Jwt jwt;
+        try {
+            var claims = getClaims(token);
+            jwt = new Jwt(claims, token, JwtPrincipal.from(claims, roleRegistry));
+        } catch (ExpiredJwtException e) {
+            // jjwt verifies the signature before the expiration
+            return Failure.EXPIRED;
+        } catch (SignatureException e) {
+            return Failure.BAD_SIGNATURE;
+        } catch (JwtException e) {
+            return Failure.MALFORMED;
+        }
+
+        // Validate the token
+        if (jwt.isExpired()) {
+            return Failure.EXPIRED;
+        }
+        if (!jwt.isEnabled()) {
+            return Failure.DISABLED;
+        }
+
+        var principal = jwt.getPrincipal();
+        return new Valid(new AuthenticationSnapshot(
+                principal.userId(),
+                principal.authorities(),
+                principal.expiresAtMillis(),
+                principal.tokenId(),
+                principal.tokenEpoch()
+        ));
     }
 
     /**
      * Extracts and verifies claims from a JWT token string.
+     * <p>
+     * Uses the parser pre-built by the key ring, which picks the verification key by the
+     * token's {@code kid} header.
      *
      * @param token the JWT token string
      * @return the verified claims
      * @throws JwtException if the token is invalid
      */
     private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(config.getSecretKey())
-                .build()
+        return keyRing.getParser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
@@ -155,4 +155,21 @@ public interface JwtUser {
      * @return true if the account is enabled, false otherwise
      */
     boolean isEnabled();
+
+    /**
+     * Returns the user's token epoch: tokens issued while the user had an older epoch
+     * are no longer accepted.
+     * <p>
+     * Advancing the epoch invalidates every token already issued to the user, e.g. after
+     * a password change or when a role is removed. The epoch is embedded in new tokens
+     * and checked by {@link TokenEpochChecker}.
+     * <p>
+     * Implementations without token epochs can rely on the default.
+     *
+     * @return the token epoch (epoch milliseconds of the last invalidation), or 0 if
+     *         the user's tokens were never invalidated
+     */
+    default long getTokenEpoch() {
+        return 0;
+    }
 }
@@ -0,0 +1,130 @@
+package com.krd.auth;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonical, shared role sets and Spring Security authorities.
+ * <p>
+ * Every distinct {@code roles} claim is decoded once into an immutable {@link RoleSet}.
+ * Later tokens with the same claim get the same instance, so authenticating a request
+ * does no string splitting and allocates no {@link SimpleGrantedAuthority} objects.
+ * Claims that contain the same roles in a different order share one role set as well.
+ * <p>
+ * The number of cached role sets is bounded. Once the limit is reached, new role
+ * combinations are still decoded correctly but not cached.
+ *
+ * @see JwtPrincipal
+ */
+public final class RoleAuthorities {
+
+    /**
+     * Upper bound on cached role claims and role combinations.
+     */
+    private static final int MAX_CACHED_ROLE_SETS = 1024;
+
+    private static final ConcurrentMap<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, RoleSet> BY_CLAIM = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, RoleSet> BY_CANONICAL_KEY = new ConcurrentHashMap<>();
+
+    private RoleAuthorities() {
+    }
+
+    /**
+     * Returns the canonical role set for a comma-separated {@code roles} claim.
+     *
+     * @param rolesClaim the roles claim (e.g. "ADMIN,USER"), may be null or empty
+     * @return the shared, immutable role set
+     */
+    public static RoleSet fromClaim(String rolesClaim) {
+        if (rolesClaim == null || rolesClaim.isEmpty()) {
+            return RoleSet.EMPTY;
+        }
+
+        var roleSet = BY_CLAIM.get(rolesClaim);
+        if (roleSet != null) {
+            return roleSet;
+        }
+
+        roleSet = canonical(Arrays.asList(rolesClaim.split(",")));
+        if (BY_CLAIM.size() < MAX_CACHED_ROLE_SETS) {
+            BY_CLAIM.putIfAbsent(rolesClaim, roleSet);
+        }
+        return roleSet;
+    }
+
+    /**
+     * Returns the canonical role set for a collection of role names.
+     *
+     * @param roles the role names
+     * @return the shared, immutable role set
+     */
+    public static RoleSet fromRoles(Iterable<String> roles) {
+        return canonical(roles);
+    }
+
+    /**
+     * Returns the shared authority for a role, e.g. {@code ROLE_ADMIN} for "ADMIN".
+     *
+     * @param role the role name without the "ROLE_" prefix
+     * @return the shared granted authority
+     */
+    public static GrantedAuthority authority(String role) {
+        return AUTHORITIES.computeIfAbsent(role, r -> new SimpleGrantedAuthority("ROLE_" + r));
+    }
+
+    private static RoleSet canonical(Iterable<String> roles) {
+        var sorted = new TreeSet<String>();
+        for (var role : roles) {
+            var trimmed = role.trim();
+            if (!trimmed.isEmpty()) {
+                sorted.add(trimmed);
+            }
+        }
+        if (sorted.isEmpty()) {
+            return RoleSet.EMPTY;
+        }
+
+        var key = String.join(",", sorted);
+        var roleSet = BY_CANONICAL_KEY.get(key);
+        if (roleSet != null) {
+            return roleSet;
+        }
+
+        var authorities = new ArrayList<GrantedAuthority>(sorted.size());
+        for (var role : sorted) {
+            authorities.add(authority(role));
+        }
+        roleSet = new RoleSet(Set.copyOf(sorted), List.copyOf(authorities));
+
+        if (BY_CANONICAL_KEY.size() < MAX_CACHED_ROLE_SETS) {
+            var existing = BY_CANONICAL_KEY.putIfAbsent(key, roleSet);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return roleSet;
+    }
+
+    /**
+     * Immutable set of role names together with their granted authorities.
+     *
+     * @param roles the role names (e.g. "ADMIN", "USER")
+     * @param authorities the matching authorities (e.g. "ROLE_ADMIN", "ROLE_USER")
+     */
+    public record RoleSet(Set<String> roles, List<GrantedAuthority> authorities) {
+
+        /**
+         * The role set of a token without roles.
+         */
+        public static final RoleSet EMPTY = new RoleSet(Set.of(), List.of());
+    }
+}
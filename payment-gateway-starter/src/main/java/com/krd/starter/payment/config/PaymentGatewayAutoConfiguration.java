@@ -1,7 +1,15 @@
 package com.krd.starter.payment.config;
 
+import com.krd.starter.payment.gateway.MicrometerPaymentMetrics;
+import com.krd.starter.payment.gateway.PaymentMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
 
 /**
  * Auto-configuration for Payment Gateway Starter.
@@ -12,6 +20,7 @@ import org.springframework.context.annotation.ComponentScan;
  *   <li>Stripe API client configuration</li>
  *   <li>Payment security rules (webhook endpoint authentication bypass)</li>
  *   <li>Payment DTOs and models</li>
+ *   <li>Micrometer metrics for Stripe calls and webhooks, when Micrometer is on the classpath</li>
  * </ul>
  * <p>
  * <strong>Required Configuration:</strong>
@@ -57,5 +66,26 @@ import org.springframework.context.annotation.ComponentScan;
         "com.krd.starter.payment.security"
 })
 public class PaymentGatewayAutoConfiguration {
-    // All beans are auto-discovered via component scanning
+    // Gateway beans are auto-discovered via component scanning
+
+    /**
+     * Publishes {@link PaymentMetrics} to Micrometer when it is on the classpath.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class PaymentMetricsConfiguration {
+
+        /**
+         * Creates the payment metrics, backed by the application's meter registry if it has one.
+         *
+         * @param registry the meter registry, if available
+         * @return the payment metrics
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public PaymentMetrics paymentMetrics(ObjectProvider<MeterRegistry> registry) {
+            var meterRegistry = registry.getIfAvailable();
+            return meterRegistry != null ? new MicrometerPaymentMetrics(meterRegistry) : PaymentMetrics.NOOP;
+        }
+    }
 }
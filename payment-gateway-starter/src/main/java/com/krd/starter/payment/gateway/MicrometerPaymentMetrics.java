@@ -0,0 +1,56 @@
+package com.krd.starter.payment.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PaymentMetrics} backed by Micrometer timers.
+ * <p>
+ * Published meters (each timer also counts its events):
+ * <ul>
+ *   <li>{@code krd.payment.stripe.checkout} - latency of creating Stripe checkout sessions,
+ *       tagged {@code outcome=success|failure}</li>
+ *   <li>{@code krd.payment.webhook} - webhook handling, tagged
+ *       {@code outcome=paid|failed|ignored|invalid_signature|error}</li>
+ * </ul>
+ */
+public class MicrometerPaymentMetrics implements PaymentMetrics {
+
+    private final Timer checkoutSuccess;
+    private final Timer checkoutFailure;
+    private final Timer[] webhooks;
+
+    public MicrometerPaymentMetrics(MeterRegistry registry) {
+        this.checkoutSuccess = checkoutTimer(registry, "success");
+        this.checkoutFailure = checkoutTimer(registry, "failure");
+
+        var outcomes = WebhookOutcome.values();
+        this.webhooks = new Timer[outcomes.length];
+        for (var outcome : outcomes) {
+            webhooks[outcome.ordinal()] = Timer.builder("krd.payment.webhook")
+                    .description("Time spent verifying and processing payment webhooks")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void checkoutSessionCreated(boolean success, long nanos) {
+        (success ? checkoutSuccess : checkoutFailure).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void webhookProcessed(WebhookOutcome outcome, long nanos) {
+        webhooks[outcome.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer checkoutTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("krd.payment.stripe.checkout")
+                .description("Latency of creating Stripe checkout sessions")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
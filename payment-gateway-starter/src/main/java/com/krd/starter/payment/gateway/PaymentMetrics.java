@@ -0,0 +1,68 @@
+package com.krd.starter.payment.gateway;
+
+/**
+ * Receives timings from {@link StripePaymentGateway}.
+ * <p>
+ * The default methods do nothing, so the starter works without a metrics library.
+ * When Micrometer is on the classpath, {@link MicrometerPaymentMetrics} is registered
+ * automatically and publishes the timings as Micrometer timers.
+ *
+ * @see MicrometerPaymentMetrics
+ */
+public interface PaymentMetrics {
+
+    /**
+     * Metrics that discard every measurement.
+     */
+    PaymentMetrics NOOP = new PaymentMetrics() {
+    };
+
+    /**
+     * Outcome of handling a webhook request.
+     */
+    enum WebhookOutcome {
+
+        /**
+         * A payment succeeded.
+         */
+        PAID,
+
+        /**
+         * A payment failed.
+         */
+        FAILED,
+
+        /**
+         * The event is not payment-related and was ignored.
+         */
+        IGNORED,
+
+        /**
+         * The request was rejected because its signature did not verify.
+         */
+        INVALID_SIGNATURE,
+
+        /**
+         * The event could not be processed (e.g. missing order ID).
+         */
+        ERROR
+    }
+
+    /**
+     * Records a call to the Stripe API that creates a checkout session.
+     *
+     * @param success whether the session was created
+     * @param nanos the latency of the call
+     */
+    default void checkoutSessionCreated(boolean success, long nanos) {
+    }
+
+    /**
+     * Records the handling of a webhook request.
+     *
+     * @param outcome the outcome
+     * @param nanos the time spent verifying and processing the request
+     */
+    default void webhookProcessed(WebhookOutcome outcome, long nanos) {
+    }
+}
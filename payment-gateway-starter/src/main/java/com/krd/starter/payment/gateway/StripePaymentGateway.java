@@ -1,5 +1,6 @@
 package com.krd.starter.payment.gateway;
 
+import com.krd.starter.payment.gateway.PaymentMetrics.WebhookOutcome;
 import com.krd.starter.payment.models.*;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
@@ -9,6 +10,7 @@ import com.stripe.model.checkout.Session;
 import com.stripe.net.Webhook;
 import com.stripe.param.checkout.SessionCreateParams;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -32,6 +34,8 @@ import java.util.Optional;
  *   webhook-secret-key: ${STRIPE_WEBHOOK_SECRET_KEY}
  * websiteUrl: ${WEBSITE_URL}
  * </pre>
+ * <p>
+ * Stripe API latency and webhook outcomes are reported to {@link PaymentMetrics}.
  */
 @Service
 @Slf4j
@@ -43,6 +47,18 @@ public class StripePaymentGateway implements PaymentGateway {
     @Value("${stripe.webhookSecretKey}")
     private String webhookSecretKey;
 
+    private PaymentMetrics metrics = PaymentMetrics.NOOP;
+
+    /**
+     * Injects the metrics to report to, when a {@link PaymentMetrics} bean exists.
+     *
+     * @param metrics the metrics
+     */
+    @Autowired(required = false)
+    public void setMetrics(PaymentMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Creates a Stripe Checkout session for the given order.
      *
@@ -69,7 +85,7 @@ public class StripePaymentGateway implements PaymentGateway {
             });
 
             // Create the Stripe Session
-            var session = Session.create(builder.build());
+            var session = createSession(builder.build());
             log.info("Created Stripe checkout session for order {}: {}", order.getOrderId(), session.getId());
 
             return new CheckoutSession(session.getUrl());
@@ -80,6 +96,25 @@ public class StripePaymentGateway implements PaymentGateway {
         }
     }
 
+    /**
+     * Calls the Stripe API to create a checkout session, reporting its latency.
+     *
+     * @param params the session parameters
+     * @return the created session
+     * @throws StripeException if the Stripe API call fails
+     */
+    private Session createSession(SessionCreateParams params) throws StripeException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            var session = Session.create(params);
+            success = true;
+            return session;
+        } finally {
+            metrics.checkoutSessionCreated(success, System.nanoTime() - start);
+        }
+    }
+
     /**
      * Creates PaymentIntent metadata with the order ID.
      *
@@ -101,6 +136,8 @@ public class StripePaymentGateway implements PaymentGateway {
      */
     @Override
     public Optional<PaymentResult> parseWebhookRequest(WebhookRequest request) {
+        long start = System.nanoTime();
+        var outcome = WebhookOutcome.ERROR;
         try {
             var payload = request.getPayload();
             var signature = request.getHeaders().get("stripe-signature");
@@ -113,21 +150,29 @@ public class StripePaymentGateway implements PaymentGateway {
             return switch (event.getType()) {
                 case "payment_intent.succeeded" -> {
                     log.info("Payment succeeded for order: {}", extractOrderId(event));
-                    yield Optional.of(new PaymentResult(extractOrderId(event), PaymentStatus.PAID));
+                    var result = new PaymentResult(extractOrderId(event), PaymentStatus.PAID);
+                    outcome = WebhookOutcome.PAID;
+                    yield Optional.of(result);
                 }
                 case "payment_intent.payment_failed" -> {
                     log.warn("Payment failed for order: {}", extractOrderId(event));
-                    yield Optional.of(new PaymentResult(extractOrderId(event), PaymentStatus.FAILED));
+                    var result = new PaymentResult(extractOrderId(event), PaymentStatus.FAILED);
+                    outcome = WebhookOutcome.FAILED;
+                    yield Optional.of(result);
                 }
                 default -> {
                     log.debug("Unhandled webhook event type: {}", event.getType());
+                    outcome = WebhookOutcome.IGNORED;
                     yield Optional.empty();
                 }
             };
 
         } catch (SignatureVerificationException e) {
             log.error("Invalid Stripe webhook signature: {}", e.getMessage());
+            outcome = WebhookOutcome.INVALID_SIGNATURE;
             throw new PaymentException("Invalid webhook signature", e);
+        } finally {
+            metrics.webhookProcessed(outcome, System.nanoTime() - start);
         }
     }
 
@@ -1,19 +1,59 @@
 package com.krd.starter.config;
 
 import com.krd.security.SecurityRules;
+import com.krd.starter.jwt.JdbcTokenRevocationStore;
 import com.krd.starter.jwt.JwtAuthenticationFilter;
 import com.krd.starter.jwt.JwtConfig;
+import com.krd.starter.jwt.JwtMetrics;
 import com.krd.starter.jwt.JwtService;
+import com.krd.starter.jwt.MicrometerJwtMetrics;
+import com.krd.starter.jwt.TokenEpochChecker;
+import com.krd.starter.jwt.TokenRevocationChecker;
+import com.krd.starter.jwt.TokenRevocationService;
+import com.krd.starter.jwt.TokenRevocationStore;
+import com.krd.starter.jwt.VerifiedTokenCache;
+import com.krd.starter.scheduling.SchedulerLeaseConfig;
+import com.krd.starter.scheduling.SchedulerLeaseLock;
+import com.krd.starter.scheduling.SingleNodeJob;
+import com.krd.starter.scheduling.SingleNodeJobInterceptor;
+import com.krd.starter.user.BCryptCostCalibrator;
+import com.krd.starter.user.BaseUserRepository;
+import com.krd.starter.user.BulkUserOperationService;
+import com.krd.starter.user.CaffeineUserSnapshotCache;
+import com.krd.starter.user.ChangeLogUserSnapshotCache;
+import com.krd.starter.user.CurrentIdentity;
+import com.krd.starter.user.MicrometerUserMetrics;
+import com.krd.starter.user.PasswordHashingExecutor;
+import com.krd.starter.user.PooledPasswordEncoder;
+import com.krd.starter.user.RepositoryUserDetailsService;
+import com.krd.starter.user.RoleChangeAuditWriter;
+import com.krd.starter.user.UserImportService;
 import com.krd.starter.user.UserManagementConfig;
+import com.krd.starter.user.UserMetrics;
+import com.krd.starter.user.UserSnapshotCache;
+import com.krd.starter.user.UserTokenEpochService;
 import com.krd.starter.validation.PasswordPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -22,16 +62,23 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Auto-configuration for Spring API Starter.
@@ -41,10 +88,14 @@ import java.util.List;
  *   <li>JWT authentication with JwtService and JwtAuthenticationFilter</li>
  *   <li>Password validation with configurable PasswordPolicy</li>
  *   <li>BCrypt password encoding</li>
+ *   <li>A UserDetailsService that loads users through the BaseUserRepository</li>
+ *   <li>A bounded password hashing pool for login, registration and password changes</li>
  *   <li>Spring Security with JWT-based stateless authentication</li>
  *   <li>CORS configuration from application.yaml</li>
  *   <li>Method-level security with @PreAuthorize annotations</li>
  *   <li>Scheduled tasks for user management (hard delete of soft-deleted users)</li>
+ *   <li>Database leases that run {@link SingleNodeJob} tasks on one instance, when enabled</li>
+ *   <li>Micrometer metrics, when Micrometer is on the classpath</li>
  * </ul>
  * <p>
  * <strong>Required Configuration:</strong>
@@ -58,6 +109,14 @@ import java.util.List;
  * <p>
  * <strong>Optional Configuration:</strong>
  * <pre>
+ * spring:
+ *   jwt:
+ *     token-cache:
+ *       enabled: true
+ *       maximum-size: 10000
+ *     revocation:
+ *       enabled: true          # requires the revoked_tokens table
+ *
  * cors:
  *   allowed-origins:
  *     - http://localhost:3000
@@ -77,10 +136,15 @@ import java.util.List;
  *     hard-delete-enabled: true
  *     hard-delete-after-days: 180
  *     hard-delete-cron: "0 0 2 * * *"
+ *     token-epoch-enabled: true  # requires the token_epoch column
+ *   scheduling:
+ *     leases:
+ *       enabled: true          # requires the scheduler_leases table
  * </pre>
  */
 @AutoConfiguration
-@EnableConfigurationProperties({JwtConfig.class, PasswordPolicy.class, UserManagementConfig.class, CorsConfig.class})
+@EnableConfigurationProperties({JwtConfig.class, PasswordPolicy.class, UserManagementConfig.class, CorsConfig.class,
+        SchedulerLeaseConfig.class})
 @ComponentScan(basePackages = {
         "com.krd.starter.jwt",
         "com.krd.starter.user",
@@ -99,13 +163,77 @@ public class SpringApiStarterAutoConfiguration {
      * Creates the BCrypt password encoder bean.
      * <p>
      * BCrypt is a strong, adaptive hashing algorithm recommended for password storage.
+     * New hashes are written as {@code {bcrypt}...} at the configured (or calibrated)
+     * cost; hashes without an algorithm prefix are still matched as BCrypt. Hashes at
+     * an older cost or without the prefix report {@link PasswordEncoder#upgradeEncoding},
+     * and are rehashed on the next login.
+     * <p>
+     * Encoding and matching run on the {@link PasswordHashingExecutor}, when there is one.
      *
+     * @param userConfig the user management configuration properties
+     * @param hashingExecutor the password hashing pool, if available
      * @return the password encoder
      */
     @Bean
     @ConditionalOnMissingBean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(UserManagementConfig userConfig,
+                                           ObjectProvider<PasswordHashingExecutor> hashingExecutor) {
+        var settings = userConfig.getPasswordHashing();
+        int strength = settings.getTargetLatency() != null
+                ? BCryptCostCalibrator.calibrate(settings.getStrength(), settings.getMaxStrength(),
+                        settings.getTargetLatency())
+                : settings.getStrength();
+
+        var bcrypt = new BCryptPasswordEncoder(strength);
+        var encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        var executor = hashingExecutor.getIfAvailable();
+        return executor != null ? new PooledPasswordEncoder(encoder, executor) : encoder;
+    }
+
+    /**
+     * Creates the bounded pool that login, registration and password changes hash passwords on.
+     *
+     * @param userConfig the user management configuration properties
+     * @param metrics the user metrics, if available
+     * @return the password hashing executor
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public PasswordHashingExecutor passwordHashingExecutor(UserManagementConfig userConfig,
+                                                           ObjectProvider<UserMetrics> metrics) {
+        var settings = userConfig.getPasswordHashing();
+        var executor = new PasswordHashingExecutor(settings.getThreads(), settings.getQueueCapacity());
+        metrics.ifAvailable(executor::setMetrics);
+        return executor;
+    }
+
+    /**
+     * Creates the user details service used by the authentication manager on login.
+     * <p>
+     * Loads the user with its roles in one query and hands the entity to
+     * {@code BaseAuthService}, so logins do not look the user up twice. Only created if
+     * the application defines no {@link UserDetailsService} of its own.
+     *
+     * @param userRepository the user repository
+     * @return the user details service
+     */
+    @Bean
+    @ConditionalOnMissingBean(UserDetailsService.class)
+    public RepositoryUserDetailsService<?> userDetailsService(BaseUserRepository<?> userRepository) {
+        return new RepositoryUserDetailsService<>(userRepository);
+    }
+
+    /**
+     * Creates the current identity shared by the user and auth services and by consumer
+     * services, so the caller's user is loaded at most once per request.
+     *
+     * @return the current identity
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CurrentIdentity currentIdentity() {
+        return new CurrentIdentity();
     }
 
     /**
@@ -123,15 +251,183 @@ public class SpringApiStarterAutoConfiguration {
         return authConfig.getAuthenticationManager();
     }
 
+    /**
+     * Creates the verified-token cache used by the JWT authentication filter.
+     * <p>
+     * Only created when {@code spring.jwt.token-cache.enabled=true}.
+     *
+     * @param jwtConfig the JWT configuration properties
+     * @return the verified-token cache
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "spring.jwt.token-cache", name = "enabled", havingValue = "true")
+    public VerifiedTokenCache verifiedTokenCache(JwtConfig jwtConfig) {
+        return new VerifiedTokenCache(jwtConfig.getTokenCache().getMaximumSize());
+    }
+
+    /**
+     * Creates the JDBC store of revoked tokens.
+     * <p>
+     * Only created when {@code spring.jwt.revocation.enabled=true}.
+     *
+     * @param jdbcTemplate the JDBC template
+     * @return the revocation store
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "spring.jwt.revocation", name = "enabled", havingValue = "true")
+    public TokenRevocationStore tokenRevocationStore(JdbcTemplate jdbcTemplate) {
+        return new JdbcTokenRevocationStore(jdbcTemplate);
+    }
+
+    /**
+     * Creates the token revocation service used by the filter and the auth endpoints.
+     * <p>
+     * Only created when {@code spring.jwt.revocation.enabled=true}.
+     *
+     * @param store the revocation store
+     * @param jwtConfig the JWT configuration properties
+     * @return the token revocation service
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "spring.jwt.revocation", name = "enabled", havingValue = "true")
+    public TokenRevocationService tokenRevocationService(TokenRevocationStore store, JwtConfig jwtConfig) {
+        return new TokenRevocationService(store, jwtConfig.getRevocation());
+    }
+
+    /**
+     * Creates the in-memory user token epochs used by the filter and the user service.
+     * <p>
+     * Only created when {@code app.user.token-epoch-enabled=true}.
+     *
+     * @param jdbcTemplate the JDBC template
+     * @param userConfig the user management configuration properties
+     * @param jwtConfig the JWT configuration properties
+     * @return the token epoch service
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "app.user", name = "token-epoch-enabled", havingValue = "true")
+    public UserTokenEpochService userTokenEpochService(JdbcTemplate jdbcTemplate,
+                                                       UserManagementConfig userConfig,
+                                                       JwtConfig jwtConfig) {
+        var maxTokenLifetime = Duration.ofSeconds(
+                Math.max(jwtConfig.getAccessTokenExpiration(), jwtConfig.getRefreshTokenExpiration()));
+        return new UserTokenEpochService(jdbcTemplate, userConfig.getUsersTable(), maxTokenLifetime);
+    }
+
+    /**
+     * Creates the user snapshot cache read by the user service and {@code /auth/me}.
+     * <p>
+     * Only created when {@code app.user.snapshot-cache.enabled=true}. With
+     * {@code change-log-enabled}, invalidations are shared through the {@code user_changes} table.
+     *
+     * @param userConfig the user management configuration properties
+     * @param jdbcTemplate the JDBC template, required for the change log
+     * @return the user snapshot cache
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "app.user.snapshot-cache", name = "enabled", havingValue = "true")
+    public UserSnapshotCache userSnapshotCache(UserManagementConfig userConfig,
+                                               ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        var config = userConfig.getSnapshotCache();
+        var cache = new CaffeineUserSnapshotCache(config.getMaximumSize(), config.getTimeToLive());
+        if (!config.isChangeLogEnabled()) {
+            return cache;
+        }
+        return new ChangeLogUserSnapshotCache(cache, jdbcTemplate.getObject(), config.getTimeToLive());
+    }
+
+    /**
+     * Creates the writer that inserts role change audit records in batches, off the request.
+     * <p>
+     * Only created when {@code app.user.role-change-audit.async-enabled=true}.
+     *
+     * @param userConfig the user management configuration properties
+     * @param jdbcTemplate the JDBC template
+     * @param transactionManager the transaction manager, for replaying the spool file
+     * @param metrics the user metrics, if available
+     * @return the role change audit writer
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "app.user.role-change-audit", name = "async-enabled", havingValue = "true")
+    public RoleChangeAuditWriter roleChangeAuditWriter(UserManagementConfig userConfig,
+                                                       JdbcTemplate jdbcTemplate,
+                                                       PlatformTransactionManager transactionManager,
+                                                       ObjectProvider<UserMetrics> metrics) {
+        var config = userConfig.getRoleChangeAudit();
+        var writer = new RoleChangeAuditWriter(jdbcTemplate, transactionManager, config.getQueueCapacity(),
+                config.getBatchSize(), config.getFlushInterval(), config.getSpoolFile());
+        metrics.ifAvailable(writer::setMetrics);
+        return writer;
+    }
+
+    /**
+     * Creates the service that runs bulk user operations as background jobs.
+     * <p>
+     * Only created when {@code app.user.bulk-operations.enabled=true}; without it,
+     * {@code POST /users/bulk} responds with 404 Not Found.
+     *
+     * @param userConfig the user management configuration properties
+     * @param jdbcTemplate the JDBC template
+     * @param transactionManager the transaction manager, for one transaction per chunk
+     * @return the bulk user operation service
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "app.user.bulk-operations", name = "enabled", havingValue = "true")
+    public BulkUserOperationService bulkUserOperationService(UserManagementConfig userConfig,
+                                                             JdbcTemplate jdbcTemplate,
+                                                             PlatformTransactionManager transactionManager) {
+        return new BulkUserOperationService(userConfig, jdbcTemplate, transactionManager);
+    }
+
+    /**
+     * Creates the service that imports users from CSV or NDJSON.
+     * <p>
+     * Only created when {@code app.user.bulk-import.enabled=true}; without it,
+     * {@code POST /users/import} responds with 404 Not Found.
+     *
+     * @param userConfig the user management configuration properties
+     * @param jdbcTemplate the JDBC template
+     * @param transactionManager the transaction manager, for one transaction per chunk
+     * @param passwordEncoder the password encoder; hashes run on the import's own pool
+     * @param validator the bean validator, for the registration constraints
+     * @return the user import service
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "app.user.bulk-import", name = "enabled", havingValue = "true")
+    public UserImportService userImportService(UserManagementConfig userConfig,
+                                               JdbcTemplate jdbcTemplate,
+                                               PlatformTransactionManager transactionManager,
+                                               PasswordEncoder passwordEncoder,
+                                               Validator validator) {
+        // The import hashes on its own pool; going through the request hashing pool as well
+        // would compete with logins and could reject the import
+        var encoder = passwordEncoder instanceof PooledPasswordEncoder pooled ? pooled.getDelegate() : passwordEncoder;
+        return new UserImportService(userConfig, jdbcTemplate, transactionManager, encoder, validator);
+    }
+
     /**
      * Creates the JWT authentication filter bean.
      *
+     * @param tokenCache the verified-token cache, if enabled
+     * @param revocationChecker the token revocation check, if enabled
+     * @param epochChecker the token epoch check, if enabled
      * @return the JWT authentication filter
      */
     @Bean
     @ConditionalOnMissingBean
-    public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtService);
+    public JwtAuthenticationFilter jwtAuthenticationFilter(ObjectProvider<VerifiedTokenCache> tokenCache,
+                                                           ObjectProvider<TokenRevocationChecker> revocationChecker,
+                                                           ObjectProvider<TokenEpochChecker> epochChecker) {
+        return new JwtAuthenticationFilter(jwtService, tokenCache.getIfAvailable(),
+                revocationChecker.getIfAvailable(), epochChecker.getIfAvailable());
     }
 
     /**
@@ -225,6 +521,9 @@ public class SpringApiStarterAutoConfiguration {
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authorizeHttpRequests(auth -> {
+                    // Async results (e.g. streamed exports) were authorized when the request first arrived
+                    auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
+
                     // Apply modular security rules from SecurityRules beans
                     securityRules.forEach(rule -> rule.configure(auth));
 
@@ -249,4 +548,97 @@ public class SpringApiStarterAutoConfiguration {
 
                 .build();
     }
+
+    /**
+     * Publishes {@link JwtMetrics} and {@link UserMetrics} to Micrometer when it is on the classpath.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class MetricsConfiguration {
+
+        /**
+         * Creates the JWT metrics, backed by the application's meter registry if it has one.
+         *
+         * @param registry the meter registry, if available
+         * @return the JWT metrics
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public JwtMetrics jwtMetrics(ObjectProvider<MeterRegistry> registry) {
+            var meterRegistry = registry.getIfAvailable();
+            return meterRegistry != null ? new MicrometerJwtMetrics(meterRegistry) : JwtMetrics.NOOP;
+        }
+
+        /**
+         * Creates the user metrics, backed by the application's meter registry if it has one.
+         *
+         * @param registry the meter registry, if available
+         * @return the user metrics
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public UserMetrics userMetrics(ObjectProvider<MeterRegistry> registry) {
+            var meterRegistry = registry.getIfAvailable();
+            return meterRegistry != null ? new MicrometerUserMetrics(meterRegistry) : UserMetrics.NOOP;
+        }
+    }
+
+    /**
+     * Runs {@link SingleNodeJob} methods on one instance at a time, when
+     * {@code app.scheduling.leases.enabled=true}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "app.scheduling.leases", name = "enabled", havingValue = "true")
+    static class SchedulerLeaseConfiguration {
+
+        /**
+         * Creates the lease lock backed by the {@code scheduler_leases} table.
+         *
+         * @param jdbcTemplate the JDBC template
+         * @param config the scheduler lease configuration properties
+         * @return the lease lock
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public SchedulerLeaseLock schedulerLeaseLock(JdbcTemplate jdbcTemplate, SchedulerLeaseConfig config) {
+            var instanceId = config.getInstanceId();
+            if (instanceId == null || instanceId.isBlank()) {
+                try {
+                    instanceId = InetAddress.getLocalHost().getHostName();
+                } catch (UnknownHostException e) {
+                    instanceId = "unknown";
+                }
+            }
+            return new SchedulerLeaseLock(jdbcTemplate, instanceId);
+        }
+
+        /**
+         * Creates the interceptor that holds the lease while a {@link SingleNodeJob} method
+         * runs. A bean of its own, so its renewal thread is shut down with the context.
+         *
+         * @param leaseLock the lease lock, resolved on first use
+         * @return the interceptor
+         */
+        @Bean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        static SingleNodeJobInterceptor singleNodeJobInterceptor(ObjectProvider<SchedulerLeaseLock> leaseLock) {
+            return new SingleNodeJobInterceptor(leaseLock);
+        }
+
+        /**
+         * Creates the advisor that wraps {@link SingleNodeJob} methods in their lease.
+         * <p>
+         * Static and infrastructure-role, so it is applied by the auto-proxy creator that
+         * Spring already registers for transactions and method security.
+         *
+         * @param interceptor the lease interceptor
+         * @return the advisor
+         */
+        @Bean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        static Advisor singleNodeJobAdvisor(SingleNodeJobInterceptor interceptor) {
+            return new DefaultPointcutAdvisor(
+                    AnnotationMatchingPointcut.forMethodAnnotation(SingleNodeJob.class), interceptor);
+        }
+    }
 }
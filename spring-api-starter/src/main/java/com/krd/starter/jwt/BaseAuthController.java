@@ -4,10 +4,12 @@ import com.krd.starter.jwt.dto.JwtResponse;
 import com.krd.starter.jwt.dto.LoginRequest;
 import com.krd.starter.user.BaseUser;
 import com.krd.starter.user.BaseUserMapper;
+import com.krd.starter.user.UserSnapshotCache;
 import com.krd.starter.user.dto.BaseUserDto;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,7 +20,7 @@ import org.springframework.web.bind.annotation.*;
  * - POST   /auth/login                  - Login with email/password (sets refresh token cookie)
  * - POST   /auth/refresh                - Refresh access token using cookie
  * - GET    /auth/me                     - Get current authenticated user
- * - POST   /auth/revoke-refresh-token   - Revoke refresh token (logout)
+ * - POST   /auth/revoke-refresh-token   - Revoke tokens and clear the refresh token cookie (logout)
  * <p>
  * Consumer applications should extend this class:
  * <pre>
@@ -36,16 +38,31 @@ import org.springframework.web.bind.annotation.*;
  * }
  * }
  * </pre>
+ * <p>
+ * Login checks the password through the application's {@code PasswordEncoder}, which runs
+ * BCrypt on the {@link com.krd.starter.user.PasswordHashingExecutor} by default.
  *
  * @param <T> The concrete user entity type extending BaseUser
  * @param <D> The concrete user DTO type extending BaseUserDto
  */
 public abstract class BaseAuthController<T extends BaseUser, D extends BaseUserDto> {
 
+    /**
+     * Path of the refresh token cookie; covers both /auth/refresh and /auth/revoke-refresh-token.
+     */
+    private static final String REFRESH_COOKIE_PATH = "/auth";
+
+    /**
+     * Path the refresh token cookie used to be set on; still cleared on logout.
+     */
+    private static final String LEGACY_REFRESH_COOKIE_PATH = "/auth/refresh";
+
     protected final JwtConfig jwtConfig;
     protected final BaseUserMapper<T, D> userMapper;
     protected final BaseAuthService<T> authService;
 
+    protected UserSnapshotCache snapshotCache = UserSnapshotCache.NONE;
+
     protected BaseAuthController(JwtConfig jwtConfig,
                                 BaseUserMapper<T, D> userMapper,
                                 BaseAuthService<T> authService) {
@@ -54,6 +71,17 @@ public abstract class BaseAuthController<T extends BaseUser, D extends BaseUserD
         this.authService = authService;
     }
 
+    /**
+     * Injects the user snapshot cache, when it is enabled, so {@code /auth/me} is served
+     * from memory.
+     *
+     * @param snapshotCache the user snapshot cache
+     */
+    @Autowired(required = false)
+    public void setSnapshotCache(UserSnapshotCache snapshotCache) {
+        this.snapshotCache = snapshotCache;
+    }
+
     /**
      * Login with email and password.
      * <p>
@@ -71,13 +99,13 @@ public abstract class BaseAuthController<T extends BaseUser, D extends BaseUserD
 
         var cookie = new Cookie("refreshToken", refreshToken);
         cookie.setHttpOnly(true); // Cannot be accessed by JavaScript
-        cookie.setPath("/auth/refresh"); // Only sent to /auth/refresh endpoint
+        cookie.setPath(REFRESH_COOKIE_PATH); // Sent to /auth/refresh and /auth/revoke-refresh-token
         cookie.setMaxAge(jwtConfig.getRefreshTokenExpiration()); // 7 days
         cookie.setSecure(true); // Only sent over HTTPS
         response.addCookie(cookie);
 
         // Return the access token in the response body
-        return new JwtResponse(loginResponse.getAccessToken().toString());
+        return new JwtResponse(loginResponse.getAccessToken());
     }
 
     /**
@@ -89,7 +117,7 @@ public abstract class BaseAuthController<T extends BaseUser, D extends BaseUserD
     @PostMapping("/refresh")
     public JwtResponse refresh(@CookieValue(value = "refreshToken") String refreshToken) {
         var accessToken = authService.refreshAccessToken(refreshToken);
-        return new JwtResponse(accessToken.toString());
+        return new JwtResponse(accessToken);
     }
 
     /**
@@ -99,40 +127,61 @@ public abstract class BaseAuthController<T extends BaseUser, D extends BaseUserD
      */
     @GetMapping("/me")
     public ResponseEntity<D> me() {
-        var user = authService.getCurrentUser();
-        if (user == null) {
+        D userDto = snapshotCache.get(authService.getCurrentUserId(), id -> {
+            var user = authService.getCurrentUser();
+            return user == null ? null : userMapper.toDto(user);
+        });
+        if (userDto == null) {
             return ResponseEntity.notFound().build();
         }
 
-        var userDto = userMapper.toDto(user);
         return ResponseEntity.ok(userDto);
     }
 
     /**
-     * Revoke the refresh token by clearing the HttpOnly cookie.
+     * Revoke the tokens and clear the HttpOnly refresh token cookie (logout).
      * <p>
-     * Note: The current access token remains valid until expiration (~15 minutes).
-     * The user will not be able to obtain new access tokens after this call.
+     * When {@code spring.jwt.revocation.enabled=true}, the access token from the
+     * Authorization header is revoked immediately and rejected on every later request.
+     * The refresh token is revoked too: its cookie is scoped to {@code /auth}, so the
+     * browser sends it with this request. Without revocation, the access token remains
+     * valid until expiration (~15 minutes).
      * <p>
      * For complete logout, the client should:
-     * 1. Call this endpoint to revoke the refresh token
+     * 1. Call this endpoint with its current access token
      * 2. Delete the access token from client memory
      * 3. Redirect to login page
      *
+     * @param authorization the Authorization header, if present
+     * @param refreshToken the refresh token cookie, if sent
      * @param response HTTP response for clearing the refresh token cookie
      * @return 204 No Content
      */
     @PostMapping("/revoke-refresh-token")
-    public ResponseEntity<Void> revokeRefreshToken(HttpServletResponse response) {
-        // Clear the refresh token cookie by setting MaxAge to 0
+    public ResponseEntity<Void> revokeRefreshToken(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @CookieValue(value = "refreshToken", required = false) String refreshToken,
+            HttpServletResponse response) {
+        var accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : null;
+        authService.revokeTokens(accessToken, refreshToken);
+
+        // Clear the refresh token cookie by setting MaxAge to 0. The path must match the
+        // path used in login; cookies set before it was widened are cleared too.
+        clearRefreshCookie(response, REFRESH_COOKIE_PATH);
+        clearRefreshCookie(response, LEGACY_REFRESH_COOKIE_PATH);
+
+        return ResponseEntity.noContent().build();
+    }
+
+    private static void clearRefreshCookie(HttpServletResponse response, String path) {
         var cookie = new Cookie("refreshToken", null);
         cookie.setHttpOnly(true);
-        cookie.setPath("/auth/refresh"); // Must match the path used in login
+        cookie.setPath(path);
         cookie.setMaxAge(0); // Immediately expire the cookie
         cookie.setSecure(true);
         response.addCookie(cookie);
-
-        return ResponseEntity.noContent().build();
     }
 
     // Exception handling has been moved to application-level GlobalExceptionHandler
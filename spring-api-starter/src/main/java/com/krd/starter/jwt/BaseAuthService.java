@@ -2,12 +2,18 @@ package com.krd.starter.jwt;
 
 import com.krd.starter.jwt.dto.LoginRequest;
 import com.krd.starter.jwt.dto.LoginResponse;
+import com.krd.starter.user.AuthenticatedUser;
 import com.krd.starter.user.BaseUser;
 import com.krd.starter.user.BaseUserRepository;
+import com.krd.starter.user.CurrentIdentity;
+import com.krd.starter.user.UserMetrics;
+import com.krd.starter.user.UserMetrics.PasswordOperation;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
  * Abstract base service for authentication operations.
@@ -17,6 +23,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
  *   <li>Login with email/password and JWT token generation</li>
  *   <li>Refresh token handling for generating new access tokens</li>
  *   <li>Get currently authenticated user from security context</li>
+ *   <li>Token revocation on logout (when {@code spring.jwt.revocation.enabled=true})</li>
  * </ul>
  * <p>
  * Consumer applications should extend this class with their concrete user type:
@@ -42,6 +49,20 @@ public abstract class BaseAuthService<T extends BaseUser> {
     protected final BaseUserRepository<T> userRepository;
     protected final JwtService jwtService;
 
+    /**
+     * Optional token revocation (null when revocation is disabled).
+     */
+    protected TokenRevocationService tokenRevocationService;
+
+    protected UserMetrics metrics = UserMetrics.NOOP;
+
+    /**
+     * Optional password encoder used to upgrade outdated hashes on login (null to never upgrade).
+     */
+    protected PasswordEncoder passwordEncoder;
+
+    protected CurrentIdentity currentIdentity = new CurrentIdentity();
+
     protected BaseAuthService(AuthenticationManager authenticationManager,
                              BaseUserRepository<T> userRepository,
                              JwtService jwtService) {
@@ -51,14 +72,63 @@ public abstract class BaseAuthService<T extends BaseUser> {
     }
 
     /**
-     * Get the currently authenticated user from the security context.
+     * Injects the token revocation service when revocation is enabled.
+     * <p>
+     * Setter injection keeps the constructor of consumer subclasses unchanged.
+     *
+     * @param tokenRevocationService the token revocation service
+     */
+    @Autowired(required = false)
+    public void setTokenRevocationService(TokenRevocationService tokenRevocationService) {
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    /**
+     * Injects the metrics to report to, when a {@link UserMetrics} bean exists.
+     *
+     * @param metrics the metrics
+     */
+    @Autowired(required = false)
+    public void setMetrics(UserMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Injects the password encoder, enabling rehashing of outdated password hashes on login.
+     *
+     * @param passwordEncoder the password encoder
+     */
+    @Autowired(required = false)
+    public void setPasswordEncoder(PasswordEncoder passwordEncoder) {
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    /**
+     * Injects the shared current identity, replacing the service's own instance.
+     *
+     * @param currentIdentity the current identity
+     */
+    @Autowired(required = false)
+    public void setCurrentIdentity(CurrentIdentity currentIdentity) {
+        this.currentIdentity = currentIdentity;
+    }
+
+    /**
+     * Get the ID of the currently authenticated user from the security context.
+     *
+     * @return The authenticated user's ID, or null if not authenticated
+     */
+    public Long getCurrentUserId() {
+        return currentIdentity.getUserId();
+    }
+
+    /**
+     * Get the currently authenticated user, loaded at most once per request.
      *
      * @return The authenticated user, or null if not found
      */
     public T getCurrentUser() {
-        var authentication = SecurityContextHolder.getContext().getAuthentication();
-        var userId = (Long) authentication.getPrincipal();
-        return userRepository.findById(userId).orElse(null);
+        return currentIdentity.getUser(userRepository).orElse(null);
     }
 
     /**
@@ -66,8 +136,9 @@ public abstract class BaseAuthService<T extends BaseUser> {
      * <p>
      * This method:
      * 1. Validates the user's credentials using the AuthenticationManager
-     * 2. Retrieves the user from the database
-     * 3. Generates both access and refresh tokens
+     * 2. Takes the user loaded during authentication (or retrieves it from the database)
+     * 3. Rehashes the password if its hash uses an outdated algorithm or cost
+     * 4. Generates both access and refresh tokens
      *
      * @param request Login request with email and password
      * @return LoginResponse containing access and refresh tokens
@@ -75,15 +146,25 @@ public abstract class BaseAuthService<T extends BaseUser> {
      */
     public LoginResponse login(LoginRequest request) {
         // Authenticate the user using our Authentication Manager
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getEmail(),
-                        request.getPassword()
-                )
-        );
+        long start = System.nanoTime();
+        boolean authenticated = false;
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            request.getEmail(),
+                            request.getPassword()
+                    )
+            );
+            authenticated = true;
+        } finally {
+            // The user lookup and the password check; a rehash is recorded separately
+            metrics.loginAuthenticated(authenticated, System.nanoTime() - start);
+        }
 
-        // Get the user from our database so we can generate the JWT for them
-        var user = userRepository.findByEmail(request.getEmail()).orElseThrow();
+        // Get the user so we can generate the JWT for them
+        var user = authenticatedUser(authentication, request.getEmail());
+        upgradePasswordHash(user, request.getPassword());
 
         // Generate access and refresh tokens
         var accessToken = jwtService.generateAccessToken(user);
@@ -92,26 +173,99 @@ public abstract class BaseAuthService<T extends BaseUser> {
         return new LoginResponse(accessToken, refreshToken);
     }
 
+    /**
+     * Get the user entity of a successful login.
+     * <p>
+     * With the starter's {@link com.krd.starter.user.RepositoryUserDetailsService}, the
+     * entity loaded to check the password is reused. With any other
+     * {@code UserDetailsService}, it is looked up by email.
+     *
+     * @param authentication The successful authentication
+     * @param email          The email the user logged in with
+     * @return The user entity
+     */
+    @SuppressWarnings("unchecked")
+    protected T authenticatedUser(Authentication authentication, String email) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser<?> authenticated) {
+            return (T) authenticated.getUser();
+        }
+        return userRepository.findByEmail(email).orElseThrow();
+    }
+
+    /**
+     * Rehash a user's password if its stored hash uses an outdated algorithm or cost.
+     * <p>
+     * Only called after the password was verified, while the raw password is at hand.
+     * Lets the BCrypt cost be raised without a mass migration: every user is upgraded on
+     * their next login. This is the only place hashes are upgraded: the starter's
+     * {@code UserDetailsService} is not a {@code UserDetailsPasswordService}, so Spring
+     * Security does not rehash them during authentication.
+     *
+     * @param user        The authenticated user
+     * @param rawPassword The password the user logged in with
+     */
+    protected void upgradePasswordHash(T user, String rawPassword) {
+        if (passwordEncoder == null || user.getPassword() == null
+                || !passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        long start = System.nanoTime();
+        user.setPassword(passwordEncoder.encode(rawPassword));
+        metrics.passwordHashed(PasswordOperation.LOGIN, System.nanoTime() - start);
+        userRepository.save(user);
+    }
+
     /**
      * Refresh an access token using a valid refresh token.
      * <p>
      * This method:
      * 1. Parses and validates the refresh token
-     * 2. Checks if the token is expired
+     * 2. Checks if the token is expired or revoked
      * 3. Retrieves the user from the database
-     * 4. Generates a new access token
+     * 4. Rejects the token if the user's tokens were invalidated after it was issued
+     * 5. Generates a new access token
      *
      * @param refreshToken The refresh token string
      * @return A new access token (Jwt)
-     * @throws BadCredentialsException if the refresh token is invalid or expired
+     * @throws BadCredentialsException if the refresh token is invalid, expired, revoked or stale
      */
     public Jwt refreshAccessToken(String refreshToken) {
         var jwt = jwtService.parseToken(refreshToken);
-        if (jwt == null || jwt.isExpired()) {
+        if (jwt == null || jwt.isExpired() || isRevoked(jwt)) {
             throw new BadCredentialsException("Invalid refresh token");
         }
 
         var user = userRepository.findById(jwt.getUserId()).orElseThrow();
+        if (jwt.getTokenEpoch() < user.getTokenEpoch()) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
         return jwtService.generateAccessToken(user);
     }
+
+    /**
+     * Revoke the given tokens so they are rejected before they expire.
+     * <p>
+     * Only tokens with a valid signature are revoked; missing or invalid tokens are
+     * ignored. Does nothing unless {@code spring.jwt.revocation.enabled=true}.
+     *
+     * @param accessToken the access token from the Authorization header (may be null)
+     * @param refreshToken the refresh token from the cookie (may be null)
+     */
+    public void revokeTokens(String accessToken, String refreshToken) {
+        if (tokenRevocationService == null) {
+            return;
+        }
+        for (var token : new String[]{accessToken, refreshToken}) {
+            var jwt = token != null ? jwtService.parseToken(token) : null;
+            if (jwt != null) {
+                tokenRevocationService.revoke(jwt);
+            }
+        }
+    }
+
+    private boolean isRevoked(Jwt jwt) {
+        return tokenRevocationService != null
+                && jwt.getTokenId() != null
+                && tokenRevocationService.isRevoked(jwt.getTokenId(), jwt.getPrincipal().expiresAtMillis());
+    }
 }
@@ -0,0 +1,657 @@
+package com.krd.starter.jwt;
+
+import com.krd.starter.jwt.TokenValidationResult.Failure;
+import com.krd.starter.jwt.TokenValidationResult.Valid;
+import com.krd.starter.jwt.VerifiedTokenCache.AuthenticationSnapshot;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Allocation-light verifier for the HMAC-signed access tokens issued by {@link JwtService}.
+ * <p>
+ * The generic jjwt parser builds maps, Jackson trees and {@code Date} objects for every
+ * token. This verifier handles the common case directly:
+ * <ol>
+ *   <li>Splits the compact token in place and base64url-decodes it into pooled buffers</li>
+ *   <li>Verifies the signature with a pooled {@link Mac} for the token's {@code kid} and
+ *       compares it in constant time</li>
+ *   <li>Reads only {@code sub}, {@code jti}, {@code roles}, {@code enabled}, {@code epoch}
+ *       and {@code exp} (or their compact forms {@code r}, {@code rb}, {@code en} and
+ *       {@code ep}) with a minimal streaming JSON reader</li>
+ * </ol>
+ * Buffers and {@code Mac} instances are kept in small bounded queues rather than thread
+ * locals, so the pools stay small and safe when requests run on virtual threads.
+ * <p>
+ * A token is only rejected here when the answer is certain: a signature mismatch, an
+ * expired token or a disabled user. Rejections are reported as shared
+ * {@link TokenValidationResult.Failure} constants, without exceptions. Anything this
+ * verifier does not understand (other header parameters, an unknown {@code kid}, escaped
+ * strings, {@code nbf}, nested values, padding, etc.) is handed to the fallback, which
+ * uses jjwt.
+ *
+ * @see JwtService#validateAccessToken(String)
+ */
+final class FastPathTokenVerifier {
+
+    /**
+     * Longer tokens are left to the fallback rather than growing the pooled buffers.
+     */
+    private static final int MAX_TOKEN_LENGTH = 8192;
+
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final int VERIFIED = 0;
+    private static final int UNSUPPORTED = 1;
+    private static final int BAD_SIGNATURE = 2;
+    private static final int EXPIRED = 3;
+    private static final int DISABLED = 4;
+
+    private static final byte[] ALG = utf8("alg");
+    private static final byte[] KID = utf8("kid");
+    private static final byte[] TYP = utf8("typ");
+    private static final byte[] SUB = utf8("sub");
+    private static final byte[] JTI = utf8("jti");
+    private static final byte[] ROLES = utf8("roles");
+    private static final byte[] ENABLED = utf8("enabled");
+    private static final byte[] COMPACT_ROLES = utf8(JwtPrincipal.COMPACT_ROLES);
+    private static final byte[] COMPACT_ROLE_BITS = utf8(JwtPrincipal.COMPACT_ROLE_BITS);
+    private static final byte[] COMPACT_ENABLED = utf8(JwtPrincipal.COMPACT_ENABLED);
+    private static final byte[] TOKEN_EPOCH = utf8(JwtPrincipal.TOKEN_EPOCH);
+    private static final byte[] COMPACT_TOKEN_EPOCH = utf8(JwtPrincipal.COMPACT_TOKEN_EPOCH);
+    private static final byte[] EXP = utf8("exp");
+    private static final byte[] NBF = utf8("nbf");
+    private static final byte[] TRUE = utf8("true");
+    private static final byte[] FALSE = utf8("false");
+
+    private static final byte[] BASE64URL = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        var alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final KeyVerifier[] keys;
+
+    /**
+     * Verifier for tokens without a {@code kid} header (null if none).
+     */
+    private final KeyVerifier legacyKey;
+    private final RoleRegistry roleRegistry;
+    private final Function<String, TokenValidationResult> fallback;
+    private final BlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    /**
+     * Creates a verifier for the HMAC keys of a key ring.
+     *
+     * @param keyRing the keys tokens may be signed with
+     * @param roleRegistry the registry used to decode role bitsets of compact tokens
+     * @param fallback validates tokens the fast path cannot handle
+     */
+    FastPathTokenVerifier(JwtKeyRing keyRing, RoleRegistry roleRegistry,
+                          Function<String, TokenValidationResult> fallback) {
+        this.roleRegistry = roleRegistry;
+        this.fallback = fallback;
+
+        var verifiers = new ArrayList<KeyVerifier>();
+        for (var entry : keyRing.getVerificationKeys().entrySet()) {
+            var verifier = keyVerifier(utf8(entry.getKey()), entry.getValue());
+            if (verifier != null) {
+                verifiers.add(verifier);
+            }
+        }
+        this.keys = verifiers.toArray(KeyVerifier[]::new);
+        this.legacyKey = keyVerifier(null, keyRing.getLegacyKey());
+    }
+
+    /**
+     * Verifies an access token.
+     *
+     * @param token the compact token string
+     * @return the validation result
+     */
+    TokenValidationResult verify(String token) {
+        if (token.length() > MAX_TOKEN_LENGTH) {
+            return fallback.apply(token);
+        }
+
+        var scratch = scratchPool.poll();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+
+        int outcome;
+        AuthenticationSnapshot snapshot = null;
+        try {
+            outcome = scratch.verify(token);
+            if (outcome == VERIFIED) {
+                snapshot = scratch.snapshot();
+            }
+        } finally {
+            scratchPool.offer(scratch);
+        }
+
+        return switch (outcome) {
+            case VERIFIED -> new Valid(snapshot);
+            case BAD_SIGNATURE -> Failure.BAD_SIGNATURE;
+            case EXPIRED -> Failure.EXPIRED;
+            case DISABLED -> Failure.DISABLED;
+            default -> fallback.apply(token);
+        };
+    }
+
+    private KeyVerifier findKey(byte[] json, int start, int end) {
+        for (var key : keys) {
+            if (regionEquals(json, start, end, key.keyId)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a verifier for an HMAC key.
+     *
+     * @return the verifier, or null for keys the fast path does not handle (e.g. public keys)
+     */
+    private static KeyVerifier keyVerifier(byte[] keyId, Key key) {
+        if (!(key instanceof SecretKey secretKey)) {
+            return null;
+        }
+        var algorithm = jwsAlgorithm(secretKey);
+        return algorithm != null ? new KeyVerifier(keyId, utf8(algorithm), secretKey) : null;
+    }
+
+    /**
+     * Maps a key's JCA algorithm to the JWS algorithm jjwt signs with for that key.
+     */
+    private static String jwsAlgorithm(SecretKey key) {
+        return switch (key.getAlgorithm()) {
+            case "HmacSHA256" -> "HS256";
+            case "HmacSHA384" -> "HS384";
+            case "HmacSHA512" -> "HS512";
+            default -> null;
+        };
+    }
+
+    /**
+     * Decodes unpadded base64url characters into {@code dst}.
+     *
+     * @return the number of decoded bytes, or -1 if the input is not plain base64url
+     */
+    private static int decodeBase64Url(String src, int from, int to, byte[] dst) {
+        if ((to - from) % 4 == 1) {
+            return -1;
+        }
+        int out = 0;
+        int bits = 0;
+        int buffer = 0;
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
+            if (c >= 128 || BASE64URL[c] < 0) {
+                return -1;
+            }
+            buffer = (buffer << 6) | BASE64URL[c];
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                dst[out++] = (byte) (buffer >> bits);
+                buffer &= (1 << bits) - 1;
+            }
+        }
+        return out;
+    }
+
+    private static boolean constantTimeEquals(byte[] a, byte[] b, int length) {
+        int diff = 0;
+        for (int i = 0; i < length; i++) {
+            diff |= a[i] ^ b[i];
+        }
+        return diff == 0;
+    }
+
+    private static boolean regionEquals(byte[] json, int start, int end, byte[] expected) {
+        return Arrays.equals(json, start, end, expected, 0, expected.length);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * An HMAC verification key with its pool of initialized {@link Mac} instances.
+     */
+    private static final class KeyVerifier {
+
+        private final byte[] keyId;
+        private final byte[] algorithm;
+        private final SecretKey key;
+        private final int macLength;
+        private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(POOL_SIZE);
+
+        private KeyVerifier(byte[] keyId, byte[] algorithm, SecretKey key) {
+            this.keyId = keyId;
+            this.algorithm = algorithm;
+            this.key = key;
+            var mac = newMac();
+            this.macLength = mac.getMacLength();
+            macs.offer(mac);
+        }
+
+        private Mac acquire() {
+            var mac = macs.poll();
+            return mac != null ? mac : newMac();
+        }
+
+        private void release(Mac mac) {
+            macs.offer(mac);
+        }
+
+        private Mac newMac() {
+            try {
+                var mac = Mac.getInstance(key.getAlgorithm());
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialize " + key.getAlgorithm(), e);
+            }
+        }
+    }
+
+    /**
+     * Reusable buffers and reader state for verifying one token at a time.
+     */
+    private final class Scratch {
+
+        private byte[] input = new byte[1024];
+        private byte[] header = new byte[1024];
+        private byte[] payload = new byte[1024];
+        private byte[] signature = new byte[1024];
+        private final byte[] expected = new byte[64];
+
+        // Reader state
+        private byte[] json;
+        private int pos;
+        private int end;
+        private int stringStart;
+        private int stringEnd;
+
+        // Decoded claims
+        private long userId;
+        private int tokenIdStart;
+        private int tokenIdEnd;
+        private int rolesStart;
+        private int rolesEnd;
+        private long roleBits;
+        private long tokenEpoch;
+        private long expiresAtMillis;
+
+        private int verify(String token) {
+            int firstDot = token.indexOf('.');
+            int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+            if (firstDot <= 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+                return UNSUPPORTED;
+            }
+
+            ensureCapacity(token.length());
+            int headerLength = decodeBase64Url(token, 0, firstDot, header);
+            int payloadLength = decodeBase64Url(token, firstDot + 1, secondDot, payload);
+            int signatureLength = decodeBase64Url(token, secondDot + 1, token.length(), signature);
+            if (headerLength < 0 || payloadLength < 0 || signatureLength < 0) {
+                return UNSUPPORTED;
+            }
+
+            var key = readHeader(headerLength);
+            if (key == null) {
+                return UNSUPPORTED;
+            }
+
+            // Every character before the second dot is base64url, so the signing input is ASCII
+            for (int i = 0; i < secondDot; i++) {
+                input[i] = (byte) token.charAt(i);
+            }
+            var mac = key.acquire();
+            try {
+                mac.update(input, 0, secondDot);
+                mac.doFinal(expected, 0);
+            } catch (GeneralSecurityException e) {
+                // Discard the partial input so the pooled instance can be reused
+                mac.reset();
+                return UNSUPPORTED;
+            } finally {
+                key.release(mac);
+            }
+
+            if (signatureLength != key.macLength || !constantTimeEquals(expected, signature, key.macLength)) {
+                return BAD_SIGNATURE;
+            }
+
+            return readClaims(payloadLength);
+        }
+
+        private AuthenticationSnapshot snapshot() {
+            RoleAuthorities.RoleSet roleSet;
+            if (roleBits >= 0) {
+                roleSet = roleRegistry.decode(roleBits);
+            } else if (rolesStart >= 0) {
+                roleSet = RoleAuthorities.fromClaim(
+                        new String(payload, rolesStart, rolesEnd - rolesStart, StandardCharsets.UTF_8));
+            } else {
+                roleSet = RoleAuthorities.RoleSet.EMPTY;
+            }
+            var tokenId = tokenIdStart < 0
+                    ? null
+                    : new String(payload, tokenIdStart, tokenIdEnd - tokenIdStart, StandardCharsets.UTF_8);
+            return new AuthenticationSnapshot(userId, roleSet.authorities(), expiresAtMillis, tokenId,
+                    Math.max(tokenEpoch, 0));
+        }
+
+        /**
+         * Reads a header containing only {@code alg}, {@code kid} and {@code typ}.
+         *
+         * @return the key to verify with, or null if the header is not supported
+         */
+        private KeyVerifier readHeader(int length) {
+            if (!begin(header, length)) {
+                return null;
+            }
+
+            int algStart = -1;
+            int algEnd = -1;
+            KeyVerifier key = legacyKey;
+            boolean kidSeen = false;
+            do {
+                if (!readString() || !consume(':')) {
+                    return null;
+                }
+                int keyStart = stringStart;
+                int keyEnd = stringEnd;
+                if (!readString()) {
+                    return null;
+                }
+                if (regionEquals(json, keyStart, keyEnd, ALG) && algStart < 0) {
+                    algStart = stringStart;
+                    algEnd = stringEnd;
+                } else if (regionEquals(json, keyStart, keyEnd, KID) && !kidSeen) {
+                    kidSeen = true;
+                    key = findKey(json, stringStart, stringEnd);
+                } else if (!regionEquals(json, keyStart, keyEnd, TYP)) {
+                    return null;
+                }
+            } while (consume(','));
+
+            if (!finish() || key == null || algStart < 0
+                    || !regionEquals(json, algStart, algEnd, key.algorithm)) {
+                return null;
+            }
+            return key;
+        }
+
+        /**
+         * Reads the claims of a verified payload.
+         *
+         * @return the verification outcome
+         */
+        private int readClaims(int length) {
+            userId = -1;
+            tokenIdStart = -1;
+            tokenIdEnd = -1;
+            rolesStart = -1;
+            rolesEnd = -1;
+            roleBits = -1;
+            tokenEpoch = -1;
+            expiresAtMillis = -1;
+            int enabled = -1;
+
+            if (!begin(payload, length)) {
+                return UNSUPPORTED;
+            }
+            if (consume('}')) {
+                return UNSUPPORTED;
+            }
+
+            do {
+                if (!readString() || !consume(':')) {
+                    return UNSUPPORTED;
+                }
+                int keyStart = stringStart;
+                int keyEnd = stringEnd;
+
+                if (regionEquals(json, keyStart, keyEnd, SUB)) {
+                    if (userId >= 0 || !readString()) {
+                        return UNSUPPORTED;
+                    }
+                    userId = parseDigits(stringStart, stringEnd);
+                    if (userId < 0) {
+                        return UNSUPPORTED;
+                    }
+                } else if (regionEquals(json, keyStart, keyEnd, JTI)) {
+                    if (tokenIdStart >= 0 || !readString()) {
+                        return UNSUPPORTED;
+                    }
+                    tokenIdStart = stringStart;
+                    tokenIdEnd = stringEnd;
+                } else if (regionEquals(json, keyStart, keyEnd, ROLES)
+                        || regionEquals(json, keyStart, keyEnd, COMPACT_ROLES)) {
+                    if (rolesStart >= 0 || roleBits >= 0 || !readString()) {
+                        return UNSUPPORTED;
+                    }
+                    rolesStart = stringStart;
+                    rolesEnd = stringEnd;
+                } else if (regionEquals(json, keyStart, keyEnd, COMPACT_ROLE_BITS)) {
+                    if (rolesStart >= 0 || roleBits >= 0) {
+                        return UNSUPPORTED;
+                    }
+                    skipWhitespace();
+                    int start = pos;
+                    skipScalar();
+                    roleBits = parseDigits(start, pos);
+                    if (roleBits < 0) {
+                        return UNSUPPORTED;
+                    }
+                } else if (regionEquals(json, keyStart, keyEnd, ENABLED)
+                        || regionEquals(json, keyStart, keyEnd, COMPACT_ENABLED)) {
+                    if (enabled >= 0) {
+                        return UNSUPPORTED;
+                    }
+                    enabled = readBoolean();
+                    if (enabled < 0) {
+                        return UNSUPPORTED;
+                    }
+                } else if (regionEquals(json, keyStart, keyEnd, TOKEN_EPOCH)
+                        || regionEquals(json, keyStart, keyEnd, COMPACT_TOKEN_EPOCH)) {
+                    if (tokenEpoch >= 0) {
+                        return UNSUPPORTED;
+                    }
+                    skipWhitespace();
+                    int start = pos;
+                    skipScalar();
+                    tokenEpoch = parseDigits(start, pos);
+                    if (tokenEpoch < 0) {
+                        return UNSUPPORTED;
+                    }
+                } else if (regionEquals(json, keyStart, keyEnd, EXP)) {
+                    if (expiresAtMillis >= 0) {
+                        return UNSUPPORTED;
+                    }
+                    skipWhitespace();
+                    int start = pos;
+                    skipScalar();
+                    long seconds = parseDigits(start, pos);
+                    if (seconds < 0) {
+                        return UNSUPPORTED;
+                    }
+                    expiresAtMillis = seconds * 1000;
+                } else if (regionEquals(json, keyStart, keyEnd, NBF) || !skipValue()) {
+                    return UNSUPPORTED;
+                }
+            } while (consume(','));
+
+            if (!finish() || userId < 0) {
+                return UNSUPPORTED;
+            }
+            if (expiresAtMillis < 0) {
+                expiresAtMillis = Long.MAX_VALUE;
+            }
+            if (System.currentTimeMillis() > expiresAtMillis) {
+                return EXPIRED;
+            }
+            return enabled == 1 ? VERIFIED : DISABLED;
+        }
+
+        private boolean begin(byte[] json, int length) {
+            this.json = json;
+            this.pos = 0;
+            this.end = length;
+            return consume('{');
+        }
+
+        private boolean finish() {
+            if (!consume('}')) {
+                return false;
+            }
+            skipWhitespace();
+            return pos == end;
+        }
+
+        private void skipWhitespace() {
+            while (pos < end) {
+                byte b = json[pos];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (pos < end && json[pos] == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Reads a string without escape sequences into {@code stringStart}/{@code stringEnd}.
+         */
+        private boolean readString() {
+            if (!consume('"')) {
+                return false;
+            }
+            int start = pos;
+            while (pos < end) {
+                byte b = json[pos];
+                if (b == '"') {
+                    stringStart = start;
+                    stringEnd = pos++;
+                    return true;
+                }
+                if (b == '\\') {
+                    return false;
+                }
+                pos++;
+            }
+            return false;
+        }
+
+        /**
+         * Reads a boolean literal.
+         *
+         * @return 1 for true, 0 for false, -1 for anything else
+         */
+        private int readBoolean() {
+            skipWhitespace();
+            int start = pos;
+            skipScalar();
+            if (regionEquals(json, start, pos, TRUE)) {
+                return 1;
+            }
+            return regionEquals(json, start, pos, FALSE) ? 0 : -1;
+        }
+
+        /**
+         * Skips a value whose contents are not needed. Objects and arrays are not supported.
+         */
+        private boolean skipValue() {
+            skipWhitespace();
+            if (pos >= end) {
+                return false;
+            }
+            byte first = json[pos];
+            if (first == '{' || first == '[') {
+                return false;
+            }
+            if (first != '"') {
+                int start = pos;
+                skipScalar();
+                return pos > start;
+            }
+            pos++;
+            while (pos < end) {
+                byte b = json[pos++];
+                if (b == '\\') {
+                    pos++;
+                } else if (b == '"') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Skips a number or literal up to the next delimiter.
+         */
+        private void skipScalar() {
+            skipWhitespace();
+            while (pos < end) {
+                byte b = json[pos];
+                if (b == ',' || b == '}' || b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        /**
+         * Parses a run of at most 15 decimal digits.
+         *
+         * @return the value, or -1 if the region is empty, too long or not all digits
+         */
+        private long parseDigits(int start, int end) {
+            if (start >= end || end - start > 15) {
+                return -1;
+            }
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = json[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private void ensureCapacity(int tokenLength) {
+            if (input.length < tokenLength) {
+                input = new byte[tokenLength];
+                header = new byte[tokenLength];
+                payload = new byte[tokenLength];
+                signature = new byte[tokenLength];
+            }
+        }
+    }
+}
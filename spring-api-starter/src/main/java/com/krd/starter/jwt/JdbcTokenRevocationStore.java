@@ -0,0 +1,57 @@
+package com.krd.starter.jwt;
+
+import lombok.AllArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * {@link TokenRevocationStore} backed by the {@code revoked_tokens} table.
+ * <p>
+ * Create the table with the {@code create_revoked_tokens_table.sql} migration template.
+ *
+ * @see TokenRevocationService
+ */
+@AllArgsConstructor
+public class JdbcTokenRevocationStore implements TokenRevocationStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO revoked_tokens (jti, expires_at, revoked_at) VALUES (?, ?, ?)",
+                    tokenId, Timestamp.from(expiresAt), Timestamp.from(Instant.now())
+            );
+        } catch (DuplicateKeyException e) {
+            // Already revoked
+        }
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        var count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM revoked_tokens WHERE jti = ?",
+                Integer.class, tokenId
+        );
+        return count != null && count > 0;
+    }
+
+    @Override
+    public List<RevokedToken> findRevokedSince(Instant revokedSince, Instant now) {
+        return jdbcTemplate.query(
+                "SELECT jti, expires_at FROM revoked_tokens WHERE revoked_at >= ? AND expires_at > ?",
+                (rs, rowNum) -> new RevokedToken(rs.getString("jti"), rs.getTimestamp("expires_at").toInstant()),
+                Timestamp.from(revokedSince), Timestamp.from(now)
+        );
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        return jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at <= ?", Timestamp.from(now));
+    }
+}
@@ -3,8 +3,12 @@ package com.krd.starter.jwt;
 import io.jsonwebtoken.security.Keys;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
 
 import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuration properties for JWT token generation and validation.
@@ -17,6 +21,31 @@ import javax.crypto.SecretKey;
  *     accessTokenExpiration: 900    # 15 minutes
  *     refreshTokenExpiration: 604800 # 7 days
  * </pre>
+ * <p>
+ * <strong>Key rotation:</strong> tokens carry the id of their signing key in the
+ * {@code kid} header. To rotate without downtime, move the current secret to
+ * {@code verificationKeys} under its old id and configure a new secret and key id:
+ * <pre>
+ * spring:
+ *   jwt:
+ *     secret: ${JWT_SECRET}
+ *     keyId: 2024-11
+ *     verificationKeys:
+ *       - keyId: 2024-10
+ *         secret: ${JWT_PREVIOUS_SECRET}
+ * </pre>
+ * Once every token signed with the old key has expired, the old entry can be removed.
+ * <p>
+ * <strong>Asymmetric signing:</strong> to let other services verify tokens without
+ * being able to issue them, sign with a private JWK (e.g. RSA or Ed25519) instead of
+ * the shared secret, and give those services the matching public JWKS:
+ * <pre>
+ * spring:
+ *   jwt:
+ *     signingJwk: file:/etc/secrets/jwt-signing-key.json
+ * </pre>
+ * The JWK's {@code kid} is used as the key id. If {@code secret} is still configured,
+ * tokens without a {@code kid} header keep being verified with it.
  *
  * @see JwtService
  */
@@ -31,6 +60,8 @@ public class JwtConfig {
      * stored in environment variables, not hardcoded.
      * <p>
      * Minimum length: 32 characters (256 bits) for HS256 algorithm.
+     * <p>
+     * Not needed when tokens are signed with {@link #signingJwk}.
      */
     private String secret;
 
@@ -54,14 +85,203 @@ public class JwtConfig {
      */
     private int refreshTokenExpiration;
 
+    /**
+     * Identifier of the signing key, written to the {@code kid} header of issued tokens.
+     * <p>
+     * Change it together with {@link #secret} when rotating keys.
+     * <p>
+     * Default: "primary"
+     */
+    private String keyId = "primary";
+
+    /**
+     * Location of a private JWK to sign tokens with instead of {@link #secret}
+     * (e.g. {@code file:/etc/secrets/jwt-signing-key.json} or {@code classpath:jwk.json}).
+     * <p>
+     * Default: not set (tokens are signed with the HMAC secret)
+     */
+    private Resource signingJwk;
+
+    /**
+     * Retired keys that are still accepted when verifying tokens, but never used for signing.
+     * <p>
+     * Tokens without a {@code kid} header (issued before key ids were introduced)
+     * are always verified with the current {@link #secret}.
+     */
+    private List<VerificationKey> verificationKeys = new ArrayList<>();
+
+    /**
+     * Settings for the verified-token cache used by the authentication filter.
+     */
+    private TokenCache tokenCache = new TokenCache();
+
+    /**
+     * Which claims are written to new tokens.
+     * <p>
+     * Both profiles are always accepted when verifying, so the profile can be changed
+     * while tokens of the other profile are still in circulation.
+     * <p>
+     * Default: {@link ClaimProfile#FULL}
+     */
+    private ClaimProfile claimProfile = ClaimProfile.FULL;
+
+    /**
+     * Settings for the {@link ClaimProfile#COMPACT} claim profile.
+     */
+    private Compact compact = new Compact();
+
+    /**
+     * Whether access tokens are verified with the allocation-light HMAC fast path
+     * before falling back to the generic jjwt parser.
+     * <p>
+     * Tokens the fast path cannot handle are always verified by jjwt, so this never
+     * changes which tokens are accepted. With it disabled, every forged or expired token
+     * costs a jjwt exception with its stack trace.
+     * <p>
+     * Default: true
+     */
+    private boolean fastPathVerification = true;
+
+    /**
+     * Settings for revoking tokens before they expire.
+     */
+    private Revocation revocation = new Revocation();
+
     /**
      * Generates a SecretKey from the configured secret string.
      * <p>
-     * This key is used for both signing and verifying JWT tokens.
+     * A new key is derived on every call. Token signing and verification use the
+     * keys pre-computed by {@link JwtKeyRing} instead.
      *
      * @return the secret key for JWT operations
      */
     public SecretKey getSecretKey() {
         return Keys.hmacShaKeyFor(secret.getBytes());
     }
+
+    /**
+     * Claims written to new tokens.
+     */
+    public enum ClaimProfile {
+
+        /**
+         * User id, email, username, first and last name, roles and enabled flag.
+         */
+        FULL,
+
+        /**
+         * Only what authorization needs, with short claim names: user id ({@code sub}),
+         * roles ({@code r}, or {@code rb} as a bitset against {@link Compact#getRoles()})
+         * and the enabled flag ({@code en}). Email and names are left out.
+         */
+        COMPACT
+    }
+
+    /**
+     * Settings for compact tokens.
+     */
+    @Data
+    public static class Compact {
+
+        /**
+         * Role registry for encoding roles as a bitset: the index of each role is its bit.
+         * <p>
+         * Only append to this list - reordering or removing roles changes the meaning of
+         * tokens that are still valid. Tokens of users with a role that is not listed
+         * carry their roles as a string instead.
+         * <p>
+         * Default: empty (roles are always written as a string)
+         */
+        private List<String> roles = new ArrayList<>();
+
+        /**
+         * Compress the payload with DEFLATE when its estimated JSON size exceeds this
+         * many bytes. Compressed tokens can only be read by jjwt-based verifiers.
+         * <p>
+         * Default: 0 (never compress)
+         */
+        private int compressionThreshold = 0;
+    }
+
+    /**
+     * A retired signing key that is only used for verification.
+     */
+    @Data
+    public static class VerificationKey {
+
+        /**
+         * The key id found in the {@code kid} header of tokens signed with this key.
+         */
+        private String keyId;
+
+        /**
+         * The secret the key was derived from.
+         */
+        private String secret;
+    }
+
+    /**
+     * Settings for {@link TokenRevocationService}.
+     */
+    @Data
+    public static class Revocation {
+
+        /**
+         * Whether tokens can be revoked and every request is checked for revocation.
+         * Requires the {@code revoked_tokens} table.
+         * <p>
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Span of token expiration times covered by one Bloom filter bucket. A bucket is
+         * dropped once all tokens it covers have expired.
+         * <p>
+         * Default: 1 hour
+         */
+        private Duration bucketWidth = Duration.ofHours(1);
+
+        /**
+         * Expected revocations per bucket, used to size each Bloom filter bucket.
+         * <p>
+         * Default: 10000
+         */
+        private long expectedRevocationsPerBucket = 10_000;
+
+        /**
+         * Target rate of "possibly revoked" answers that need a database lookup.
+         * <p>
+         * Default: 0.01
+         */
+        private double falsePositiveRate = 0.01;
+
+        /**
+         * How often revocations made by other instances are picked up.
+         * <p>
+         * Default: 10 seconds
+         */
+        private Duration pollInterval = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Settings for {@link VerifiedTokenCache}.
+     */
+    @Data
+    public static class TokenCache {
+
+        /**
+         * Whether verified access tokens are cached by the authentication filter.
+         * <p>
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of cached tokens.
+         * <p>
+         * Default: 10000
+         */
+        private long maximumSize = 10_000;
+    }
 }
@@ -0,0 +1,187 @@
+package com.krd.starter.jwt;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PrivateJwk;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of keys used to sign and verify JWT tokens.
+ * <p>
+ * All keys are derived from {@link JwtConfig} once, when the ring is built, and the
+ * {@link JwtParser} is built once as well. Both are immutable and safe to share between
+ * request threads, so nothing is allocated per request for key handling.
+ * <p>
+ * New tokens are signed with the current key and carry its id in the {@code kid} header.
+ * The current key is either derived from {@code spring.jwt.secret} (HMAC) or read from
+ * the private JWK at {@code spring.jwt.signingJwk} (e.g. RS256 or EdDSA), so that other
+ * services can verify tokens with the public key alone.
+ * <p>
+ * When verifying, the parser looks the key up by {@code kid} in a map, so any number of
+ * retired keys can stay active during a rotation:
+ * <ul>
+ *   <li>{@code kid} of the current key - verified with the current (public) key</li>
+ *   <li>{@code kid} of a retired key - verified with that key</li>
+ *   <li>No {@code kid} (tokens issued before key ids existed) - verified with the key
+ *       derived from {@code spring.jwt.secret}, if one is configured</li>
+ *   <li>Unknown {@code kid} - rejected</li>
+ * </ul>
+ *
+ * @see JwtConfig
+ * @see JwtService
+ */
+public final class JwtKeyRing extends LocatorAdapter<Key> {
+
+    /**
+     * Id of the key used to sign new tokens.
+     */
+    @Getter
+    private final String signingKeyId;
+
+    /**
+     * Key used to sign new tokens: a {@link SecretKey} or a private key.
+     */
+    @Getter
+    private final Key signingKey;
+
+    /**
+     * Key for tokens without a {@code kid} header (null if such tokens are not accepted).
+     */
+    @Getter
+    private final Key legacyKey;
+
+    /**
+     * Parser that verifies tokens against every key in this ring.
+     */
+    @Getter
+    private final JwtParser parser;
+
+    /**
+     * Every key accepted when verifying tokens, by key id (including the current key).
+     */
+    @Getter
+    private final Map<String, Key> verificationKeys;
+
+    private JwtKeyRing(String signingKeyId, Key signingKey, Key legacyKey, Map<String, Key> verificationKeys) {
+        this.signingKeyId = signingKeyId;
+        this.signingKey = signingKey;
+        this.legacyKey = legacyKey;
+        this.verificationKeys = Map.copyOf(verificationKeys);
+        this.parser = Jwts.parser()
+                .keyLocator(this)
+                .build();
+    }
+
+    /**
+     * Builds the key ring from the JWT configuration.
+     *
+     * @param config the JWT configuration properties
+     * @return the key ring
+     * @throws IllegalStateException if no signing key is configured, a key id is missing,
+     *                               a key id is used twice or the signing JWK is unusable
+     */
+    public static JwtKeyRing from(JwtConfig config) {
+        if (config.getKeyId() == null || config.getKeyId().isBlank()) {
+            throw new IllegalStateException("spring.jwt.keyId must not be blank");
+        }
+
+        var keys = new HashMap<String, Key>();
+        var hasSecret = config.getSecret() != null && !config.getSecret().isBlank();
+        Key legacyKey = hasSecret ? deriveKey(config.getSecret()) : null;
+
+        String signingKeyId;
+        Key signingKey;
+        if (config.getSigningJwk() != null) {
+            var jwk = readSigningJwk(config.getSigningJwk());
+            signingKeyId = jwk.getId() != null ? jwk.getId() : config.getKeyId();
+            signingKey = jwk.toKey();
+            keys.put(signingKeyId, jwk.toPublicJwk().toKey());
+        } else if (hasSecret) {
+            signingKeyId = config.getKeyId();
+            signingKey = legacyKey;
+            keys.put(signingKeyId, signingKey);
+        } else {
+            throw new IllegalStateException("spring.jwt.secret or spring.jwt.signingJwk must be configured");
+        }
+
+        addVerificationKeys(config, keys);
+        return new JwtKeyRing(signingKeyId, signingKey, legacyKey, keys);
+    }
+
+    /**
+     * Finds the verification key for a token by its {@code kid} header.
+     *
+     * @param header the token header
+     * @return the key the token must be verified with
+     * @throws UnsupportedJwtException if the token was signed with an unknown key
+     */
+    @Override
+    protected Key locate(JwsHeader header) {
+        var keyId = header.getKeyId();
+        if (keyId == null) {
+            // Token issued before key ids were introduced
+            if (legacyKey == null) {
+                throw new UnsupportedJwtException("JWT has no key id");
+            }
+            return legacyKey;
+        }
+
+        var key = verificationKeys.get(keyId);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown JWT key id: " + keyId);
+        }
+        return key;
+    }
+
+    private static void addVerificationKeys(JwtConfig config, Map<String, Key> keys) {
+        for (var verificationKey : config.getVerificationKeys()) {
+            if (verificationKey.getKeyId() == null || verificationKey.getKeyId().isBlank()) {
+                throw new IllegalStateException("Every spring.jwt.verificationKeys entry needs a keyId");
+            }
+            if (keys.put(verificationKey.getKeyId(), deriveKey(verificationKey.getSecret())) != null) {
+                throw new IllegalStateException("Duplicate JWT key id: " + verificationKey.getKeyId());
+            }
+        }
+    }
+
+    private static PrivateJwk<?, ?, ?> readSigningJwk(Resource resource) {
+        try {
+            var jwk = Jwks.parser().build().parse(read(resource));
+            if (!(jwk instanceof PrivateJwk<?, ?, ?> privateJwk)) {
+                throw new IllegalStateException("spring.jwt.signingJwk must contain a private key: " + resource);
+            }
+            return privateJwk;
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid JWK at " + resource, e);
+        }
+    }
+
+    private static String read(Resource resource) {
+        try (var in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + resource, e);
+        }
+    }
+
+    private static SecretKey deriveKey(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("JWT secrets must not be blank");
+        }
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
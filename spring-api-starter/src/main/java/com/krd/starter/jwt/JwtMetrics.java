@@ -0,0 +1,56 @@
+package com.krd.starter.jwt;
+
+/**
+ * Receives timings from {@link JwtService} and {@link JwtAuthenticationFilter}.
+ * <p>
+ * The default methods do nothing, so the starter works without a metrics library.
+ * When Micrometer is on the classpath, {@link MicrometerJwtMetrics} is registered
+ * automatically and publishes the timings as Micrometer timers.
+ * <p>
+ * Outcomes are always one of a fixed set of values, so tag cardinality stays bounded.
+ *
+ * @see MicrometerJwtMetrics
+ */
+public interface JwtMetrics {
+
+    /**
+     * Metrics that discard every measurement.
+     */
+    JwtMetrics NOOP = new JwtMetrics() {
+    };
+
+    /**
+     * Records the signing of a new token.
+     *
+     * @param nanos the time spent generating the token
+     */
+    default void tokenGenerated(long nanos) {
+    }
+
+    /**
+     * Records a call to {@link JwtService#parseToken(String)}.
+     *
+     * @param valid whether the token was parsed successfully
+     * @param nanos the time spent parsing
+     */
+    default void tokenParsed(boolean valid, long nanos) {
+    }
+
+    /**
+     * Records the validation of an access token.
+     *
+     * @param result the validation result
+     * @param nanos the time spent validating
+     */
+    default void tokenValidated(TokenValidationResult result, long nanos) {
+    }
+
+    /**
+     * Records the work {@link JwtAuthenticationFilter} does for one request.
+     *
+     * @param result the validation result, or null if the request carried no bearer token
+     * @param nanos the time spent in the filter, excluding the rest of the filter chain
+     */
+    default void requestFiltered(TokenValidationResult result, long nanos) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.krd.starter.jwt;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Typed, immutable view of the claims of a verified token.
+ * <p>
+ * Claims are decoded once, when the token is parsed, instead of on every accessor call.
+ * Roles and authorities come from {@link RoleAuthorities}, so tokens with the same roles
+ * share the same immutable collections.
+ * <p>
+ * Both claim profiles are understood. {@link JwtConfig.ClaimProfile#COMPACT COMPACT} tokens
+ * carry roles as {@code r} (comma-separated) or {@code rb} (bitset against the
+ * {@link RoleRegistry}) and the enabled flag as {@code en}; they have no email or name
+ * claims, so those components are null.
+ *
+ * @param userId the user ID from the subject claim
+ * @param email the user's email
+ * @param username the user's username
+ * @param firstName the user's first name
+ * @param lastName the user's last name
+ * @param roleSet the user's roles and the matching authorities
+ * @param enabled whether the user account is enabled
+ * @param expiresAtMillis the token expiration as epoch milliseconds
+ * @param tokenId the unique token id from the {@code jti} claim (null for older tokens)
+ * @param tokenEpoch the user's token epoch when the token was issued (0 if not present)
+ * @see Jwt
+ */
+public record JwtPrincipal(Long userId,
+                           String email,
+                           String username,
+                           String firstName,
+                           String lastName,
+                           RoleAuthorities.RoleSet roleSet,
+                           boolean enabled,
+                           long expiresAtMillis,
+                           String tokenId,
+                           long tokenEpoch) {
+
+    /**
+     * Roles claim of compact tokens (comma-separated role names).
+     */
+    public static final String COMPACT_ROLES = "r";
+
+    /**
+     * Roles claim of compact tokens whose roles are all in the {@link RoleRegistry} (bitset).
+     */
+    public static final String COMPACT_ROLE_BITS = "rb";
+
+    /**
+     * Enabled claim of compact tokens.
+     */
+    public static final String COMPACT_ENABLED = "en";
+
+    /**
+     * Token epoch claim of full tokens, only written when the epoch is not 0.
+     */
+    public static final String TOKEN_EPOCH = "epoch";
+
+    /**
+     * Token epoch claim of compact tokens, only written when the epoch is not 0.
+     */
+    public static final String COMPACT_TOKEN_EPOCH = "ep";
+
+    /**
+     * Decodes the claims of a verified token without a role registry.
+     *
+     * @param claims the verified claims
+     * @return the decoded principal
+     */
+    public static JwtPrincipal from(Claims claims) {
+        return from(claims, RoleRegistry.EMPTY);
+    }
+
+    /**
+     * Decodes the claims of a verified token in either claim profile.
+     *
+     * @param claims the verified claims
+     * @param roleRegistry the registry used to decode role bitsets
+     * @return the decoded principal
+     */
+    public static JwtPrincipal from(Claims claims, RoleRegistry roleRegistry) {
+        var expiration = claims.getExpiration();
+        var enabled = claims.containsKey(COMPACT_ENABLED)
+                ? claims.get(COMPACT_ENABLED, Boolean.class)
+                : claims.get("enabled", Boolean.class);
+        var tokenEpoch = claims.containsKey(COMPACT_TOKEN_EPOCH)
+                ? claims.get(COMPACT_TOKEN_EPOCH)
+                : claims.get(TOKEN_EPOCH);
+        return new JwtPrincipal(
+                Long.valueOf(claims.getSubject()),
+                claims.get("email", String.class),
+                claims.get("username", String.class),
+                claims.get("firstName", String.class),
+                claims.get("lastName", String.class),
+                decodeRoles(claims, roleRegistry),
+                Boolean.TRUE.equals(enabled),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE,
+                claims.getId(),
+                tokenEpoch instanceof Number epoch ? epoch.longValue() : 0
+        );
+    }
+
+    private static RoleAuthorities.RoleSet decodeRoles(Claims claims, RoleRegistry roleRegistry) {
+        if (claims.get(COMPACT_ROLE_BITS) instanceof Number bits) {
+            return roleRegistry.decode(bits.longValue());
+        }
+        if (claims.containsKey(COMPACT_ROLES)) {
+            return RoleAuthorities.fromClaim(claims.get(COMPACT_ROLES, String.class));
+        }
+        return RoleAuthorities.fromClaim(claims.get("roles", String.class));
+    }
+
+    /**
+     * Returns the user's role names.
+     *
+     * @return an immutable set of role names
+     */
+    public Set<String> roles() {
+        return roleSet.roles();
+    }
+
+    /**
+     * Returns the Spring Security authorities for the user's roles.
+     *
+     * @return an immutable, shared list of authorities
+     */
+    public List<GrantedAuthority> authorities() {
+        return roleSet.authorities();
+    }
+
+    /**
+     * Checks if the token has expired.
+     *
+     * @return true if the token has expired, false otherwise
+     */
+    public boolean isExpired() {
+        return expiresAtMillis < System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,107 @@
+package com.krd.starter.jwt;
+
+import com.krd.starter.jwt.TokenValidationResult.Failure;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtMetrics} backed by Micrometer timers.
+ * <p>
+ * Published meters (each timer also counts its events):
+ * <ul>
+ *   <li>{@code krd.jwt.token.generation} - signing new tokens</li>
+ *   <li>{@code krd.jwt.token.parse} - {@code parseToken}, tagged {@code outcome=valid|invalid}</li>
+ *   <li>{@code krd.jwt.token.validation} - access token validation, tagged {@code outcome=valid}
+ *       or the failure reason ({@code malformed}, {@code bad_signature}, {@code expired}, ...)</li>
+ *   <li>{@code krd.jwt.filter} - the authentication filter's own work per request, tagged
+ *       {@code outcome=authenticated}, {@code anonymous} (no bearer token) or the failure reason</li>
+ * </ul>
+ * Every timer is registered up front, one per outcome, so recording never looks up or
+ * creates meters.
+ */
+public class MicrometerJwtMetrics implements JwtMetrics {
+
+    private final Timer generation;
+    private final Timer parseValid;
+    private final Timer parseInvalid;
+    private final Timer validationValid;
+    private final Timer[] validationFailures;
+    private final Timer filterAuthenticated;
+    private final Timer filterAnonymous;
+    private final Timer[] filterFailures;
+
+    public MicrometerJwtMetrics(MeterRegistry registry) {
+        this.generation = Timer.builder("krd.jwt.token.generation")
+                .description("Time spent signing new tokens")
+                .register(registry);
+        this.parseValid = parseTimer(registry, "valid");
+        this.parseInvalid = parseTimer(registry, "invalid");
+        this.validationValid = validationTimer(registry, "valid");
+        this.filterAuthenticated = filterTimer(registry, "authenticated");
+        this.filterAnonymous = filterTimer(registry, "anonymous");
+
+        var failures = Failure.values();
+        this.validationFailures = new Timer[failures.length];
+        this.filterFailures = new Timer[failures.length];
+        for (var failure : failures) {
+            var outcome = failure.name().toLowerCase(Locale.ROOT);
+            validationFailures[failure.ordinal()] = validationTimer(registry, outcome);
+            filterFailures[failure.ordinal()] = filterTimer(registry, outcome);
+        }
+    }
+
+    @Override
+    public void tokenGenerated(long nanos) {
+        generation.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void tokenParsed(boolean valid, long nanos) {
+        (valid ? parseValid : parseInvalid).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void tokenValidated(TokenValidationResult result, long nanos) {
+        var timer = result instanceof Failure failure
+                ? validationFailures[failure.ordinal()]
+                : validationValid;
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void requestFiltered(TokenValidationResult result, long nanos) {
+        Timer timer;
+        if (result == null) {
+            timer = filterAnonymous;
+        } else if (result instanceof Failure failure) {
+            timer = filterFailures[failure.ordinal()];
+        } else {
+            timer = filterAuthenticated;
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer parseTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("krd.jwt.token.parse")
+                .description("Time spent parsing tokens")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Timer validationTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("krd.jwt.token.validation")
+                .description("Time spent validating access tokens")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Timer filterTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("krd.jwt.filter")
+                .description("Time spent authenticating requests in the JWT filter")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
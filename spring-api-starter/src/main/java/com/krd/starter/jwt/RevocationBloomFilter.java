@@ -0,0 +1,135 @@
+package com.krd.starter.jwt;
+
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Memory-resident Bloom filter of revoked token ids, split into buckets by token expiration.
+ * <p>
+ * A revoked token only needs to be remembered until it expires. Each token id is added to
+ * the bucket covering its expiration time, and a whole bucket is dropped once every token
+ * it covers has expired. Memory therefore stays proportional to the revocations of the
+ * last token lifetime, and a lookup only probes the one bucket the token can be in.
+ * <p>
+ * A negative answer is definite. A positive answer means "possibly revoked" and must be
+ * confirmed against the {@link TokenRevocationStore}. All operations are lock-free.
+ *
+ * @see TokenRevocationService
+ */
+public class RevocationBloomFilter {
+
+    private final long bucketMillis;
+    private final int bitCount;
+    private final int hashCount;
+    private final ConcurrentNavigableMap<Long, AtomicLongArray> buckets = new ConcurrentSkipListMap<>();
+
+    /**
+     * Creates a filter sized for the expected revocations per bucket.
+     *
+     * @param bucketMillis the span of token expiration times covered by one bucket
+     * @param expectedInsertions expected revocations per bucket
+     * @param falsePositiveRate target false positive rate at the expected load (e.g. 0.01)
+     */
+    public RevocationBloomFilter(long bucketMillis, long expectedInsertions, double falsePositiveRate) {
+        if (bucketMillis <= 0 || expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter settings");
+        }
+        this.bucketMillis = bucketMillis;
+
+        // Standard Bloom filter sizing: m = -n ln p / (ln 2)^2, k = m/n ln 2
+        double bits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(bits)));
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds a revoked token id.
+     *
+     * @param tokenId the token's {@code jti} claim
+     * @param expiresAtMillis the token expiration as epoch milliseconds
+     */
+    public void add(String tokenId, long expiresAtMillis) {
+        var bits = buckets.computeIfAbsent(bucketOf(expiresAtMillis), b -> new AtomicLongArray((bitCount + 63) / 64));
+
+        long hash = hash(tokenId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * Checks whether a token id may have been revoked.
+     *
+     * @param tokenId the token's {@code jti} claim
+     * @param expiresAtMillis the token expiration as epoch milliseconds
+     * @return false if the token is definitely not revoked, true if it possibly is
+     */
+    public boolean mightContain(String tokenId, long expiresAtMillis) {
+        var bits = buckets.get(bucketOf(expiresAtMillis));
+        if (bits == null) {
+            return false;
+        }
+
+        long hash = hash(tokenId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops every bucket whose tokens have all expired.
+     *
+     * @param nowMillis the current time as epoch milliseconds
+     */
+    public void dropExpired(long nowMillis) {
+        buckets.headMap(bucketOf(nowMillis)).clear();
+    }
+
+    /**
+     * Returns the number of buckets currently held in memory.
+     *
+     * @return the bucket count
+     */
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    private long bucketOf(long expiresAtMillis) {
+        return Math.floorDiv(expiresAtMillis, bucketMillis);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the token id, finished with the MurmurHash3 mixer.
+     */
+    private static long hash(String tokenId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < tokenId.length(); i++) {
+            hash ^= tokenId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,113 @@
+package com.krd.starter.jwt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Ordered list of known roles, used to encode a user's roles as a bitset in compact tokens.
+ * <p>
+ * The position of a role in the registry is its bit in the {@code rb} claim, so the
+ * registry must only ever be appended to. Reordering or removing roles changes the
+ * meaning of tokens that are still in circulation.
+ * <pre>
+ * spring:
+ *   jwt:
+ *     claim-profile: compact
+ *     compact:
+ *       roles: [USER, ADMIN, SUPPORT]   # USER = bit 0, ADMIN = bit 1, ...
+ * </pre>
+ * Decoded bitsets are cached, so tokens with the same roles share one {@link RoleAuthorities.RoleSet}.
+ *
+ * @see JwtConfig.Compact
+ */
+public final class RoleRegistry {
+
+    /**
+     * Registry without roles: every token carries its roles as a string.
+     */
+    public static final RoleRegistry EMPTY = new RoleRegistry(List.of());
+
+    /**
+     * Bit 63 is left unused so that encoded bitsets are never negative.
+     */
+    private static final int MAX_ROLES = 63;
+
+    private static final int MAX_CACHED_BITSETS = 1024;
+
+    private final List<String> roles;
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final ConcurrentMap<Long, RoleAuthorities.RoleSet> decoded = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a registry from an ordered list of role names.
+     *
+     * @param roles the role names; the index of each role is its bit position
+     * @throws IllegalStateException if there are more than 63 roles, or a role is blank or repeated
+     */
+    public RoleRegistry(List<String> roles) {
+        if (roles.size() > MAX_ROLES) {
+            throw new IllegalStateException("A role registry supports at most " + MAX_ROLES + " roles");
+        }
+        for (int i = 0; i < roles.size(); i++) {
+            var role = roles.get(i);
+            if (role == null || role.isBlank()) {
+                throw new IllegalStateException("Role registry entries must not be blank");
+            }
+            if (positions.put(role, i) != null) {
+                throw new IllegalStateException("Duplicate role in role registry: " + role);
+            }
+        }
+        this.roles = List.copyOf(roles);
+    }
+
+    /**
+     * Encodes roles as a bitset.
+     *
+     * @param roles the role names
+     * @return the bitset, or -1 if a role is not in the registry
+     */
+    public long encode(Collection<String> roles) {
+        long bits = 0;
+        for (var role : roles) {
+            var position = positions.get(role);
+            if (position == null) {
+                return -1;
+            }
+            bits |= 1L << position;
+        }
+        return bits;
+    }
+
+    /**
+     * Decodes a bitset into the canonical role set.
+     * <p>
+     * Bits without a registered role (e.g. from a newer registry) are ignored.
+     *
+     * @param bits the bitset from the {@code rb} claim
+     * @return the shared, immutable role set
+     */
+    public RoleAuthorities.RoleSet decode(long bits) {
+        var roleSet = decoded.get(bits);
+        if (roleSet != null) {
+            return roleSet;
+        }
+
+        var names = new ArrayList<String>(Long.bitCount(bits));
+        for (int i = 0; i < roles.size(); i++) {
+            if ((bits & (1L << i)) != 0) {
+                names.add(roles.get(i));
+            }
+        }
+        roleSet = RoleAuthorities.fromRoles(names);
+
+        if (decoded.size() < MAX_CACHED_BITSETS) {
+            decoded.putIfAbsent(bits, roleSet);
+        }
+        return roleSet;
+    }
+}
@@ -0,0 +1,26 @@
+package com.krd.starter.jwt;
+
+/**
+ * Checks whether an access token was issued before its user's tokens were invalidated.
+ * <p>
+ * Every user has a token epoch ({@link JwtUser#getTokenEpoch()}) that is embedded in the
+ * tokens issued to them. Advancing the epoch - after a password change, a removed role
+ * or a deleted account - makes every token carrying an older epoch stale.
+ * <p>
+ * {@link JwtAuthenticationFilter} consults it for every authenticated request, including
+ * requests served from the {@link VerifiedTokenCache}, so implementations must answer
+ * from memory.
+ *
+ * @see JwtAuthenticationFilter
+ */
+public interface TokenEpochChecker {
+
+    /**
+     * Checks whether a token is older than its user's current token epoch.
+     *
+     * @param userId the user ID from the subject claim
+     * @param tokenEpoch the token epoch embedded in the token (0 if none)
+     * @return true if the token must no longer be accepted
+     */
+    boolean isStale(long userId, long tokenEpoch);
+}
@@ -0,0 +1,187 @@
+package com.krd.starter.jwt;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Compact map of user id to token epoch, held in a single open-addressing {@code long[]}.
+ * <p>
+ * Only users whose tokens were invalidated have an entry; every other user has epoch 0.
+ * Keys and values are stored inline as primitive pairs, so a lookup allocates nothing and
+ * touches one array. Lookups are optimistic reads of a {@link StampedLock} and only fall
+ * back to a read lock if they race with a write.
+ *
+ * @see TokenEpochChecker
+ */
+public class TokenEpochMap {
+
+    private static final int MINIMUM_CAPACITY = 64;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Key at {@code 2 * slot}, value at {@code 2 * slot + 1}. A key of 0 marks an empty slot.
+     */
+    private long[] table = new long[2 * MINIMUM_CAPACITY];
+    private int size;
+
+    /**
+     * Returns the token epoch of a user.
+     *
+     * @param userId the user ID
+     * @return the user's token epoch, or 0 if the user has none
+     */
+    public long get(long userId) {
+        if (userId <= 0) {
+            return 0;
+        }
+        long stamp = lock.tryOptimisticRead();
+        long epoch = find(table, userId);
+        if (lock.validate(stamp)) {
+            return epoch;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return find(table, userId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Moves a user's token epoch forward. Older epochs are ignored, so updates may arrive
+     * in any order.
+     *
+     * @param userId the user ID
+     * @param epoch the new token epoch
+     */
+    public void advance(long userId, long epoch) {
+        if (userId <= 0 || epoch <= 0) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (2 * (size + 1) > capacity()) {
+                table = rehash(table, 2 * capacity(), Long.MIN_VALUE);
+            }
+            int slot = slot(table, userId);
+            if (table[2 * slot] == 0) {
+                table[2 * slot] = userId;
+                size++;
+            }
+            table[2 * slot + 1] = Math.max(table[2 * slot + 1], epoch);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Drops every entry with an epoch before {@code cutoff}.
+     * <p>
+     * Once every token issued before an epoch has expired, the epoch rejects nothing and
+     * its entry can be dropped.
+     *
+     * @param cutoff the oldest epoch to keep
+     * @return the number of dropped entries
+     */
+    public int removeOlderThan(long cutoff) {
+        long stamp = lock.writeLock();
+        try {
+            int before = size;
+            table = rehash(table, capacity(), cutoff);
+            return before - size;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of users with a token epoch.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of slots. Not synchronized: for writers holding the lock and tests.
+     */
+    int capacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * Copies the entries with an epoch of at least {@code cutoff} into a new table,
+     * shrinking it while it is mostly empty. Must hold the write lock.
+     */
+    private long[] rehash(long[] old, int capacity, long cutoff) {
+        int kept = 0;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0 && old[i + 1] >= cutoff) {
+                kept++;
+            }
+        }
+        while (capacity > MINIMUM_CAPACITY && 8 * kept < capacity) {
+            capacity /= 2;
+        }
+
+        var rehashed = new long[2 * capacity];
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0 && old[i + 1] >= cutoff) {
+                int slot = slot(rehashed, old[i]);
+                rehashed[2 * slot] = old[i];
+                rehashed[2 * slot + 1] = old[i + 1];
+            }
+        }
+        size = kept;
+        return rehashed;
+    }
+
+    /**
+     * Looks up a key. May run against a table that is being replaced, so it must not
+     * fail on inconsistent contents - the caller validates the result.
+     */
+    private static long find(long[] table, long userId) {
+        int mask = table.length / 2 - 1;
+        int slot = mix(userId) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long key = table[2 * slot];
+            if (key == userId) {
+                return table[2 * slot + 1];
+            }
+            if (key == 0) {
+                return 0;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the slot holding a key, or the empty slot where it belongs.
+     */
+    private static int slot(long[] table, long userId) {
+        int mask = table.length / 2 - 1;
+        int slot = mix(userId) & mask;
+        while (table[2 * slot] != 0 && table[2 * slot] != userId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * MurmurHash3 finalizer, so sequential ids spread over the table.
+     */
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,22 @@
+package com.krd.starter.jwt;
+
+/**
+ * Checks whether an access token has been revoked before its expiration.
+ * <p>
+ * {@link JwtAuthenticationFilter} consults it for every authenticated request, including
+ * requests served from the {@link VerifiedTokenCache}, so implementations must answer
+ * the common "not revoked" case from memory.
+ *
+ * @see JwtAuthenticationFilter
+ */
+public interface TokenRevocationChecker {
+
+    /**
+     * Checks whether a token has been revoked.
+     *
+     * @param tokenId the token's {@code jti} claim
+     * @param expiresAtMillis the token expiration as epoch milliseconds
+     * @return true if the token must no longer be accepted
+     */
+    boolean isRevoked(String tokenId, long expiresAtMillis);
+}
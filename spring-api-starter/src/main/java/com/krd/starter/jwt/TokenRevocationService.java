@@ -0,0 +1,115 @@
+package com.krd.starter.jwt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Revokes tokens by their {@code jti} claim before they expire.
+ * <p>
+ * Every authenticated request is checked, so the common "not revoked" case is answered
+ * from a {@link RevocationBloomFilter} in memory without any database I/O. Only possible
+ * hits are confirmed against the {@link TokenRevocationStore}.
+ * <p>
+ * The filter is loaded from the store at startup and then kept current by polling the
+ * store for revocations made by other instances. A token revoked on another instance
+ * is therefore rejected here within one poll interval. Expired buckets and expired
+ * revocations are removed on every poll.
+ * <p>
+ * Enable it in your application.yaml:
+ * <pre>
+ * spring:
+ *   jwt:
+ *     revocation:
+ *       enabled: true
+ *       poll-interval: 10s
+ * </pre>
+ *
+ * @see JwtAuthenticationFilter
+ * @see BaseAuthService#revokeTokens(String, String)
+ */
+@Slf4j
+public class TokenRevocationService implements TokenRevocationChecker {
+
+    /**
+     * Overlap between polls, so revocations are not missed due to clock skew between instances.
+     */
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+
+    private final TokenRevocationStore store;
+    private final RevocationBloomFilter bloomFilter;
+    private volatile Instant lastPoll;
+
+    public TokenRevocationService(TokenRevocationStore store, JwtConfig.Revocation config) {
+        this.store = store;
+        this.bloomFilter = new RevocationBloomFilter(
+                config.getBucketWidth().toMillis(),
+                config.getExpectedRevocationsPerBucket(),
+                config.getFalsePositiveRate()
+        );
+
+        // Load every revocation that still matters
+        var now = Instant.now();
+        var revoked = store.findRevokedSince(Instant.EPOCH, now);
+        revoked.forEach(token -> bloomFilter.add(token.tokenId(), token.expiresAt().toEpochMilli()));
+        this.lastPoll = now;
+        log.info("Loaded {} revoked token(s) into the revocation filter", revoked.size());
+    }
+
+    /**
+     * Revokes a token until it expires.
+     * <p>
+     * Tokens without a {@code jti} claim (issued before token ids were introduced) cannot
+     * be revoked and are ignored.
+     *
+     * @param jwt the verified token to revoke
+     */
+    public void revoke(Jwt jwt) {
+        var tokenId = jwt.getTokenId();
+        if (tokenId == null) {
+            return;
+        }
+
+        var expiresAtMillis = jwt.getPrincipal().expiresAtMillis();
+        store.revoke(tokenId, Instant.ofEpochMilli(expiresAtMillis));
+        bloomFilter.add(tokenId, expiresAtMillis);
+    }
+
+    /**
+     * Checks whether a token has been revoked.
+     * <p>
+     * Answered from memory unless the Bloom filter reports a possible hit.
+     *
+     * @param tokenId the token's {@code jti} claim
+     * @param expiresAtMillis the token expiration as epoch milliseconds
+     * @return true if the token has been revoked
+     */
+    @Override
+    public boolean isRevoked(String tokenId, long expiresAtMillis) {
+        if (!bloomFilter.mightContain(tokenId, expiresAtMillis)) {
+            return false;
+        }
+        return store.isRevoked(tokenId);
+    }
+
+    /**
+     * Picks up revocations made by other instances and drops expired ones.
+     * <p>
+     * Runs every {@code spring.jwt.revocation.poll-interval} (default: 10 seconds).
+     */
+    @Scheduled(fixedDelayString = "${spring.jwt.revocation.poll-interval:10s}")
+    public void poll() {
+        var now = Instant.now();
+        var revoked = store.findRevokedSince(lastPoll.minus(POLL_OVERLAP), now);
+        revoked.forEach(token -> bloomFilter.add(token.tokenId(), token.expiresAt().toEpochMilli()));
+        lastPoll = now;
+
+        bloomFilter.dropExpired(now.toEpochMilli());
+        int deleted = store.deleteExpired(now);
+        if (deleted > 0) {
+            log.debug("Deleted {} expired token revocation(s)", deleted);
+        }
+    }
+}
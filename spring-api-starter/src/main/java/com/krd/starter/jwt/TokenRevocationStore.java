@@ -0,0 +1,58 @@
+package com.krd.starter.jwt;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Persistent store of revoked token ids, shared by every instance of the application.
+ * <p>
+ * {@link TokenRevocationService} keeps an in-memory Bloom filter in front of the store,
+ * so the store is only queried to confirm possible hits and to pick up revocations made
+ * by other instances.
+ *
+ * @see JdbcTokenRevocationStore
+ */
+public interface TokenRevocationStore {
+
+    /**
+     * Records a revoked token. Revoking the same token twice has no further effect.
+     *
+     * @param tokenId the token's {@code jti} claim
+     * @param expiresAt the token expiration
+     */
+    void revoke(String tokenId, Instant expiresAt);
+
+    /**
+     * Checks whether a token has been revoked.
+     *
+     * @param tokenId the token's {@code jti} claim
+     * @return true if the token is recorded as revoked
+     */
+    boolean isRevoked(String tokenId);
+
+    /**
+     * Finds tokens revoked since a point in time that have not expired yet.
+     *
+     * @param revokedSince the earliest revocation time to include
+     * @param now the current time; expired tokens are left out
+     * @return the revoked tokens
+     */
+    List<RevokedToken> findRevokedSince(Instant revokedSince, Instant now);
+
+    /**
+     * Deletes revocations of tokens that have expired.
+     *
+     * @param now the current time
+     * @return the number of deleted revocations
+     */
+    int deleteExpired(Instant now);
+
+    /**
+     * A revoked token.
+     *
+     * @param tokenId the token's {@code jti} claim
+     * @param expiresAt the token expiration
+     */
+    record RevokedToken(String tokenId, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.krd.starter.jwt;
+
+import com.krd.starter.jwt.VerifiedTokenCache.AuthenticationSnapshot;
+
+/**
+ * Outcome of validating an access token, returned instead of throwing.
+ * <p>
+ * A token is either {@link Valid} or rejected for one {@link Failure} reason. Failures are
+ * shared constants: rejecting a token allocates nothing and never builds a stack trace,
+ * which keeps floods of garbage or forged tokens cheap.
+ * <pre>
+ * {@code
+ * switch (jwtService.validateAccessToken(token)) {
+ *     case TokenValidationResult.Valid valid -> authenticate(valid.snapshot());
+ *     case TokenValidationResult.Failure failure -> reject(failure);
+ * }
+ * }
+ * </pre>
+ *
+ * @see JwtService#validateAccessToken(String)
+ * @see JwtAuthenticationFilter
+ */
+public sealed interface TokenValidationResult
+        permits TokenValidationResult.Valid, TokenValidationResult.Failure {
+
+    /**
+     * The token is valid.
+     *
+     * @param snapshot the authentication derived from the token
+     */
+    record Valid(AuthenticationSnapshot snapshot) implements TokenValidationResult {
+    }
+
+    /**
+     * Why a token was rejected.
+     */
+    enum Failure implements TokenValidationResult {
+
+        /**
+         * Not a well-formed signed token, or signed in a way that is not supported.
+         */
+        MALFORMED,
+
+        /**
+         * The signature does not match any verification key.
+         */
+        BAD_SIGNATURE,
+
+        /**
+         * The token has expired.
+         */
+        EXPIRED,
+
+        /**
+         * The token belongs to a disabled user.
+         */
+        DISABLED,
+
+        /**
+         * The token has been revoked. Only reported by {@link JwtAuthenticationFilter}.
+         */
+        REVOKED,
+
+        /**
+         * The token is older than its user's token epoch. Only reported by
+         * {@link JwtAuthenticationFilter}.
+         */
+        STALE
+    }
+}
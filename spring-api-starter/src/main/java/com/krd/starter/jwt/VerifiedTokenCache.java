@@ -0,0 +1,170 @@
+package com.krd.starter.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of access tokens that have already been verified.
+ * <p>
+ * Clients send the same access token on every request until it expires. Caching the
+ * verified result lets {@link JwtAuthenticationFilter} skip signature verification and
+ * claims parsing for repeated tokens.
+ * <ul>
+ *   <li>Entries are keyed by the SHA-256 digest of the compact token, so raw bearer
+ *       tokens are never retained in memory</li>
+ *   <li>Each entry expires at the token's own {@code exp} claim</li>
+ *   <li>The cache is bounded by size; least valuable entries are evicted first</li>
+ *   <li>Hit and miss counts are available from {@link #stats()}</li>
+ * </ul>
+ * <p>
+ * Enable it in your application.yaml:
+ * <pre>
+ * spring:
+ *   jwt:
+ *     token-cache:
+ *       enabled: true
+ *       maximum-size: 10000
+ * </pre>
+ *
+ * @see JwtAuthenticationFilter
+ */
+public class VerifiedTokenCache {
+
+    private final Cache<TokenDigest, AuthenticationSnapshot> cache;
+
+    /**
+     * Creates a cache holding at most {@code maximumSize} verified tokens.
+     *
+     * @param maximumSize maximum number of entries
+     */
+    public VerifiedTokenCache(long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAtTokenExpiration())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached authentication for a token digest.
+     *
+     * @param digest the digest of the compact token
+     * @return the cached snapshot, or null if the token is not cached or has expired
+     */
+    public AuthenticationSnapshot get(TokenDigest digest) {
+        return cache.getIfPresent(digest);
+    }
+
+    /**
+     * Caches the authentication for a verified token.
+     *
+     * @param digest the digest of the compact token
+     * @param snapshot the authentication derived from the token
+     */
+    public void put(TokenDigest digest, AuthenticationSnapshot snapshot) {
+        cache.put(digest, snapshot);
+    }
+
+    /**
+     * Removes all cached tokens.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns hit, miss and eviction statistics.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Returns the approximate number of cached tokens.
+     *
+     * @return the estimated cache size
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Immutable result of verifying an access token.
+     *
+     * @param userId the user ID from the subject claim
+     * @param authorities the granted authorities derived from the roles claim
+     * @param expiresAtMillis the token expiration as epoch milliseconds
+     * @param tokenId the token's {@code jti} claim, used for revocation checks (may be null)
+     * @param tokenEpoch the user's token epoch when the token was issued, used for epoch checks
+     */
+    public record AuthenticationSnapshot(Long userId,
+                                         List<GrantedAuthority> authorities,
+                                         long expiresAtMillis,
+                                         String tokenId,
+                                         long tokenEpoch) {
+
+        public AuthenticationSnapshot {
+            authorities = List.copyOf(authorities);
+        }
+    }
+
+    /**
+     * SHA-256 digest of a compact token, held as four longs for cheap hashing and equality.
+     */
+    public record TokenDigest(long h0, long h1, long h2, long h3) {
+
+        /**
+         * Computes the digest of a compact token.
+         *
+         * @param token the compact token string
+         * @return the token digest
+         */
+        public static TokenDigest of(String token) {
+            try {
+                var hash = MessageDigest.getInstance("SHA-256")
+                        .digest(token.getBytes(StandardCharsets.US_ASCII));
+                var buffer = ByteBuffer.wrap(hash);
+                return new TokenDigest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                // Every Java platform is required to support SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Expires each entry at the expiration time of its token.
+     */
+    private static final class ExpireAtTokenExpiration implements Expiry<TokenDigest, AuthenticationSnapshot> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, AuthenticationSnapshot value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, AuthenticationSnapshot value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, AuthenticationSnapshot value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
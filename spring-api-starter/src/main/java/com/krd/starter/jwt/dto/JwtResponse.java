@@ -1,5 +1,6 @@
 package com.krd.starter.jwt.dto;
 
+import com.krd.starter.jwt.Jwt;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -24,4 +25,13 @@ public class JwtResponse {
      * The JWT token as a string.
      */
     private String token;
+
+    /**
+     * Creates a response for the given token, reusing its stored compact form.
+     *
+     * @param jwt the token to return
+     */
+    public JwtResponse(Jwt jwt) {
+        this.token = jwt.toString();
+    }
 }
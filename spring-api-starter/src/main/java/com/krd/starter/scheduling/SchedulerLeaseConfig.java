@@ -0,0 +1,35 @@
+package com.krd.starter.scheduling;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for running scheduled jobs on a single instance.
+ * <p>
+ * Configure these properties in your application.yaml (requires the
+ * {@code scheduler_leases} table):
+ * <pre>
+ * app:
+ *   scheduling:
+ *     leases:
+ *       enabled: true
+ * </pre>
+ *
+ * @see SingleNodeJob
+ */
+@Data
+@ConfigurationProperties(prefix = "app.scheduling.leases")
+public class SchedulerLeaseConfig {
+
+    /**
+     * Whether methods annotated with {@link SingleNodeJob} run on one instance at a time.
+     * Default: false (every instance runs them)
+     */
+    private boolean enabled = false;
+
+    /**
+     * Identifies this instance in the {@code holder} column, for troubleshooting.
+     * Default: the host name
+     */
+    private String instanceId;
+}
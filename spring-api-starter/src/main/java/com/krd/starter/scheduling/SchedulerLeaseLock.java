@@ -0,0 +1,105 @@
+package com.krd.starter.scheduling;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Named leases in the {@code scheduler_leases} table, used to run a job on one instance at
+ * a time.
+ * <p>
+ * A lease is taken with a single conditional {@code UPDATE} that only succeeds if the
+ * current lease has expired, or with an {@code INSERT} the first time a name is used. The
+ * database decides which instance wins; no lock is held between statements. Each lease
+ * carries a unique holder id, so only its holder can renew or release it.
+ * <p>
+ * Lease times are compared using the instances' clocks, which must be roughly in sync
+ * (well within {@link SingleNodeJob#minLeaseTime()}).
+ *
+ * @see SingleNodeJob
+ */
+public class SchedulerLeaseLock {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId;
+
+    /**
+     * Creates the lease lock.
+     *
+     * @param jdbcTemplate the JDBC template
+     * @param instanceId identifies this instance in holder ids
+     */
+    public SchedulerLeaseLock(JdbcTemplate jdbcTemplate, String instanceId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * Takes a lease if no other holder has an unexpired one.
+     *
+     * @param name the lease name
+     * @param leaseTime how long the lease is held without renewal
+     * @return the lease, or null if another holder has it
+     */
+    public Lease tryAcquire(String name, Duration leaseTime) {
+        var now = Instant.now();
+        var lease = new Lease(name, instanceId + "/" + UUID.randomUUID(), now);
+        var until = Timestamp.from(now.plus(leaseTime));
+
+        int updated = jdbcTemplate.update(
+                "UPDATE scheduler_leases SET holder = ?, lease_until = ?, acquired_at = ? WHERE name = ? AND lease_until <= ?",
+                lease.holder(), until, Timestamp.from(now), name, Timestamp.from(now));
+        if (updated == 1) {
+            return lease;
+        }
+
+        try {
+            jdbcTemplate.update("INSERT INTO scheduler_leases (name, holder, lease_until, acquired_at) VALUES (?, ?, ?, ?)",
+                    name, lease.holder(), until, Timestamp.from(now));
+            return lease;
+        } catch (DuplicateKeyException e) {
+            // Held by someone else
+            return null;
+        }
+    }
+
+    /**
+     * Extends a lease that is still held.
+     *
+     * @param lease the lease
+     * @param leaseTime how long the lease is held from now
+     * @return false if the lease was lost (it expired and was taken by another holder)
+     */
+    public boolean renew(Lease lease, Duration leaseTime) {
+        int updated = jdbcTemplate.update("UPDATE scheduler_leases SET lease_until = ? WHERE name = ? AND holder = ?",
+                Timestamp.from(Instant.now().plus(leaseTime)), lease.name(), lease.holder());
+        return updated == 1;
+    }
+
+    /**
+     * Releases a lease, keeping it until {@code minLeaseTime} after it was acquired.
+     *
+     * @param lease the lease
+     * @param minLeaseTime minimum time the lease is held
+     */
+    public void release(Lease lease, Duration minLeaseTime) {
+        var keepUntil = lease.acquiredAt().plus(minLeaseTime);
+        var now = Instant.now();
+        jdbcTemplate.update("UPDATE scheduler_leases SET lease_until = ? WHERE name = ? AND holder = ?",
+                Timestamp.from(keepUntil.isAfter(now) ? keepUntil : now), lease.name(), lease.holder());
+    }
+
+    /**
+     * A lease held by this instance.
+     *
+     * @param name the lease name
+     * @param holder the unique holder id of this lease
+     * @param acquiredAt when the lease was taken
+     */
+    public record Lease(String name, String holder, Instant acquiredAt) {
+    }
+}
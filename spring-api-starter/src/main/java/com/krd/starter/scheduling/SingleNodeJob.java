@@ -0,0 +1,60 @@
+package com.krd.starter.scheduling;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a scheduled method on one instance of the cluster at a time.
+ * <p>
+ * Before the method runs, a lease named {@link #value()} is taken in the
+ * {@code scheduler_leases} table. Instances that cannot take it skip the run. The lease is
+ * renewed while the method runs and released when it returns. If a renewal finds that another
+ * instance took the lease over (e.g. after a long pause of this one), the thread running the
+ * method is interrupted; long jobs should stop when
+ * {@code Thread.currentThread().isInterrupted()} is set, for example between batches.
+ * <pre>
+ * {@code
+ * @Scheduled(cron = "0 0 3 * * *")
+ * @SingleNodeJob("invoice-reminders")
+ * public void sendInvoiceReminders() {
+ *     ...
+ * }
+ * }
+ * </pre>
+ * Only applies when {@code app.scheduling.leases.enabled=true}; otherwise every instance
+ * runs the method, as without the annotation.
+ *
+ * @see SchedulerLeaseLock
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SingleNodeJob {
+
+    /**
+     * Name of the lease, unique per job.
+     *
+     * @return the lease name
+     */
+    String value();
+
+    /**
+     * How long the lease is held without renewal, as an ISO-8601 duration. If the instance
+     * dies, another one can run the job after this time. Renewed every third of it.
+     *
+     * @return the lease time
+     */
+    String leaseTime() default "PT10M";
+
+    /**
+     * Minimum time the lease is held, even if the job finishes earlier, as an ISO-8601
+     * duration. Keeps instances whose clocks are slightly behind from running the job again
+     * right after it finished.
+     *
+     * @return the minimum lease time
+     */
+    String minLeaseTime() default "PT30S";
+}
@@ -0,0 +1,140 @@
+package com.krd.starter.scheduling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs methods annotated with {@link SingleNodeJob} only while holding their lease.
+ * <p>
+ * Instances that cannot take the lease skip the call (and return null). While the method
+ * runs, the lease is renewed every third of its lease time on a daemon thread, so long runs
+ * keep it. If a renewal finds the lease taken over, the thread running the method is
+ * interrupted so that the job stops instead of running next to the new holder. The
+ * interrupt is cleared again when the method returns, so it does not leak into the
+ * scheduler's thread.
+ *
+ * @see SchedulerLeaseLock
+ */
+@Slf4j
+public class SingleNodeJobInterceptor implements MethodInterceptor, DisposableBean {
+
+    private final ObjectProvider<SchedulerLeaseLock> leaseLock;
+    private final ScheduledExecutorService renewals = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "scheduler-lease-renewal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates the interceptor.
+     *
+     * @param leaseLock the lease lock, resolved on first use
+     */
+    public SingleNodeJobInterceptor(ObjectProvider<SchedulerLeaseLock> leaseLock) {
+        this.leaseLock = leaseLock;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        var targetClass = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : null;
+        var method = AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
+        var job = AnnotatedElementUtils.findMergedAnnotation(method, SingleNodeJob.class);
+        if (job == null) {
+            return invocation.proceed();
+        }
+
+        var leaseTime = Duration.parse(job.leaseTime());
+        var leases = leaseLock.getObject();
+        var lease = leases.tryAcquire(job.value(), leaseTime);
+        if (lease == null) {
+            log.debug("Skipping job '{}': it is running on another instance", job.value());
+            return null;
+        }
+
+        var run = new Run(Thread.currentThread());
+        long renewEvery = Math.max(1, leaseTime.toMillis() / 3);
+        var renewal = renewals.scheduleAtFixedRate(() -> {
+            try {
+                if (!run.isLeaseLost() && !leases.renew(lease, leaseTime) && run.loseLease()) {
+                    log.warn("Lost the lease of job '{}' while it was running, interrupting it", job.value());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to renew the lease of job '{}': {}", job.value(), e.getMessage());
+            }
+        }, renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+
+        try {
+            return invocation.proceed();
+        } finally {
+            renewal.cancel(false);
+            if (run.finish()) {
+                // Clears the interrupt of the lost lease; the lease is no longer ours to release
+                Thread.interrupted();
+            } else {
+                try {
+                    leases.release(lease, Duration.parse(job.minLeaseTime()));
+                } catch (RuntimeException e) {
+                    // The lease expires on its own
+                    log.warn("Failed to release the lease of job '{}': {}", job.value(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        renewals.shutdownNow();
+    }
+
+    /**
+     * A running job, interrupted at most once and only while it runs.
+     */
+    private static class Run {
+
+        private final Thread thread;
+        private boolean finished;
+        private boolean leaseLost;
+
+        Run(Thread thread) {
+            this.thread = thread;
+        }
+
+        synchronized boolean isLeaseLost() {
+            return leaseLost;
+        }
+
+        /**
+         * Interrupts the job if it is still running.
+         *
+         * @return true if the job was interrupted
+         */
+        synchronized boolean loseLease() {
+            if (finished) {
+                return false;
+            }
+            leaseLost = true;
+            thread.interrupt();
+            return true;
+        }
+
+        /**
+         * Marks the job as finished, after which it is no longer interrupted.
+         *
+         * @return true if the job lost its lease
+         */
+        synchronized boolean finish() {
+            finished = true;
+            return leaseLost;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.krd.starter.user;
+
+import com.krd.starter.jwt.RoleAuthorities;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+/**
+ * {@link UserDetails} view of a loaded user entity.
+ * <p>
+ * Returned by {@link RepositoryUserDetailsService} and kept as the principal of the
+ * successful login {@code Authentication}, so {@code BaseAuthService} can issue tokens
+ * for the entity without loading it again.
+ * <p>
+ * The account always reports itself as enabled: disabled users are rejected when tokens
+ * are issued, after their password was verified, so callers without the password
+ * cannot tell disabled accounts apart.
+ *
+ * @param <T> the user entity type
+ */
+public class AuthenticatedUser<T extends BaseUser> implements UserDetails {
+
+    private final T user;
+
+    public AuthenticatedUser(T user) {
+        this.user = user;
+    }
+
+    /**
+     * Returns the user entity this principal was loaded from.
+     *
+     * @return the user entity
+     */
+    public T getUser() {
+        return user;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return RoleAuthorities.fromRoles(user.getRoles()).authorities();
+    }
+
+    @Override
+    public String getPassword() {
+        return user.getPassword();
+    }
+
+    @Override
+    public String getUsername() {
+        return user.getEmail();
+    }
+}
@@ -0,0 +1,80 @@
+package com.krd.starter.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt cost factor (log2 rounds) that fits a target hashing latency on the
+ * current hardware.
+ * <p>
+ * Each cost step doubles the hashing time. The calibrator measures a few hashes at the
+ * minimum cost, extrapolates to the highest cost whose estimated time stays within the
+ * target, and confirms the estimate with one hash at that cost, stepping down if it is
+ * far off. The result is never below the minimum, so calibration can make hashing more
+ * expensive on fast hardware but never weaker than configured.
+ *
+ * @see UserManagementConfig.PasswordHashing
+ */
+@Slf4j
+public final class BCryptCostCalibrator {
+
+    /**
+     * Hashes timed at the minimum cost; the median is used.
+     */
+    private static final int SAMPLES = 3;
+
+    /**
+     * How much slower than the target the confirming hash may be before stepping down.
+     */
+    private static final double TOLERANCE = 1.25;
+
+    private static final String SAMPLE_PASSWORD = "calibration-Passw0rd!";
+
+    private BCryptCostCalibrator() {
+    }
+
+    /**
+     * Calibrates the cost factor.
+     *
+     * @param minStrength the lowest acceptable cost (4-31)
+     * @param maxStrength the highest cost to consider (4-31)
+     * @param targetLatency the target time to hash one password
+     * @return the chosen cost
+     */
+    public static int calibrate(int minStrength, int maxStrength, Duration targetLatency) {
+        if (maxStrength <= minStrength) {
+            return minStrength;
+        }
+        long targetNanos = targetLatency.toNanos();
+
+        var samples = new long[SAMPLES];
+        var encoder = new BCryptPasswordEncoder(minStrength);
+        encoder.encode(SAMPLE_PASSWORD); // Warm up
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = time(encoder);
+        }
+        Arrays.sort(samples);
+        long baseNanos = Math.max(1, samples[SAMPLES / 2]);
+
+        int strength = minStrength;
+        while (strength < maxStrength && baseNanos << (strength + 1 - minStrength) <= targetNanos) {
+            strength++;
+        }
+        while (strength > minStrength && time(new BCryptPasswordEncoder(strength)) > targetNanos * TOLERANCE) {
+            strength--;
+        }
+
+        log.info("BCrypt cost calibrated to {} (cost {} takes ~{} ms, target {} ms)", strength, minStrength,
+                baseNanos / 1_000_000, targetLatency.toMillis());
+        return strength;
+    }
+
+    private static long time(BCryptPasswordEncoder encoder) {
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        return System.nanoTime() - start;
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Set;
  *   <li>roles - Set of role strings for authorization</li>
  *   <li>enabled - Account status (disabled accounts cannot authenticate)</li>
  *   <li>deletedAt - Soft delete timestamp</li>
+ *   <li>tokenEpoch - Invalidates tokens issued before it</li>
  * </ul>
  * <p>
  * <strong>Usage:</strong>
@@ -111,6 +112,16 @@ public abstract class BaseUser implements JwtUser {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
+    /**
+     * Token epoch (epoch milliseconds of the last token invalidation).
+     * <p>
+     * Tokens issued with an older epoch are rejected. Advanced by
+     * {@link BaseUserService} on password changes, role removals and deletion.
+     */
+    @Column(name = "token_epoch", nullable = false)
+    @Builder.Default
+    private long tokenEpoch = 0;
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + "(" +
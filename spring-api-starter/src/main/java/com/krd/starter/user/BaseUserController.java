@@ -2,23 +2,49 @@ package com.krd.starter.user;
 
 import com.krd.starter.user.dto.AddRoleRequest;
 import com.krd.starter.user.dto.BaseUserDto;
+import com.krd.starter.user.dto.BulkUserJob;
+import com.krd.starter.user.dto.BulkUserOperationRequest;
 import com.krd.starter.user.dto.ChangePasswordRequest;
 import com.krd.starter.user.dto.RegisterUserRequest;
 import com.krd.starter.user.dto.RemoveRoleRequest;
 import com.krd.starter.user.dto.UpdateUserRequest;
+import com.krd.starter.user.dto.UserImportSummary;
+import com.krd.starter.user.dto.UserPage;
+import com.krd.starter.user.dto.UserPageRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Abstract base controller for user management endpoints.
  * <p>
  * Provides complete REST API for user operations out of the box:
- * - GET    /users              - List all users (ADMIN only)
+ * - GET    /users              - List users one page at a time (ADMIN only)
+ * - GET    /users/export       - Stream all users as NDJSON (ADMIN only)
+ * - POST   /users/import       - Import users from CSV or NDJSON (ADMIN only)
+ * - POST   /users/bulk         - Start a bulk operation (ADMIN only)
+ * - GET    /users/bulk/{jobId} - Get the progress of a bulk operation (ADMIN only)
  * - GET    /users/{id}         - Get user by ID
  * - POST   /users              - Register new user
  * - PUT    /users/{id}         - Update user
@@ -42,6 +68,9 @@ import java.util.Set;
  * }
  * }
  * </pre>
+ * <p>
+ * Registration and password changes hash passwords through the application's
+ * {@code PasswordEncoder}, which runs BCrypt on the {@link PasswordHashingExecutor} by default.
  *
  * @param <T> The concrete user entity type extending BaseUser
  * @param <D> The concrete user DTO type extending BaseUserDto
@@ -50,20 +79,182 @@ public abstract class BaseUserController<T extends BaseUser, D extends BaseUserD
 
     protected final BaseUserService<T, D> service;
 
+    /**
+     * Serializes exported users; replaced by the application's ObjectMapper when available.
+     */
+    protected ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Optional bulk operations (null when {@code app.user.bulk-operations.enabled} is false).
+     */
+    protected BulkUserOperationService bulkOperationService;
+
+    /**
+     * Optional bulk import (null when {@code app.user.bulk-import.enabled} is false).
+     */
+    protected UserImportService userImportService;
+
     protected BaseUserController(BaseUserService<T, D> service) {
         this.service = service;
     }
 
     /**
-     * Get all users with optional sorting.
+     * Injects the application's ObjectMapper, so exported users are serialized like every
+     * other response.
+     *
+     * @param objectMapper the object mapper
+     */
+    @Autowired(required = false)
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Injects the bulk user operation service when bulk operations are enabled.
      *
-     * @param sort Field to sort by (firstName, lastName, username, or email)
-     * @return List of user DTOs
+     * @param bulkOperationService the bulk user operation service
+     */
+    @Autowired(required = false)
+    public void setBulkOperationService(BulkUserOperationService bulkOperationService) {
+        this.bulkOperationService = bulkOperationService;
+    }
+
+    /**
+     * Injects the user import service when bulk imports are enabled.
+     *
+     * @param userImportService the user import service
+     */
+    @Autowired(required = false)
+    public void setUserImportService(UserImportService userImportService) {
+        this.userImportService = userImportService;
+    }
+
+    /**
+     * Get one page of users, optionally sorted and filtered.
+     * <p>
+     * Query parameters: {@code sort} (firstName, lastName, username, or email),
+     * {@code role}, {@code enabled}, {@code emailPrefix}, {@code limit} (1-500, default 50)
+     * and {@code cursor} (the {@code nextCursor} of the previous page).
+     *
+     * @param request Sort, filters, cursor and page size
+     * @return Page of user DTOs with the cursor of the next page
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public Iterable<D> getAllUsers(@RequestParam(value = "sort", required = false, defaultValue = "") String sort) {
-        return service.getAllUsers(sort);
+    public UserPage<D> getAllUsers(@Valid UserPageRequest request) {
+        return service.getUsers(request);
+    }
+
+    /**
+     * Export all users as newline-delimited JSON, one user DTO per line, in id order.
+     * <p>
+     * The response is written while users are read from the database, so the export uses
+     * the same memory for ten users or ten million. It is gzip-compressed when the client
+     * sends {@code Accept-Encoding: gzip}.
+     * <p>
+     * Large exports take longer than the default async request timeout; raise
+     * {@code spring.mvc.async.request-timeout} accordingly.
+     *
+     * @param acceptEncoding The Accept-Encoding request header
+     * @return The streamed NDJSON response
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+            var buffered = new BufferedOutputStream(out, 64 * 1024);
+            service.exportUsers(user -> {
+                try {
+                    buffered.write(objectMapper.writeValueAsBytes(user));
+                    buffered.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            buffered.flush();
+            if (out instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+        };
+
+        var response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).body(body);
+    }
+
+    /**
+     * Import users from CSV ({@code text/csv}) or NDJSON ({@code application/x-ndjson}).
+     * <p>
+     * The response is NDJSON written while the input is read: one line per input row with
+     * its outcome, then a line with the {@code summary}. Rejected rows do not stop the
+     * import, so check every line.
+     * <p>
+     * Large imports take longer than the default async request timeout; raise
+     * {@code spring.mvc.async.request-timeout} accordingly.
+     *
+     * @param contentType The Content-Type request header
+     * @param body        The request body
+     * @return The streamed NDJSON response
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        if (userImportService == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User import is not enabled");
+        }
+        var mediaType = MediaType.parseMediaType(contentType);
+        var format = mediaType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? UserImportService.Format.NDJSON
+                : UserImportService.Format.CSV;
+        var charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+
+        StreamingResponseBody response = outputStream -> {
+            var out = new BufferedOutputStream(outputStream, 64 * 1024);
+            var reader = new BufferedReader(new InputStreamReader(body, charset), 64 * 1024);
+            UserImportSummary summary = userImportService.importUsers(reader, format, result -> writeLine(out, result));
+            writeLine(out, Map.of("summary", summary));
+            out.flush();
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(response);
+    }
+
+    /**
+     * Start a bulk operation on users selected by id or by filter.
+     * <p>
+     * The operation runs in the background; poll the returned location for its progress.
+     *
+     * @param request    Operation and user selection
+     * @param uriBuilder URI builder for creating location header
+     * @return The queued job with 202 status and location header
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkUserJob> startBulkOperation(@Valid @RequestBody BulkUserOperationRequest request,
+                                                          UriComponentsBuilder uriBuilder) {
+        var job = bulkOperations().submit(request);
+        var uri = uriBuilder.path("/users/bulk/{jobId}").buildAndExpand(job.id()).toUri();
+
+        return ResponseEntity.accepted().location(uri).body(job);
+    }
+
+    /**
+     * Get the status and progress of a bulk operation.
+     *
+     * @param jobId Job ID
+     * @return The job
+     */
+    @GetMapping("/bulk/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public BulkUserJob getBulkOperation(@PathVariable("jobId") String jobId) {
+        return bulkOperations().getJob(jobId);
     }
 
     /**
@@ -188,6 +379,22 @@ public abstract class BaseUserController<T extends BaseUser, D extends BaseUserD
         return ResponseEntity.ok(user.getRoles());
     }
 
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BulkUserOperationService bulkOperations() {
+        if (bulkOperationService == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Bulk operations are not enabled");
+        }
+        return bulkOperationService;
+    }
+
     // Exception handling has been moved to application-level GlobalExceptionHandler
     // for consistency across all endpoints. Applications extending this controller
     // should implement centralized exception handling using ErrorResponse DTO.
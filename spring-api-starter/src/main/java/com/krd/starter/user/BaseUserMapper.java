@@ -28,6 +28,36 @@ public interface BaseUserMapper<T extends BaseUser, D extends BaseUserDto> {
      */
     D toDto(T user);
 
+    /**
+     * Convert a read-only user row to a DTO.
+     * <p>
+     * Only called when {@link #supportsRowMapping()} returns true. Redeclare it in your
+     * mapper to let MapStruct implement it, together with {@code supportsRowMapping()}:
+     * <pre>
+     * {@code
+     * @Override
+     * UserDto rowToDto(UserRow row);
+     *
+     * @Override
+     * default boolean supportsRowMapping() {
+     *     return true;
+     * }
+     * }
+     * </pre>
+     */
+    default D rowToDto(UserRow row) {
+        return null;
+    }
+
+    /**
+     * Whether this mapper implements {@link #rowToDto(UserRow)}, enabling projection reads.
+     *
+     * @return false by default, which makes read endpoints load entities
+     */
+    default boolean supportsRowMapping() {
+        return false;
+    }
+
     /**
      * Convert a registration request to a user entity.
      */
@@ -1,13 +1,20 @@
 package com.krd.starter.user;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Base repository for user entities with built-in soft delete support.
@@ -28,11 +35,14 @@ import java.util.Optional;
  * <p>
  * <strong>Important:</strong> This is marked with @NoRepositoryBean to prevent
  * Spring Data from creating a repository bean for this interface directly.
+ * <p>
+ * Queries built from a {@link org.springframework.data.jpa.domain.Specification} are not
+ * filtered automatically: add {@code deletedAt IS NULL} to the specification yourself.
  *
  * @param <T> the user entity type that extends BaseUser
  */
 @NoRepositoryBean
-public interface BaseUserRepository<T extends BaseUser> extends JpaRepository<T, Long> {
+public interface BaseUserRepository<T extends BaseUser> extends JpaRepository<T, Long>, JpaSpecificationExecutor<T> {
 
     /**
      * Finds a user by ID, excluding soft-deleted users.
@@ -60,6 +70,32 @@ public interface BaseUserRepository<T extends BaseUser> extends JpaRepository<T,
     @Query("SELECT u FROM #{#entityName} u WHERE u.deletedAt IS NULL")
     List<T> findAll(Sort sort);
 
+    /**
+     * Streams all non-deleted users with their roles, ordered by id.
+     * <p>
+     * Rows are fetched from the database in batches while the stream is consumed, and the
+     * entities are read-only. Must be called in a transaction and closed after use.
+     * MySQL only streams with {@code useCursorFetch=true} on the JDBC URL; without it the
+     * driver reads the whole result before returning the first row.
+     *
+     * @return stream of all active users
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM #{#entityName} u LEFT JOIN FETCH u.roles WHERE u.deletedAt IS NULL ORDER BY u.id")
+    Stream<T> streamAll();
+
+    /**
+     * Finds the roles of several users in one query, for folding into {@link UserRow}s.
+     *
+     * @param ids the user IDs
+     * @return pairs of user ID ({@code Long}) and role ({@code String})
+     */
+    @Query("SELECT u.id, r FROM #{#entityName} u JOIN u.roles r WHERE u.id IN :ids")
+    List<Object[]> findRolesByUserIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Finds a user by email, excluding soft-deleted users.
      *
@@ -69,6 +105,18 @@ public interface BaseUserRepository<T extends BaseUser> extends JpaRepository<T,
     @Query("SELECT u FROM #{#entityName} u WHERE u.email = :email AND u.deletedAt IS NULL")
     Optional<T> findByEmail(@Param("email") String email);
 
+    /**
+     * Finds a user by email for authentication, excluding soft-deleted users.
+     * <p>
+     * Fetches the roles in the same query, so a login needs a single round trip.
+     *
+     * @param email the user's email address
+     * @return an Optional containing the user with its roles if found and not deleted
+     */
+    @EntityGraph(attributePaths = "roles")
+    @Query("SELECT u FROM #{#entityName} u WHERE u.email = :email AND u.deletedAt IS NULL")
+    Optional<T> findByEmailForAuthentication(@Param("email") String email);
+
     /**
      * Checks if a user exists with the given email (excluding soft-deleted users).
      *
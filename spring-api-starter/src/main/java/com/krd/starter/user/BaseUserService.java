@@ -1,20 +1,42 @@
 package com.krd.starter.user;
 
+import com.krd.starter.user.UserMetrics.PasswordOperation;
 import com.krd.starter.user.dto.AddRoleRequest;
 import com.krd.starter.user.dto.BaseUserDto;
 import com.krd.starter.user.dto.ChangePasswordRequest;
 import com.krd.starter.user.dto.RegisterUserRequest;
 import com.krd.starter.user.dto.RemoveRoleRequest;
 import com.krd.starter.user.dto.UpdateUserRequest;
+import com.krd.starter.user.dto.UserPage;
+import com.krd.starter.user.dto.UserPageRequest;
 import com.krd.starter.user.exception.DuplicateUserException;
 import com.krd.starter.user.exception.UserNotFoundException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Abstract base service for user management operations.
@@ -35,6 +57,17 @@ import java.util.Set;
  * }
  * }
  * </pre>
+ * <p>
+ * Changing a password, removing a role and deleting a user advance the user's token
+ * epoch, which invalidates every token already issued to them.
+ * <p>
+ * Reads of single users go through the {@link UserSnapshotCache} when one is configured;
+ * every change made here invalidates the user's snapshot. The caller's own user is loaded
+ * at most once per request through {@link CurrentIdentity}.
+ * <p>
+ * When the mapper opts in through {@link BaseUserMapper#supportsRowMapping()}, {@link #getUser(Long)}
+ * and {@link #getUsers(UserPageRequest)} select {@link UserRow} projections instead of
+ * entities, with the roles of all returned users loaded in one query.
  *
  * @param <T> The concrete user entity type extending BaseUser
  * @param <D> The concrete user DTO type extending BaseUserDto
@@ -46,6 +79,33 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
     protected final PasswordEncoder passwordEncoder;
     protected final RoleChangeLogRepository roleChangeLogRepository;
 
+    /**
+     * Optional in-memory token epochs (null when token epochs are disabled).
+     */
+    protected UserTokenEpochService tokenEpochService;
+
+    protected UserMetrics metrics = UserMetrics.NOOP;
+
+    protected UserSnapshotCache snapshotCache = UserSnapshotCache.NONE;
+
+    protected CurrentIdentity currentIdentity = new CurrentIdentity();
+
+    /**
+     * Optional asynchronous audit writer (null when role changes are logged synchronously).
+     */
+    protected RoleChangeAuditWriter roleChangeAuditWriter;
+
+    private static final Set<String> SORT_FIELDS = Set.of("firstName", "lastName", "username", "email");
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Used to detach exported users and to run projection queries (null outside JPA).
+     */
+    protected EntityManager entityManager;
+
+    private Class<T> entityClass;
+
     protected BaseUserService(BaseUserRepository<T> repository,
                              BaseUserMapper<T, D> mapper,
                              PasswordEncoder passwordEncoder,
@@ -56,14 +116,80 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
         this.roleChangeLogRepository = roleChangeLogRepository;
     }
 
+    /**
+     * Injects the token epoch service when token epochs are enabled.
+     * <p>
+     * Setter injection keeps the constructor of consumer subclasses unchanged.
+     *
+     * @param tokenEpochService the token epoch service
+     */
+    @Autowired(required = false)
+    public void setTokenEpochService(UserTokenEpochService tokenEpochService) {
+        this.tokenEpochService = tokenEpochService;
+    }
+
+    /**
+     * Injects the metrics to report to, when a {@link UserMetrics} bean exists.
+     *
+     * @param metrics the metrics
+     */
+    @Autowired(required = false)
+    public void setMetrics(UserMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Injects the user snapshot cache when it is enabled.
+     *
+     * @param snapshotCache the user snapshot cache
+     */
+    @Autowired(required = false)
+    public void setSnapshotCache(UserSnapshotCache snapshotCache) {
+        this.snapshotCache = snapshotCache;
+    }
+
+    /**
+     * Injects the shared current identity, replacing the service's own instance.
+     *
+     * @param currentIdentity the current identity
+     */
+    @Autowired(required = false)
+    public void setCurrentIdentity(CurrentIdentity currentIdentity) {
+        this.currentIdentity = currentIdentity;
+    }
+
+    /**
+     * Injects the asynchronous role change audit writer when it is enabled.
+     *
+     * @param roleChangeAuditWriter the audit writer
+     */
+    @Autowired(required = false)
+    public void setRoleChangeAuditWriter(RoleChangeAuditWriter roleChangeAuditWriter) {
+        this.roleChangeAuditWriter = roleChangeAuditWriter;
+    }
+
+    /**
+     * Injects the shared entity manager.
+     *
+     * @param entityManager the entity manager
+     */
+    @PersistenceContext
+    public void setEntityManager(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
     /**
      * Get all users with optional sorting.
+     * <p>
+     * Loads every user into memory; use {@link #getUsers(UserPageRequest)} instead.
      *
      * @param sort Field to sort by (firstName, lastName, username, or email). Defaults to email.
      * @return List of user DTOs sorted by the specified field
+     * @deprecated loads the whole table, use {@link #getUsers(UserPageRequest)}
      */
+    @Deprecated
     public Iterable<D> getAllUsers(String sort) {
-        if (!Set.of("firstName", "lastName", "username", "email").contains(sort)) {
+        if (!SORT_FIELDS.contains(sort)) {
             sort = "email";
         }
 
@@ -73,6 +199,127 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
                 .toList();
     }
 
+    /**
+     * Get one page of users, optionally filtered by role, enabled flag and email prefix.
+     * <p>
+     * Pages are read by keyset: each page continues after the (sort key, id) of the previous
+     * page's last user, so deep pages cost the same as the first one. Users with a null sort
+     * key (e.g. no first name) come first, as MySQL sorts nulls before every value.
+     *
+     * @param request Sort, filters, cursor and page size
+     * @return The page of user DTOs and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    public UserPage<D> getUsers(UserPageRequest request) {
+        var sort = SORT_FIELDS.contains(request.getSort()) ? request.getSort() : "email";
+        var after = request.getCursor() == null || request.getCursor().isBlank()
+                ? null : UserCursor.decode(request.getCursor());
+        if (after != null && !after.sort().equals(sort)) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+        int limit = Math.clamp(request.getLimit(), 1, MAX_PAGE_SIZE);
+
+        // One extra row tells whether there is a next page
+        var specification = pageSpecification(request, sort, after);
+        String nextCursor = null;
+        if (projectionReads()) {
+            var rows = findUserRows(specification, limit + 1);
+            if (rows.size() > limit) {
+                var last = rows.get(limit - 1);
+                var key = sortKey(sort, last.firstName(), last.lastName(), last.username(), last.email());
+                nextCursor = new UserCursor(sort, last.id(), key).encode();
+            }
+            return new UserPage<>(rows.stream().limit(limit).map(mapper::rowToDto).toList(), nextCursor);
+        }
+
+        var users = repository.findBy(specification, query -> query.limit(limit + 1).all());
+        if (users.size() > limit) {
+            var last = users.get(limit - 1);
+            var key = sortKey(sort, last.getFirstName(), last.getLastName(), last.getUsername(), last.getEmail());
+            nextCursor = new UserCursor(sort, last.getId(), key).encode();
+        }
+        return new UserPage<>(users.stream().limit(limit).map(mapper::toDto).toList(), nextCursor);
+    }
+
+    /**
+     * Builds the query of one page: filters, the keyset condition and the (sort key, id) order.
+     */
+    private Specification<T> pageSpecification(UserPageRequest request, String sort, UserCursor after) {
+        return (root, query, cb) -> {
+            // The raw column, not coalesce(), so that the (deleted_at, key, id) indexes serve
+            // both the keyset condition and the order
+            Expression<String> key = root.get(sort);
+            Expression<Long> id = root.get("id");
+
+            var predicates = new ArrayList<Predicate>();
+            predicates.add(cb.isNull(root.get("deletedAt")));
+            if (request.getRole() != null && !request.getRole().isBlank()) {
+                predicates.add(cb.isMember(request.getRole(), root.<Set<String>>get("roles")));
+            }
+            if (request.getEnabled() != null) {
+                predicates.add(cb.equal(root.get("enabled"), request.getEnabled()));
+            }
+            if (request.getEmailPrefix() != null && !request.getEmailPrefix().isBlank()) {
+                predicates.add(cb.like(root.get("email"), escapeLike(request.getEmailPrefix()) + "%", '\\'));
+            }
+            if (after != null && after.key() == null) {
+                // Rest of the users without the key, then every user with one
+                predicates.add(cb.or(
+                        cb.and(cb.isNull(key), cb.greaterThan(id, after.id())),
+                        cb.isNotNull(key)));
+            } else if (after != null) {
+                // Comparisons with null are never true, so users without the key stay behind
+                predicates.add(cb.or(
+                        cb.greaterThan(key, after.key()),
+                        cb.and(cb.equal(key, after.key()), cb.greaterThan(id, after.id()))));
+            }
+
+            query.orderBy(cb.asc(key), cb.asc(id));
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static String sortKey(String sort, String firstName, String lastName, String username, String email) {
+        return switch (sort) {
+            case "firstName" -> firstName;
+            case "lastName" -> lastName;
+            case "username" -> username;
+            default -> email;
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Export every non-deleted user, in id order, without holding them all in memory.
+     * <p>
+     * Users are streamed from the database in a read-only transaction and detached once
+     * exported, so memory use does not grow with the number of users.
+     * The transaction stays open until every user has been passed to the consumer.
+     *
+     * @param consumer Receives each user DTO
+     * @return Number of exported users
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(Consumer<? super D> consumer) {
+        long count = 0;
+        try (var users = repository.streamAll()) {
+            var iterator = users.iterator();
+            while (iterator.hasNext()) {
+                var user = iterator.next();
+                consumer.accept(mapper.toDto(user));
+                // Detach rather than clear: the stream may already hold the next user
+                if (entityManager != null) {
+                    entityManager.detach(user);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Get a user by ID.
      *
@@ -81,8 +328,11 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
      * @throws UserNotFoundException if user doesn't exist
      */
     public D getUser(Long id) {
-        T user = repository.findById(id).orElseThrow(UserNotFoundException::new);
-        return mapper.toDto(user);
+        D user = findUserSnapshot(id);
+        if (user == null) {
+            throw new UserNotFoundException();
+        }
+        return user;
     }
 
     /**
@@ -116,7 +366,7 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
             deletedUser.setDeletedAt(null);
             deletedUser.setEnabled(true);
             deletedUser.setEmail(request.getEmail()); // Restore original email
-            deletedUser.setPassword(passwordEncoder.encode(request.getPassword()));
+            deletedUser.setPassword(encodePassword(request.getPassword(), PasswordOperation.REGISTER));
 
             // Update optional fields from request
             if (request.getFirstName() != null) {
@@ -128,6 +378,7 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
             // Note: Username is not updated - it remains unchanged from the original account
 
             repository.save(deletedUser);
+            userChanged(deletedUser);
             return mapper.toDto(deletedUser);
         }
 
@@ -146,7 +397,7 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
 
         // Create new user
         T user = mapper.toEntity(request);
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(encodePassword(user.getPassword(), PasswordOperation.REGISTER));
         user.setRoles(Set.of("USER"));
         repository.save(user);
 
@@ -171,13 +422,15 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
      */
     public D updateUser(Long userId, UpdateUserRequest request) {
         var currentUserId = getCurrentUserId();
-        var currentUser = repository.findById(currentUserId).orElseThrow();
-        var targetUser = repository.findById(userId).orElseThrow(UserNotFoundException::new);
+        var targetUser = loadUser(userId).orElseThrow(UserNotFoundException::new);
 
         // Authorization: Users can update themselves, admins can update anyone
-        boolean isAdmin = currentUser.getRoles().contains("ADMIN");
-        if (!userId.equals(currentUserId) && !isAdmin) {
-            throw new AccessDeniedException("You can only update your own profile");
+        if (!userId.equals(currentUserId)) {
+            // Read the roles from the database, not the snapshot cache, which may be stale
+            var currentUser = loadUser(currentUserId).orElseThrow(UserNotFoundException::new);
+            if (!currentUser.getRoles().contains("ADMIN")) {
+                throw new AccessDeniedException("You can only update your own profile");
+            }
         }
 
         // Validate email uniqueness if changed
@@ -196,6 +449,7 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
 
         mapper.update(request, targetUser);
         repository.save(targetUser);
+        userChanged(targetUser);
 
         return mapper.toDto(targetUser);
     }
@@ -212,6 +466,7 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
      * 2. Disables the account
      * 3. Appends "_deleted" to email to free up unique constraint
      * 4. Username remains unchanged to preserve user's identity claim
+     * 5. Invalidates all tokens issued to the user
      *
      * @param userId The user ID to delete
      * @throws UserNotFoundException if user doesn't exist
@@ -220,7 +475,7 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
      */
     public void deleteUser(Long userId) {
         var currentUserId = getCurrentUserId();
-        var userToDelete = repository.findById(userId).orElseThrow(UserNotFoundException::new);
+        var userToDelete = loadUser(userId).orElseThrow(UserNotFoundException::new);
 
         // Prevent self-deletion by admin
         if (userId.equals(currentUserId)) {
@@ -245,7 +500,9 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
             userToDelete.setEmail(userToDelete.getEmail() + "_deleted");
         }
 
+        invalidateTokens(userToDelete);
         repository.save(userToDelete);
+        userChanged(userToDelete);
     }
 
     /**
@@ -256,6 +513,8 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
      * Validates:
      * - Current password is correct
      * - New password matches confirmation
+     * <p>
+     * All tokens issued to the user are invalidated, so every session has to log in again.
      *
      * @param userId  The user ID
      * @param request Change password request
@@ -271,10 +530,13 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
             throw new AccessDeniedException("You can only change your own password");
         }
 
-        var user = repository.findById(userId).orElseThrow(UserNotFoundException::new);
+        var user = loadUser(userId).orElseThrow(UserNotFoundException::new);
 
         // Verify current password
-        if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
+        long start = System.nanoTime();
+        boolean matches = passwordEncoder.matches(request.getOldPassword(), user.getPassword());
+        metrics.passwordHashed(PasswordOperation.CHANGE_PASSWORD, System.nanoTime() - start);
+        if (!matches) {
             throw new IllegalArgumentException("Current password is incorrect");
         }
 
@@ -284,8 +546,10 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
         }
 
         // Hash the new password before storing (CRITICAL)
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        user.setPassword(encodePassword(request.getNewPassword(), PasswordOperation.CHANGE_PASSWORD));
+        invalidateTokens(user);
         repository.save(user);
+        userChanged(user);
     }
 
     /**
@@ -299,13 +563,14 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
      * @throws UserNotFoundException if user doesn't exist
      */
     public D addRole(Long userId, AddRoleRequest request) {
-        var user = repository.findById(userId).orElseThrow(UserNotFoundException::new);
+        var user = loadUser(userId).orElseThrow(UserNotFoundException::new);
 
         // Add the role to the user's existing roles
         boolean wasAdded = user.getRoles().add(request.getRole());
 
         if (wasAdded) {
             repository.save(user);
+            userChanged(user);
             logRoleChange(user, request.getRole(), "ADDED");
         }
 
@@ -319,7 +584,8 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
      * - Admins cannot remove their own ADMIN role (prevents lockout)
      * - Users must have at least one role
      * <p>
-     * Logs the role change in the audit log.
+     * Logs the role change in the audit log and invalidates all tokens issued to the user,
+     * since they still carry the removed role.
      *
      * @param userId  The user ID
      * @param request Remove role request
@@ -329,7 +595,7 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
      * @throws IllegalStateException if trying to remove the user's last role
      */
     public D removeRole(Long userId, RemoveRoleRequest request) {
-        var user = repository.findById(userId).orElseThrow(UserNotFoundException::new);
+        var user = loadUser(userId).orElseThrow(UserNotFoundException::new);
         var currentUserId = getCurrentUserId();
 
         // Prevent self-demotion from ADMIN role
@@ -346,13 +612,172 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
         boolean wasRemoved = user.getRoles().remove(request.getRole());
 
         if (wasRemoved) {
+            invalidateTokens(user);
             repository.save(user);
+            userChanged(user);
             logRoleChange(user, request.getRole(), "REMOVED");
         }
 
         return mapper.toDto(user);
     }
 
+    /**
+     * Find the snapshot of a user, from the snapshot cache if possible.
+     *
+     * @param id The user ID
+     * @return The user DTO, or null if the user doesn't exist
+     */
+    protected D findUserSnapshot(Long id) {
+        return snapshotCache.get(id, userId -> {
+            if (projectionReads()) {
+                var rows = findUserRows((root, query, cb) -> cb.and(
+                        cb.equal(root.get("id"), userId), cb.isNull(root.get("deletedAt"))), 1);
+                return rows.isEmpty() ? null : mapper.rowToDto(rows.getFirst());
+            }
+            return loadUser(userId).map(mapper::toDto).orElse(null);
+        });
+    }
+
+    /**
+     * Whether reads select {@link UserRow}s instead of entities.
+     *
+     * @return true if the mapper supports {@link BaseUserMapper#rowToDto(UserRow)}
+     */
+    protected boolean projectionReads() {
+        return entityManager != null && mapper.supportsRowMapping();
+    }
+
+    /**
+     * Attributes of your user entity selected into {@link UserRow#attributes()} by projection
+     * reads, in addition to the columns of {@link BaseUserDto}.
+     * <p>
+     * Override to expose your own columns through {@link BaseUserMapper#rowToDto(UserRow)}.
+     *
+     * @return entity attribute names (default: none)
+     */
+    protected List<String> projectedAttributes() {
+        return List.of();
+    }
+
+    /**
+     * Select users as read-only rows, with the roles of all selected users loaded in a
+     * second query.
+     *
+     * @param specification Filter and order of the rows
+     * @param limit         Maximum number of rows
+     * @return The user rows
+     */
+    protected List<UserRow> findUserRows(Specification<T> specification, int limit) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass());
+
+        var attributes = projectedAttributes();
+        var selections = new ArrayList<Selection<?>>(List.of(
+                root.get("id"), root.get("firstName"), root.get("lastName"),
+                root.get("username"), root.get("email"), root.get("enabled")));
+        attributes.forEach(attribute -> selections.add(root.get(attribute)));
+        query.multiselect(selections);
+        var predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+        if (tuples.isEmpty()) {
+            return List.of();
+        }
+
+        var ids = tuples.stream().map(tuple -> tuple.get(0, Long.class)).toList();
+        var roles = new HashMap<Long, Set<String>>();
+        for (Object[] userRole : repository.findRolesByUserIdIn(ids)) {
+            roles.computeIfAbsent((Long) userRole[0], id -> new HashSet<>()).add((String) userRole[1]);
+        }
+
+        var rows = new ArrayList<UserRow>(tuples.size());
+        for (var tuple : tuples) {
+            Map<String, Object> values = new HashMap<>();
+            for (int i = 0; i < attributes.size(); i++) {
+                values.put(attributes.get(i), tuple.get(6 + i));
+            }
+            Long id = tuple.get(0, Long.class);
+            rows.add(new UserRow(id, tuple.get(1, String.class), tuple.get(2, String.class),
+                    tuple.get(3, String.class), tuple.get(4, String.class), tuple.get(5, Boolean.class),
+                    roles.getOrDefault(id, Set.of()), Collections.unmodifiableMap(values)));
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<T> entityClass() {
+        if (entityClass == null) {
+            entityClass = (Class<T>) ResolvableType.forClass(getClass()).as(BaseUserService.class).resolveGeneric(0);
+        }
+        return entityClass;
+    }
+
+    /**
+     * Load a user entity. The caller's own user is taken from {@link CurrentIdentity}, so it
+     * is loaded at most once per request.
+     *
+     * @param id The user ID
+     * @return The user, or empty if it doesn't exist
+     */
+    protected Optional<T> loadUser(Long id) {
+        if (id != null && id.equals(currentIdentity.getUserId())) {
+            return currentIdentity.getUser(repository);
+        }
+        return repository.findById(id);
+    }
+
+    /**
+     * Drop the cached snapshot of a changed user, and keep {@link CurrentIdentity} up to
+     * date when the caller changed themselves.
+     * <p>
+     * Call it after saving changes made outside the methods of this class.
+     *
+     * @param user The changed user
+     */
+    protected void userChanged(T user) {
+        snapshotCache.invalidate(user.getId());
+        currentIdentity.userChanged(user);
+    }
+
+    /**
+     * Hash a password with the password encoder, reporting the time it took.
+     *
+     * @param rawPassword The password to hash
+     * @param operation   The operation the password is hashed for
+     * @return The hashed password
+     */
+    protected String encodePassword(String rawPassword, PasswordOperation operation) {
+        long start = System.nanoTime();
+        var encoded = passwordEncoder.encode(rawPassword);
+        metrics.passwordHashed(operation, System.nanoTime() - start);
+        return encoded;
+    }
+
+    /**
+     * Advance a user's token epoch so every token already issued to them is rejected.
+     * <p>
+     * The caller must save the user. Tokens issued afterwards carry the new epoch and
+     * remain valid.
+     *
+     * @param user The user whose tokens are invalidated
+     */
+    protected void invalidateTokens(T user) {
+        // Strictly increasing, even if the clock is behind the previous epoch
+        long epoch = Math.max(System.currentTimeMillis(), user.getTokenEpoch() + 1);
+        user.setTokenEpoch(epoch);
+
+        if (tokenEpochService != null) {
+            tokenEpochService.advance(user.getId(), epoch);
+        }
+    }
+
     /**
      * Log a role change to the audit log.
      *
@@ -362,7 +787,7 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
      */
     private void logRoleChange(T user, String role, String action) {
         var currentUserId = getCurrentUserId();
-        var currentUser = repository.findById(currentUserId).orElse(null);
+        var currentUser = findUserSnapshot(currentUserId);
 
         var log = RoleChangeLog.builder()
                 .userId(user.getId())
@@ -374,16 +799,20 @@ public abstract class BaseUserService<T extends BaseUser, D extends BaseUserDto>
                 .changedByEmail(currentUser != null ? currentUser.getEmail() : "unknown")
                 .build();
 
-        roleChangeLogRepository.save(log);
+        if (roleChangeAuditWriter != null) {
+            // Queued after commit, written in a batch by the writer thread
+            roleChangeAuditWriter.submit(log);
+        } else {
+            roleChangeLogRepository.save(log);
+        }
     }
 
     /**
-     * Get the current authenticated user's ID from the security context.
+     * Get the current authenticated user's ID from the {@link CurrentIdentity}.
      *
      * @return Current user ID
      */
     protected Long getCurrentUserId() {
-        var authentication = SecurityContextHolder.getContext().getAuthentication();
-        return (Long) authentication.getPrincipal();
+        return currentIdentity.getUserId();
     }
 }
@@ -0,0 +1,573 @@
+package com.krd.starter.user;
+
+import com.krd.starter.user.dto.BulkUserJob;
+import com.krd.starter.user.dto.BulkUserOperationRequest;
+import com.krd.starter.user.dto.BulkUserOperationRequest.Operation;
+import com.krd.starter.user.exception.BulkUserJobNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs bulk user operations (disable, enable, soft delete, add or remove a role) as
+ * background jobs.
+ * <p>
+ * {@link #submit(BulkUserOperationRequest)} records a job in the {@code bulk_user_jobs} table
+ * and returns at once. The job runs on a single background thread per instance: the selected
+ * users are walked in id order in chunks, and each chunk is changed with set-based
+ * {@code UPDATE}, {@code INSERT ... SELECT} and {@code DELETE} statements in its own short
+ * transaction. Role changes write their {@code role_change_logs} rows with one
+ * {@code INSERT ... SELECT} per chunk. Progress is stored after every chunk and read with
+ * {@link #getJob(String)}, from any instance.
+ * <p>
+ * The invariants of {@link BaseUserService} hold for every chunk, under row locks on the
+ * chunk's users and on the admins:
+ * <ul>
+ *   <li>The admin who submitted the job is never disabled, deleted or demoted from ADMIN</li>
+ *   <li>At least one active, enabled admin is kept</li>
+ *   <li>A role is not removed from users whose last role it is</li>
+ * </ul>
+ * Users that are protected by these rules or already in the requested state are counted as
+ * skipped, so a job can be submitted again after it was interrupted.
+ * <p>
+ * Like the hard delete, jobs use SQL and bypass JPA: entity listeners are not called. Tokens
+ * are invalidated and snapshot caches are cleared as for single-user changes.
+ * <p>
+ * Each job records the instance that owns it, and the owner refreshes the heartbeat of its
+ * queued and running jobs after every chunk. A queued or running job whose heartbeat is
+ * older than {@code stale-after} belonged to an instance that crashed or was killed; it is
+ * marked as failed at startup and whenever it is read with {@link #getJob(String)}.
+ * <p>
+ * Enable it in your application.yaml (requires the {@code bulk_user_jobs} table):
+ * <pre>
+ * app:
+ *   user:
+ *     bulk-operations:
+ *       enabled: true
+ *       chunk-size: 500
+ * </pre>
+ */
+@Slf4j
+public class BulkUserOperationService implements InitializingBean, DisposableBean {
+
+    private static final String ADMIN = "ADMIN";
+
+    /**
+     * How long shutdown waits for the running chunk.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final String ABANDONED = "Abandoned by its instance; submit the job again to finish it";
+
+    private static final String SELECT_JOB = "SELECT id, operation, role, status, requested_by, total, processed,"
+            + " updated, skipped, failed, error, created_at, started_at, finished_at FROM bulk_user_jobs WHERE id = ?";
+
+    private final UserManagementConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final ExecutorService executor;
+
+    /**
+     * Identifies this instance as the owner of the jobs it runs: {@code pid@hostname}.
+     */
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName();
+    private UserTokenEpochService tokenEpochService;
+    private UserSnapshotCache snapshotCache = UserSnapshotCache.NONE;
+    private CurrentIdentity currentIdentity = new CurrentIdentity();
+    private volatile boolean stopping;
+
+    public BulkUserOperationService(UserManagementConfig config,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            var thread = new Thread(task, "bulk-user-operations");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Injects the token epoch service when token epochs are enabled.
+     *
+     * @param tokenEpochService the token epoch service
+     */
+    @Autowired(required = false)
+    public void setTokenEpochService(UserTokenEpochService tokenEpochService) {
+        this.tokenEpochService = tokenEpochService;
+    }
+
+    /**
+     * Injects the user snapshot cache when it is enabled.
+     *
+     * @param snapshotCache the user snapshot cache
+     */
+    @Autowired(required = false)
+    public void setSnapshotCache(UserSnapshotCache snapshotCache) {
+        this.snapshotCache = snapshotCache;
+    }
+
+    /**
+     * Injects the shared current identity, replacing the service's own instance.
+     *
+     * @param currentIdentity the current identity
+     */
+    @Autowired(required = false)
+    public void setCurrentIdentity(CurrentIdentity currentIdentity) {
+        this.currentIdentity = currentIdentity;
+    }
+
+    /**
+     * Submit a bulk operation on behalf of the current user.
+     *
+     * @param request The operation and the users to change
+     * @return The queued job
+     * @throws IllegalArgumentException if the role or the user selection is missing or invalid
+     */
+    public BulkUserJob submit(BulkUserOperationRequest request) {
+        var operation = request.getOperation();
+        boolean roleOperation = operation == Operation.ADD_ROLE || operation == Operation.REMOVE_ROLE;
+        if (roleOperation && request.getRole() == null) {
+            throw new IllegalArgumentException("Role is required for " + operation);
+        }
+        if ((request.getUserIds() == null) == (request.getFilter() == null)) {
+            throw new IllegalArgumentException("Either userIds or filter is required");
+        }
+
+        List<Long> userIds = null;
+        if (request.getUserIds() != null) {
+            int maxUserIds = config.getBulkOperations().getMaxUserIds();
+            if (request.getUserIds().size() > maxUserIds) {
+                throw new IllegalArgumentException("At most " + maxUserIds + " user ids per job");
+            }
+            userIds = request.getUserIds().stream().filter(Objects::nonNull).distinct().sorted().toList();
+        }
+
+        var job = new Job(UUID.randomUUID().toString(), operation, roleOperation ? request.getRole() : null,
+                currentIdentity.getUserId(), userIds, request.getFilter());
+        var now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO bulk_user_jobs (id, operation, role, status, requested_by, total, processed,"
+                        + " updated, skipped, failed, created_at, owner, heartbeat_at)"
+                        + " VALUES (?, ?, ?, ?, ?, 0, 0, 0, 0, 0, ?, ?, ?)",
+                job.id(), operation.name(), job.role(), BulkUserJob.Status.QUEUED.name(), job.requestedBy(),
+                now, owner, now);
+        log.info("Bulk user job {} queued: {} {} by user {}", job.id(), operation,
+                job.role() != null ? job.role() : "", job.requestedBy());
+
+        executor.execute(() -> run(job));
+        return getJob(job.id());
+    }
+
+    /**
+     * Get the status and progress of a job.
+     *
+     * @param jobId The job ID
+     * @return The job
+     * @throws BulkUserJobNotFoundException if the job doesn't exist
+     */
+    public BulkUserJob getJob(String jobId) {
+        var job = findJob(jobId);
+        boolean active = job.status() == BulkUserJob.Status.QUEUED || job.status() == BulkUserJob.Status.RUNNING;
+        if (active && failAbandonedJobs(" AND id = ?", jobId) > 0) {
+            job = findJob(jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Marks the jobs of instances that stopped without finishing them as failed.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        int abandoned = failAbandonedJobs("");
+        if (abandoned > 0) {
+            log.warn("Marked {} abandoned bulk user job(s) as failed", abandoned);
+        }
+    }
+
+    /**
+     * Lets the running chunk finish and stops the job after it. Jobs that are stopped, or
+     * queued and not started, are marked as failed.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        stopping = true;
+        executor.shutdown();
+        executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private BulkUserJob findJob(String jobId) {
+        return jdbcTemplate.query(SELECT_JOB, BulkUserOperationService::mapJob, jobId).stream()
+                .findFirst()
+                .orElseThrow(BulkUserJobNotFoundException::new);
+    }
+
+    /**
+     * Fails queued and running jobs whose owner stopped refreshing their heartbeat.
+     *
+     * @param condition further condition of the jobs to check, or empty for all jobs
+     * @return the number of jobs marked as failed
+     */
+    private int failAbandonedJobs(String condition, Object... args) {
+        var now = LocalDateTime.now();
+        var allArgs = new ArrayList<Object>(List.of(BulkUserJob.Status.FAILED.name(), ABANDONED,
+                Timestamp.valueOf(now), Timestamp.valueOf(now.minus(config.getBulkOperations().getStaleAfter()))));
+        allArgs.addAll(List.of(args));
+        return jdbcTemplate.update("UPDATE bulk_user_jobs SET status = ?, error = ?, finished_at = ?"
+                + " WHERE status IN ('QUEUED', 'RUNNING') AND heartbeat_at < ?" + condition, allArgs.toArray());
+    }
+
+    /**
+     * Refreshes the heartbeat of the queued and running jobs of this instance.
+     */
+    private void heartbeat() {
+        jdbcTemplate.update("UPDATE bulk_user_jobs SET heartbeat_at = ? WHERE owner = ?"
+                + " AND status IN ('QUEUED', 'RUNNING')", Timestamp.valueOf(LocalDateTime.now()), owner);
+    }
+
+    private void run(Job job) {
+        if (stopping) {
+            finish(job, BulkUserJob.Status.FAILED, "Stopped by shutdown before it started");
+            return;
+        }
+        try {
+            var settings = config.getBulkOperations();
+            int chunkSize = Math.max(1, settings.getChunkSize());
+            var users = config.getUsersTable();
+            var where = job.filter() != null ? whereOf(job.filter()) : null;
+
+            long total = job.userIds() != null
+                    ? job.userIds().size()
+                    : jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + users + " u" + where.sql(),
+                            Long.class, where.args().toArray());
+            int started = jdbcTemplate.update("UPDATE bulk_user_jobs SET status = ?, total = ?, started_at = ?"
+                    + " WHERE id = ? AND status = ?", BulkUserJob.Status.RUNNING.name(), total,
+                    Timestamp.valueOf(LocalDateTime.now()), job.id(), BulkUserJob.Status.QUEUED.name());
+            if (started == 0) {
+                log.warn("Bulk user job {} was marked as abandoned before it started", job.id());
+                return;
+            }
+            heartbeat();
+
+            var changedByEmail = job.requestedBy() == null ? "unknown" : jdbcTemplate.query(
+                    "SELECT email FROM " + users + " WHERE id = ?",
+                    rs -> rs.next() ? rs.getString(1) : "unknown", job.requestedBy());
+
+            long updated = 0;
+            long skipped = 0;
+            long failed = 0;
+            int from = 0;
+            long afterId = 0;
+            while (!stopping) {
+                List<Long> ids;
+                if (job.userIds() != null) {
+                    ids = job.userIds().subList(Math.min(from, job.userIds().size()),
+                            Math.min(from + chunkSize, job.userIds().size()));
+                    from += chunkSize;
+                } else {
+                    var args = new ArrayList<>(where.args());
+                    args.add(afterId);
+                    args.add(chunkSize);
+                    ids = jdbcTemplate.queryForList("SELECT u.id FROM " + users + " u" + where.sql()
+                            + " AND u.id > ? ORDER BY u.id LIMIT ?", Long.class, args.toArray());
+                }
+                if (ids.isEmpty()) {
+                    break;
+                }
+                afterId = ids.getLast();
+
+                long chunkStart = System.nanoTime();
+                var result = applyChunk(job, ids, changedByEmail);
+                long chunkNanos = System.nanoTime() - chunkStart;
+
+                updated += result.updated();
+                skipped += result.skipped();
+                failed += result.failed();
+                int running = jdbcTemplate.update("UPDATE bulk_user_jobs SET processed = ?, updated = ?, skipped = ?,"
+                        + " failed = ? WHERE id = ? AND status = ?", updated + skipped + failed, updated, skipped,
+                        failed, job.id(), BulkUserJob.Status.RUNNING.name());
+                if (running == 0) {
+                    // This instance stalled for longer than stale-after and another one gave up on the job
+                    log.warn("Bulk user job {} was marked as abandoned, stopping after {} updated user(s)",
+                            job.id(), updated);
+                    return;
+                }
+                heartbeat();
+
+                if (ids.size() < chunkSize || !pauseAfter(chunkNanos)) {
+                    break;
+                }
+            }
+
+            if (stopping) {
+                log.warn("Bulk user job {} stopped by shutdown after {} updated user(s)", job.id(), updated);
+                finish(job, BulkUserJob.Status.FAILED, "Stopped by shutdown; submit the job again to finish it");
+            } else {
+                log.info("Bulk user job {} completed: {} updated, {} skipped, {} failed",
+                        job.id(), updated, skipped, failed);
+                finish(job, BulkUserJob.Status.COMPLETED, null);
+            }
+        } catch (RuntimeException e) {
+            log.error("Bulk user job {} failed: {}", job.id(), e.getMessage(), e);
+            finish(job, BulkUserJob.Status.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Changes a chunk in one transaction, or user by user if the chunk fails.
+     */
+    private ChunkResult applyChunk(Job job, List<Long> ids, String changedByEmail) {
+        try {
+            return chunkTransaction.execute(status -> change(job, ids, changedByEmail));
+        } catch (DataAccessException e) {
+            log.warn("Bulk user job {} failed to change a chunk of {} user(s), retrying one by one: {}",
+                    job.id(), ids.size(), e.getMessage());
+        }
+
+        int updated = 0;
+        int skipped = 0;
+        int failed = 0;
+        for (Long id : ids) {
+            try {
+                var result = chunkTransaction.execute(status -> change(job, List.of(id), changedByEmail));
+                updated += result.updated();
+                skipped += result.skipped();
+            } catch (DataAccessException e) {
+                failed++;
+                log.error("Bulk user job {} failed to change user: id={}. Error: {}", job.id(), id, e.getMessage(), e);
+            }
+        }
+        return new ChunkResult(updated, skipped, failed);
+    }
+
+    /**
+     * Changes the users of a chunk that the operation applies to and the invariants allow.
+     */
+    private ChunkResult change(Job job, List<Long> ids, String changedByEmail) {
+        var users = config.getUsersTable();
+        var operation = job.operation();
+
+        // Lock the users the operation would change
+        var select = new StringBuilder("SELECT u.id FROM " + users + " u WHERE u.id IN (" + placeholders(ids.size())
+                + ") AND u.deleted_at IS NULL");
+        var selectArgs = new ArrayList<Object>(ids);
+        switch (operation) {
+            case DISABLE -> select.append(" AND u.enabled = TRUE");
+            case ENABLE -> select.append(" AND u.enabled = FALSE");
+            case SOFT_DELETE -> {
+            }
+            case ADD_ROLE -> {
+                select.append(" AND u.id NOT IN (SELECT user_id FROM user_roles WHERE role = ?)");
+                selectArgs.add(job.role());
+            }
+            case REMOVE_ROLE -> {
+                // Users must have at least one role
+                select.append(" AND u.id IN (SELECT user_id FROM user_roles WHERE role = ?)"
+                        + " AND (SELECT COUNT(*) FROM user_roles r WHERE r.user_id = u.id) > 1");
+                selectArgs.add(job.role());
+            }
+        }
+        var candidates = new ArrayList<>(jdbcTemplate.queryForList(select + " ORDER BY u.id FOR UPDATE",
+                Long.class, selectArgs.toArray()));
+
+        boolean removesAdmins = operation == Operation.DISABLE || operation == Operation.SOFT_DELETE
+                || (operation == Operation.REMOVE_ROLE && ADMIN.equals(job.role()));
+        if (removesAdmins) {
+            // Admins cannot disable, delete or demote themselves
+            candidates.remove(job.requestedBy());
+            keepLastAdmin(candidates);
+        }
+
+        int skipped = ids.size() - candidates.size();
+        if (candidates.isEmpty()) {
+            return new ChunkResult(0, skipped, 0);
+        }
+
+        var inCandidates = " WHERE id IN (" + placeholders(candidates.size()) + ")";
+        long epoch = System.currentTimeMillis();
+        var now = Timestamp.valueOf(LocalDateTime.now());
+        switch (operation) {
+            case DISABLE -> jdbcTemplate.update("UPDATE " + users
+                    + " SET enabled = FALSE, token_epoch = GREATEST(token_epoch + 1, ?)" + inCandidates,
+                    args(candidates, epoch));
+            case ENABLE -> jdbcTemplate.update("UPDATE " + users + " SET enabled = TRUE" + inCandidates,
+                    args(candidates));
+            case SOFT_DELETE -> jdbcTemplate.update("UPDATE " + users
+                    + " SET deleted_at = ?, enabled = FALSE, token_epoch = GREATEST(token_epoch + 1, ?),"
+                    + " email = CASE WHEN RIGHT(email, 8) = '_deleted' THEN email ELSE CONCAT(email, '_deleted') END"
+                    + inCandidates, args(candidates, now, epoch));
+            case ADD_ROLE -> jdbcTemplate.update("INSERT INTO user_roles (user_id, role) SELECT id, ? FROM " + users
+                    + inCandidates, args(candidates, job.role()));
+            case REMOVE_ROLE -> {
+                jdbcTemplate.update("DELETE FROM user_roles WHERE role = ? AND user_id IN ("
+                        + placeholders(candidates.size()) + ")", args(candidates, job.role()));
+                // Tokens still carry the removed role
+                jdbcTemplate.update("UPDATE " + users + " SET token_epoch = GREATEST(token_epoch + 1, ?)"
+                        + inCandidates, args(candidates, epoch));
+            }
+        }
+
+        if (job.role() != null) {
+            var action = operation == Operation.ADD_ROLE ? "ADDED" : "REMOVED";
+            jdbcTemplate.update("INSERT INTO role_change_logs (user_id, changed_by_user_id, role, action, changed_at,"
+                            + " user_email, changed_by_email) SELECT id, ?, ?, ?, ?, email, ? FROM " + users + inCandidates,
+                    args(candidates, job.requestedBy(), job.role(), action, now, changedByEmail));
+        }
+
+        if (tokenEpochService != null && operation != Operation.ENABLE && operation != Operation.ADD_ROLE) {
+            jdbcTemplate.query("SELECT id, token_epoch FROM " + users + inCandidates,
+                    (RowCallbackHandler) rs -> tokenEpochService.advance(rs.getLong(1), rs.getLong(2)),
+                    candidates.toArray());
+        }
+        candidates.forEach(snapshotCache::invalidate);
+
+        return new ChunkResult(candidates.size(), skipped, 0);
+    }
+
+    /**
+     * Removes one admin from the candidates if changing all of them would leave no active,
+     * enabled admin. Locks the admins, so concurrent jobs and requests see each other's changes.
+     */
+    private void keepLastAdmin(List<Long> candidates) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        var admins = jdbcTemplate.queryForList("SELECT u.id FROM " + config.getUsersTable() + " u"
+                + " JOIN user_roles r ON r.user_id = u.id WHERE r.role = ? AND u.deleted_at IS NULL"
+                + " AND u.enabled = TRUE ORDER BY u.id FOR UPDATE", Long.class, ADMIN);
+        var remaining = new HashSet<>(admins);
+        candidates.forEach(remaining::remove);
+        if (!admins.isEmpty() && remaining.isEmpty()) {
+            log.info("Keeping admin {}: there must always be at least one admin", admins.getFirst());
+            candidates.remove(admins.getFirst());
+        }
+    }
+
+    private void finish(Job job, BulkUserJob.Status status, String error) {
+        if (error != null && error.length() > 1000) {
+            error = error.substring(0, 1000);
+        }
+        // Keeps the status of a job that was marked as abandoned meanwhile
+        jdbcTemplate.update("UPDATE bulk_user_jobs SET status = ?, error = ?, finished_at = ? WHERE id = ?"
+                        + " AND status IN ('QUEUED', 'RUNNING')",
+                status.name(), error, Timestamp.valueOf(LocalDateTime.now()), job.id());
+    }
+
+    /**
+     * Waits before the next chunk, in proportion to how long the last one took.
+     *
+     * @return false if interrupted, which stops the job
+     */
+    private boolean pauseAfter(long chunkNanos) {
+        var settings = config.getBulkOperations();
+        long pauseNanos = Math.min((long) (chunkNanos * settings.getPauseRatio()), settings.getMaxPause().toNanos());
+        if (pauseNanos <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+            return false;
+        }
+    }
+
+    private static Where whereOf(BulkUserOperationRequest.Filter filter) {
+        var sql = new StringBuilder(" WHERE u.deleted_at IS NULL");
+        var args = new ArrayList<>();
+        if (filter.getRole() != null) {
+            sql.append(" AND u.id IN (SELECT user_id FROM user_roles WHERE role = ?)");
+            args.add(filter.getRole());
+        }
+        if (filter.getEnabled() != null) {
+            sql.append(" AND u.enabled = ?");
+            args.add(filter.getEnabled());
+        }
+        if (filter.getEmailPrefix() != null && !filter.getEmailPrefix().isEmpty()) {
+            sql.append(" AND u.email LIKE ?");
+            args.add(escapeLike(filter.getEmailPrefix()) + "%");
+        }
+        return new Where(sql.toString(), args);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * The leading values followed by the ids, as statement arguments.
+     */
+    private static Object[] args(List<Long> ids, Object... leading) {
+        var args = new ArrayList<>(List.of(leading));
+        args.addAll(ids);
+        return args.toArray();
+    }
+
+    private static BulkUserJob mapJob(ResultSet rs, int rowNum) throws SQLException {
+        long requestedBy = rs.getLong("requested_by");
+        boolean hasRequestedBy = !rs.wasNull();
+        return new BulkUserJob(
+                rs.getString("id"),
+                Operation.valueOf(rs.getString("operation")),
+                rs.getString("role"),
+                BulkUserJob.Status.valueOf(rs.getString("status")),
+                hasRequestedBy ? requestedBy : null,
+                rs.getLong("total"),
+                rs.getLong("processed"),
+                rs.getLong("updated"),
+                rs.getLong("skipped"),
+                rs.getLong("failed"),
+                rs.getString("error"),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                toLocalDateTime(rs.getTimestamp("started_at")),
+                toLocalDateTime(rs.getTimestamp("finished_at")));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    /**
+     * A submitted job: the operation and either the sorted ids or the filter.
+     */
+    private record Job(String id, Operation operation, String role, Long requestedBy,
+                       List<Long> userIds, BulkUserOperationRequest.Filter filter) {
+    }
+
+    private record Where(String sql, List<Object> args) {
+    }
+
+    private record ChunkResult(int updated, int skipped, int failed) {
+    }
+}
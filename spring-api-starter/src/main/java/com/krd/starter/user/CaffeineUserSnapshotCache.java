@@ -0,0 +1,85 @@
+package com.krd.starter.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.LongFunction;
+
+/**
+ * In-memory {@link UserSnapshotCache} backed by Caffeine.
+ * <p>
+ * Entries expire after a fixed time to live, which bounds how stale a snapshot can get
+ * when a user is changed without invalidating it (e.g. by another instance when no
+ * change log is configured).
+ * <p>
+ * A snapshot is loaded atomically with its entry, so {@link #invalidate(long)} waits for a
+ * load in progress and removes what it loaded. Loads of other users that share the entry's
+ * hash bin wait as well, so loaders must be short and must not read this cache.
+ * <p>
+ * Enable it in your application.yaml:
+ * <pre>
+ * app:
+ *   user:
+ *     snapshot-cache:
+ *       enabled: true
+ *       maximum-size: 10000
+ *       time-to-live: 5m
+ * </pre>
+ */
+public class CaffeineUserSnapshotCache implements UserSnapshotCache {
+
+    private final Cache<Long, Object> cache;
+
+    /**
+     * Creates the cache.
+     *
+     * @param maximumSize maximum number of cached users
+     * @param timeToLive how long a snapshot is served after it was loaded
+     */
+    public CaffeineUserSnapshotCache(long maximumSize, Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S> S get(long userId, LongFunction<S> loader) {
+        // Loaded under the entry's lock: an invalidate during the load waits for it and then
+        // drops the loaded snapshot, which may predate the change
+        return (S) cache.get(userId, loader::apply);
+    }
+
+    @Override
+    public void invalidate(long userId) {
+        cache.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns hit, miss and eviction statistics.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
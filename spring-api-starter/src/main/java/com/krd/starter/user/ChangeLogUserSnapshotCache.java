@@ -0,0 +1,114 @@
+package com.krd.starter.user;
+
+import com.krd.starter.scheduling.SingleNodeJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.LongFunction;
+
+/**
+ * {@link UserSnapshotCache} that keeps the snapshot caches of several instances consistent
+ * through the {@code user_changes} table.
+ * <p>
+ * Every invalidation is applied to the local cache and recorded as a row in
+ * {@code user_changes}. Each instance polls the table for changes recorded since its last
+ * poll and invalidates those users, so a change made on one instance reaches every other
+ * instance within one poll interval. Rows older than the cache's time to live can no
+ * longer matter and are deleted.
+ * <p>
+ * Enable it in your application.yaml (requires the {@code user_changes} table):
+ * <pre>
+ * app:
+ *   user:
+ *     snapshot-cache:
+ *       enabled: true
+ *       change-log-enabled: true
+ *       poll-interval: 5s
+ * </pre>
+ */
+@Slf4j
+public class ChangeLogUserSnapshotCache implements UserSnapshotCache {
+
+    /**
+     * Overlap between polls, so changes are not missed due to clock skew or late commits.
+     */
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+
+    private final UserSnapshotCache delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private volatile Instant lastPoll = Instant.now();
+
+    /**
+     * Creates the cache.
+     *
+     * @param delegate the local cache
+     * @param jdbcTemplate the JDBC template
+     * @param retention how long change rows are kept (at least the local cache's time to live)
+     */
+    public ChangeLogUserSnapshotCache(UserSnapshotCache delegate, JdbcTemplate jdbcTemplate, Duration retention) {
+        this.delegate = delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention.plus(POLL_OVERLAP);
+    }
+
+    @Override
+    public <S> S get(long userId, LongFunction<S> loader) {
+        return delegate.get(userId, loader);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The change is recorded in {@code user_changes} as part of the current transaction,
+     * if any, so other instances only see committed changes.
+     */
+    @Override
+    public void invalidate(long userId) {
+        delegate.invalidate(userId);
+        jdbcTemplate.update("INSERT INTO user_changes (user_id, changed_at) VALUES (?, ?)",
+                userId, Timestamp.from(Instant.now()));
+    }
+
+    @Override
+    public void invalidateAll() {
+        delegate.invalidateAll();
+    }
+
+    /**
+     * Invalidates users changed by any instance since the last poll.
+     * <p>
+     * Runs every {@code app.user.snapshot-cache.poll-interval} (default: 5 seconds).
+     */
+    @Scheduled(fixedDelayString = "${app.user.snapshot-cache.poll-interval:5s}")
+    public void poll() {
+        var now = Instant.now();
+        var count = new int[1];
+        jdbcTemplate.query("SELECT DISTINCT user_id FROM user_changes WHERE changed_at >= ?", rs -> {
+            delegate.invalidate(rs.getLong("user_id"));
+            count[0]++;
+        }, Timestamp.from(lastPoll.minus(POLL_OVERLAP)));
+        lastPoll = now;
+        if (count[0] > 0) {
+            log.debug("Invalidated {} changed user snapshot(s)", count[0]);
+        }
+    }
+
+    /**
+     * Deletes change rows that are older than any cached snapshot.
+     * <p>
+     * Runs once per {@code app.user.snapshot-cache.time-to-live} (default: 5 minutes), on one
+     * instance at a time when scheduler leases are enabled.
+     */
+    @Scheduled(fixedDelayString = "${app.user.snapshot-cache.time-to-live:5m}",
+            initialDelayString = "${app.user.snapshot-cache.time-to-live:5m}")
+    @SingleNodeJob(value = "user-changes-cleanup", leaseTime = "PT1M")
+    public void deleteOldChanges() {
+        jdbcTemplate.update("DELETE FROM user_changes WHERE changed_at < ?",
+                Timestamp.from(Instant.now().minus(retention)));
+    }
+}
@@ -0,0 +1,105 @@
+package com.krd.starter.user;
+
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * The authenticated caller of the current request.
+ * <p>
+ * The caller's user entity is loaded at most once per request and kept in a request
+ * attribute, so services that need it for authorization and auditing share one lookup:
+ * <pre>
+ * {@code
+ * @Service
+ * public class OrderService {
+ *     private final CurrentIdentity currentIdentity;
+ *     private final UserRepository userRepository;
+ *
+ *     public Order placeOrder(OrderRequest request) {
+ *         var user = currentIdentity.getUser(userRepository).orElseThrow();
+ *         ...
+ *     }
+ * }
+ * }
+ * </pre>
+ * The user id is read from the security context on every call: the JWT filter stores it
+ * as the principal, so reading it is cheaper than caching it.
+ * <p>
+ * Outside a request (e.g. scheduled jobs or the password hashing pool) nothing is kept,
+ * and every call loads the user.
+ *
+ * @see BaseUserService
+ * @see com.krd.starter.jwt.BaseAuthService
+ */
+public class CurrentIdentity {
+
+    private static final String USER_ATTRIBUTE = CurrentIdentity.class.getName() + ".user";
+
+    /**
+     * Returns the id of the authenticated user.
+     *
+     * @return the user ID, or null if the caller is not authenticated with a token
+     */
+    public Long getUserId() {
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Long userId) {
+            return userId;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the authenticated user, loading it on the first call of the request.
+     *
+     * @param repository the repository to load the user from
+     * @param <T> the user entity type
+     * @return the authenticated user, or empty if the caller is not authenticated or the
+     *         user does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BaseUser> Optional<T> getUser(BaseUserRepository<T> repository) {
+        var userId = getUserId();
+        if (userId == null) {
+            return Optional.empty();
+        }
+
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return repository.findById(userId);
+        }
+        if (attributes.getAttribute(USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Resolved resolved
+                && resolved.userId() == userId) {
+            return (Optional<T>) resolved.user();
+        }
+
+        var user = repository.findById(userId);
+        attributes.setAttribute(USER_ATTRIBUTE, new Resolved(userId, user), RequestAttributes.SCOPE_REQUEST);
+        return user;
+    }
+
+    /**
+     * Replaces the loaded user after it was changed, if it is the authenticated user.
+     * Later calls of {@link #getUser} in the same request return the changed user, or
+     * nothing once it is deleted.
+     *
+     * @param user the changed user
+     */
+    public void userChanged(BaseUser user) {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && user.getId() != null && user.getId().equals(getUserId())) {
+            var current = user.getDeletedAt() == null ? Optional.of(user) : Optional.empty();
+            attributes.setAttribute(USER_ATTRIBUTE, new Resolved(user.getId(), current),
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * The user loaded for a user id, kept so a change of the authenticated user within the
+     * request (e.g. a login) is noticed.
+     */
+    private record Resolved(long userId, Optional<?> user) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.krd.starter.user;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * {@link UserMetrics} backed by Micrometer meters.
+ * <p>
+ * Published meters:
+ * <ul>
+ *   <li>{@code krd.user.password.hashing} - timer of the password encoder, tagged
+ *       {@code operation=login|register|change_password|import}; {@code login} is the
+ *       rehash of an outdated hash</li>
+ *   <li>{@code krd.user.login} - timer of the credential check of logins (user lookup and
+ *       password check), tagged {@code outcome=success|failure}</li>
+ *   <li>{@code krd.user.password.hashing.rejected} - counter of requests rejected because
+ *       the password hashing queue was full</li>
+ *   <li>{@code krd.user.hard.delete} - timer of the scheduled hard delete runs</li>
+ *   <li>{@code krd.user.hard.delete.batch} - timer of the batches of those runs</li>
+ *   <li>{@code krd.user.hard.delete.rows} - counter of users handled by those runs, tagged
+ *       {@code outcome=deleted|failed}, updated after every batch</li>
+ *   <li>{@code krd.user.audit.queue} - gauge of role change audit records waiting to be
+ *       written, when the asynchronous audit writer is enabled</li>
+ *   <li>{@code krd.user.audit.batch} - timer of the batch inserts of that writer</li>
+ *   <li>{@code krd.user.audit.dropped} - counter of role change audit records that were
+ *       not queued or not written (spooled records included)</li>
+ * </ul>
+ */
+public class MicrometerUserMetrics implements UserMetrics {
+
+    private final Timer[] passwordHashing;
+    private final Timer loginSucceeded;
+    private final Timer loginFailed;
+    private final Counter passwordHashingRejected;
+    private final Timer hardDelete;
+    private final Timer hardDeleteBatch;
+    private final Counter hardDeleted;
+    private final Counter hardDeleteFailed;
+    private final Timer auditBatch;
+    private final Counter auditDropped;
+    private final MeterRegistry registry;
+
+    public MicrometerUserMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        var operations = PasswordOperation.values();
+        this.passwordHashing = new Timer[operations.length];
+        for (var operation : operations) {
+            passwordHashing[operation.ordinal()] = Timer.builder("krd.user.password.hashing")
+                    .description("Time spent hashing and checking passwords")
+                    .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        this.loginSucceeded = loginTimer(registry, "success");
+        this.loginFailed = loginTimer(registry, "failure");
+        this.passwordHashingRejected = Counter.builder("krd.user.password.hashing.rejected")
+                .description("Requests rejected because the password hashing queue was full")
+                .register(registry);
+        this.hardDelete = Timer.builder("krd.user.hard.delete")
+                .description("Duration of scheduled hard deletes of soft-deleted users")
+                .register(registry);
+        this.hardDeleteBatch = Timer.builder("krd.user.hard.delete.batch")
+                .description("Duration of single batches of scheduled hard deletes")
+                .register(registry);
+        this.hardDeleted = hardDeleteCounter(registry, "deleted");
+        this.hardDeleteFailed = hardDeleteCounter(registry, "failed");
+        this.auditBatch = Timer.builder("krd.user.audit.batch")
+                .description("Duration of role change audit batch inserts")
+                .register(registry);
+        this.auditDropped = Counter.builder("krd.user.audit.dropped")
+                .description("Role change audit records not queued or not written")
+                .register(registry);
+    }
+
+    @Override
+    public void passwordHashed(PasswordOperation operation, long nanos) {
+        passwordHashing[operation.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void loginAuthenticated(boolean authenticated, long nanos) {
+        (authenticated ? loginSucceeded : loginFailed).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void passwordHashingRejected() {
+        passwordHashingRejected.increment();
+    }
+
+    @Override
+    public void hardDeleteBatchCompleted(int deleted, int failed, long nanos) {
+        hardDeleteBatch.record(nanos, TimeUnit.NANOSECONDS);
+        hardDeleted.increment(deleted);
+        hardDeleteFailed.increment(failed);
+    }
+
+    @Override
+    public void hardDeleteCompleted(int deleted, int failed, long nanos) {
+        hardDelete.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void auditQueueCreated(IntSupplier depth) {
+        Gauge.builder("krd.user.audit.queue", depth, IntSupplier::getAsInt)
+                .description("Role change audit records waiting to be written")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    @Override
+    public void auditBatchWritten(int records, long nanos) {
+        auditBatch.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void auditRecordsDropped(int records) {
+        auditDropped.increment(records);
+    }
+
+    private static Timer loginTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("krd.user.login")
+                .description("Duration of login credential checks")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter hardDeleteCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("krd.user.hard.delete.rows")
+                .description("Users handled by scheduled hard deletes")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,111 @@
+package com.krd.starter.user;
+
+import com.krd.starter.user.exception.PasswordHashingRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded thread pool for password hashing work (login, registration and password change).
+ * <p>
+ * BCrypt is deliberately slow and CPU bound. Running it on servlet threads lets a burst of
+ * logins occupy every request thread, stalling cheap requests behind it. This executor
+ * runs the work on a fixed number of threads (by default one per core) with a bounded
+ * queue. The default {@code PasswordEncoder} is a {@link PooledPasswordEncoder}, which
+ * submits only {@code encode} and {@code matches} here; repository access stays on the
+ * request thread.
+ * <p>
+ * When the queue is full, work is rejected immediately with a
+ * {@link PasswordHashingRejectedException} (503 Service Unavailable with {@code Retry-After})
+ * instead of queueing without limit.
+ * <p>
+ * Configure it in your application.yaml:
+ * <pre>
+ * app:
+ *   user:
+ *     password-hashing:
+ *       threads: 0          # 0 = number of available processors
+ *       queue-capacity: 64
+ * </pre>
+ *
+ * @see PooledPasswordEncoder
+ */
+@Slf4j
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private UserMetrics metrics = UserMetrics.NOOP;
+
+    /**
+     * Creates the executor.
+     *
+     * @param threads the number of hashing threads (0 or less for one per available processor)
+     * @param queueCapacity the maximum number of tasks waiting for a thread
+     */
+    public PasswordHashingExecutor(int threads, int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        var threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    var thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Password hashing executor started with {} thread(s) and a queue of {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Sets the metrics rejections are reported to.
+     *
+     * @param metrics the metrics
+     */
+    public void setMetrics(UserMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs a task on a hashing thread.
+     * <p>
+     * The caller's security context is available to the task.
+     *
+     * @param task the task, typically hashing or checking a password
+     * @param <R> the result type
+     * @return a future completed with the task's result, or exceptionally with its exception
+     * @throws PasswordHashingRejectedException if the queue is full
+     */
+    public <R> CompletableFuture<R> submit(Supplier<R> task) {
+        var securityContext = SecurityContextHolder.getContext();
+        var future = new CompletableFuture<R>();
+        try {
+            executor.execute(() -> {
+                SecurityContextHolder.setContext(securityContext);
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            metrics.passwordHashingRejected();
+            throw new PasswordHashingRejectedException();
+        }
+        return future;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,81 @@
+package com.krd.starter.user;
+
+import com.krd.starter.user.exception.PasswordHashingRejectedException;
+import lombok.Getter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * {@link PasswordEncoder} that runs {@code encode} and {@code matches} on the
+ * {@link PasswordHashingExecutor}.
+ * <p>
+ * Only the BCrypt work occupies a hashing thread; the rest of a login, registration or
+ * password change (repository lookups, saves, token issuance) stays on the request thread,
+ * which waits for the hash. Since the executor's queue is bounded, at most
+ * {@code threads + queue-capacity} requests wait for a hash at any time, and further ones
+ * fail immediately with {@link PasswordHashingRejectedException}.
+ *
+ * @see PasswordHashingExecutor
+ */
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    /**
+     * The encoder doing the actual work.
+     */
+    @Getter
+    private final PasswordEncoder delegate;
+
+    private final PasswordHashingExecutor executor;
+
+    /**
+     * Creates the encoder.
+     *
+     * @param delegate the encoder doing the actual work
+     * @param executor the pool to run it on
+     */
+    public PooledPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    /**
+     * @throws PasswordHashingRejectedException if the hashing queue is full
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return await(executor.submit(() -> delegate.encode(rawPassword)));
+    }
+
+    /**
+     * @throws PasswordHashingRejectedException if the hashing queue is full
+     */
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(executor.submit(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Runs on the calling thread; it only inspects the stored hash.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static <R> R await(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Rethrow what the delegate threw, as if it had run on this thread
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
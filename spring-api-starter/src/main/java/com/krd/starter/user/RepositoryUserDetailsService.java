@@ -0,0 +1,35 @@
+package com.krd.starter.user;
+
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+/**
+ * {@link UserDetailsService} that loads users by email through the {@link BaseUserRepository}.
+ * <p>
+ * The user and its roles are loaded with a single query and returned as an
+ * {@link AuthenticatedUser}, which stays the principal of the login {@code Authentication}.
+ * A login therefore costs one indexed lookup and one password check.
+ * <p>
+ * Outdated password hashes are upgraded by {@link com.krd.starter.jwt.BaseAuthService}
+ * after a successful login, so this service does not implement
+ * {@code UserDetailsPasswordService}.
+ * <p>
+ * Registered automatically unless the application defines its own {@link UserDetailsService}.
+ *
+ * @param <T> the user entity type
+ */
+public class RepositoryUserDetailsService<T extends BaseUser> implements UserDetailsService {
+
+    private final BaseUserRepository<T> userRepository;
+
+    public RepositoryUserDetailsService(BaseUserRepository<T> userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public AuthenticatedUser<T> loadUserByUsername(String email) {
+        return userRepository.findByEmailForAuthentication(email)
+                .map(AuthenticatedUser::new)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    }
+}
@@ -0,0 +1,303 @@
+package com.krd.starter.user;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes {@link RoleChangeLog} records behind the request, in JDBC batches.
+ * <p>
+ * {@link BaseUserService} hands each record to {@link #submit(RoleChangeLog)}, which only
+ * puts it on a bounded in-memory queue (after commit, inside a transaction). A single writer
+ * thread drains the queue into {@code role_change_logs} with batch inserts, flushing when
+ * {@code batch-size} records are waiting or {@code flush-interval} has passed.
+ * <p>
+ * When the queue is full, records are dropped and counted. With a {@code spool-file},
+ * records that are dropped or cannot be written (e.g. while the database is down) are
+ * appended to that file instead, and written to the database in one transaction on the next
+ * start. Spooled lines that cannot be parsed are moved to {@code <spool-file>.bad}. On graceful
+ * shutdown the queue is drained completely before the application context closes; records
+ * still in memory when the process is killed are lost.
+ * <p>
+ * Enable it in your application.yaml:
+ * <pre>
+ * app:
+ *   user:
+ *     role-change-audit:
+ *       async-enabled: true
+ *       queue-capacity: 10000
+ *       batch-size: 100
+ *       flush-interval: 1s
+ *       spool-file: /var/lib/myapp/role-change-audit.spool
+ * </pre>
+ */
+@Slf4j
+public class RoleChangeAuditWriter implements SmartLifecycle {
+
+    private static final String INSERT = "INSERT INTO role_change_logs "
+            + "(user_id, changed_by_user_id, role, action, changed_at, user_email, changed_by_email) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * How long shutdown waits for the queue to drain.
+     */
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate replayTransaction;
+    private final BlockingQueue<RoleChangeLog> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Path spoolFile;
+    private final ObjectMapper spoolMapper = JsonMapper.builder().findAndAddModules().build();
+    private UserMetrics metrics = UserMetrics.NOOP;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Creates the writer.
+     *
+     * @param jdbcTemplate the JDBC template
+     * @param transactionManager the transaction manager, for replaying the spool file atomically
+     * @param queueCapacity maximum number of records waiting to be written
+     * @param batchSize maximum number of records per batch insert
+     * @param flushInterval longest time a record waits before it is written
+     * @param spoolFile file for records that are dropped or cannot be written, or null
+     */
+    public RoleChangeAuditWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 int queueCapacity, int batchSize, Duration flushInterval, Path spoolFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.replayTransaction = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.spoolFile = spoolFile;
+    }
+
+    /**
+     * Sets the metrics to report queue depth, written batches and dropped records to.
+     *
+     * @param metrics the metrics
+     */
+    public void setMetrics(UserMetrics metrics) {
+        this.metrics = metrics;
+        metrics.auditQueueCreated(queue::size);
+    }
+
+    /**
+     * Queues a record for writing. Inside a transaction, it is only queued after commit.
+     *
+     * @param log the role change
+     */
+    public void submit(RoleChangeLog log) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(log);
+                }
+            });
+        } else {
+            enqueue(log);
+        }
+    }
+
+    private void enqueue(RoleChangeLog record) {
+        if (!running) {
+            // Not started yet or already stopped: write on the caller's thread
+            writeOrSpool(List.of(record));
+            return;
+        }
+        if (!queue.offer(record)) {
+            metrics.auditRecordsDropped(1);
+            if (spoolFile != null) {
+                spool(List.of(record));
+            } else {
+                log.warn("Role change audit queue is full, dropped: user {} {} {}",
+                        record.getUserId(), record.getAction(), record.getRole());
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        replaySpool();
+        running = true;
+        writer = new Thread(this::drain, "role-change-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        // No interrupt: an interrupted thread can fail to borrow a pooled connection.
+        // The writer notices within one flush interval.
+        try {
+            writer.join(DRAIN_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever the writer did not get to
+        var remaining = new ArrayList<RoleChangeLog>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeOrSpool(remaining);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops before most other beans, so records are written while the data source is open.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1000;
+    }
+
+    private void drain() {
+        var batch = new ArrayList<RoleChangeLog>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    long waitNanos = deadline - System.nanoTime();
+                    var record = waitNanos > 0 && running ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (record == null) {
+                        break;
+                    }
+                    batch.add(record);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch, batchSize - batch.size());
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                writeOrSpool(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeOrSpool(List<RoleChangeLog> batch) {
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(INSERT, batch.stream().map(RoleChangeAuditWriter::toRow).toList());
+            metrics.auditBatchWritten(batch.size(), System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} role change audit record(s): {}", batch.size(), e.getMessage(), e);
+            metrics.auditRecordsDropped(batch.size());
+            if (spoolFile != null) {
+                spool(batch);
+            }
+        }
+    }
+
+    private static Object[] toRow(RoleChangeLog log) {
+        return new Object[]{log.getUserId(), log.getChangedByUserId(), log.getRole(), log.getAction(),
+                Timestamp.valueOf(log.getChangedAt()), log.getUserEmail(), log.getChangedByEmail()};
+    }
+
+    private synchronized void spool(List<RoleChangeLog> records) {
+        try {
+            var lines = new ArrayList<String>(records.size());
+            for (var record : records) {
+                lines.add(spoolMapper.writeValueAsString(record));
+            }
+            Files.write(spoolFile, lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Failed to spool {} role change audit record(s) to {}", records.size(), spoolFile, e);
+        }
+    }
+
+    /**
+     * Writes the records spooled by an earlier run in one transaction, then removes the spool
+     * file. If anything fails, nothing is written and the file is kept for the next start.
+     * Lines that cannot be parsed are moved to {@code <spool-file>.bad} instead.
+     */
+    private synchronized void replaySpool() {
+        if (spoolFile == null || !Files.exists(spoolFile)) {
+            return;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(spoolFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("Failed to read role change audit spool {}, keeping it", spoolFile, e);
+            return;
+        }
+
+        var records = new ArrayList<RoleChangeLog>(lines.size());
+        var malformed = new ArrayList<String>();
+        for (var line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                records.add(spoolMapper.readValue(line, RoleChangeLog.class));
+            } catch (JsonProcessingException e) {
+                malformed.add(line);
+            }
+        }
+
+        try {
+            replayTransaction.executeWithoutResult(status -> {
+                for (int from = 0; from < records.size(); from += batchSize) {
+                    jdbcTemplate.batchUpdate(INSERT, records.subList(from, Math.min(from + batchSize, records.size()))
+                            .stream().map(RoleChangeAuditWriter::toRow).toList());
+                }
+            });
+        } catch (RuntimeException e) {
+            // Rolled back; the file is retried on the next start
+            log.error("Failed to write spooled role change audit records from {}: {}", spoolFile, e.getMessage(), e);
+            return;
+        }
+
+        try {
+            if (!malformed.isEmpty()) {
+                var quarantine = spoolFile.resolveSibling(spoolFile.getFileName() + ".bad");
+                Files.write(quarantine, malformed, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                log.warn("Moved {} unreadable role change audit record(s) from {} to {}",
+                        malformed.size(), spoolFile, quarantine);
+            }
+            Files.delete(spoolFile);
+        } catch (IOException e) {
+            // The records are already written; replaying the file again would duplicate them
+            log.error("Wrote spooled role change audit records but could not remove {}; delete it manually",
+                    spoolFile, e);
+            return;
+        }
+        log.info("Wrote {} spooled role change audit record(s) from {}", records.size(), spoolFile);
+    }
+}
@@ -0,0 +1,50 @@
+package com.krd.starter.user;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated user listing: the sort key and id of the last user of a
+ * page. The next page starts after it.
+ * <p>
+ * Clients only see the encoded form, which they must treat as opaque.
+ *
+ * @param sort the field the listing is sorted by
+ * @param id the id of the last user of the page
+ * @param key the sort key of the last user of the page, null if the user has none
+ */
+record UserCursor(String sort, long id, String key) {
+
+    /**
+     * Encodes the cursor as URL-safe text.
+     *
+     * @return the encoded cursor
+     */
+    String encode() {
+        // A present key is marked, so that a null key differs from an empty one
+        var text = sort + '\n' + id + '\n' + (key != null ? "=" + key : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor returned by {@link #encode()}.
+     *
+     * @param cursor the encoded cursor
+     * @return the cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static UserCursor decode(String cursor) {
+        try {
+            var text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var parts = text.split("\n", 3);
+            if (parts.length != 3 || !(parts[2].isEmpty() || parts[2].startsWith("="))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            var key = parts[2].isEmpty() ? null : parts[2].substring(1);
+            return new UserCursor(parts[0], Long.parseLong(parts[1]), key);
+        } catch (IllegalArgumentException e) {
+            // Also covers bad Base64 and NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
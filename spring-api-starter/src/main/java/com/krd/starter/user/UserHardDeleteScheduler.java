@@ -1,13 +1,24 @@
 package com.krd.starter.user;
 
+import com.krd.starter.scheduling.SingleNodeJob;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Scheduled service for automatically hard deleting soft-deleted users after a configurable period.
@@ -22,9 +33,28 @@ import java.util.List;
  *     hard-delete-enabled: true  # Enable/disable the scheduled task
  *     hard-delete-after-days: 180  # Days to keep soft-deleted users
  *     hard-delete-cron: "0 0 2 * * *"  # When to run (2 AM daily)
+ *     hard-delete-batch-size: 500  # Users deleted per transaction
+ *     hard-delete-pause-ratio: 1.0  # Pause after a batch, relative to its duration
  * </pre>
  * <p>
+ * Users are deleted in batches: ids are walked in ascending order, and each batch is
+ * removed with set-based {@code DELETE ... WHERE id IN (...)} statements in its own short
+ * transaction, so locks are held briefly and memory does not depend on how many users
+ * expire. After each batch the task pauses in proportion to how long the batch took, which
+ * backs off automatically while the database is busy. If a batch fails (e.g. a foreign key
+ * of your own table), its users are retried one by one and only the failing ones are skipped.
+ * <p>
+ * Batch deletes use SQL and bypass JPA: entity listeners are not called and only the
+ * {@code user_roles} rows are removed along with the users. Tables of your own that reference
+ * users need {@code ON DELETE CASCADE} or {@code SET NULL}.
+ * <p>
+ * With {@code app.scheduling.leases.enabled=true}, only one instance of the cluster runs
+ * the task at a time ({@link SingleNodeJob}).
+ * <p>
  * The scheduler is only enabled if {@code app.user.hard-delete-enabled=true} (default).
+ * <p>
+ * The duration of each run and batch and the number of deleted users are reported to
+ * {@link UserMetrics} as the run progresses.
  *
  * @param <T> The concrete user entity type extending BaseUser
  */
@@ -40,11 +70,40 @@ public class UserHardDeleteScheduler<T extends BaseUser> {
 
     private final BaseUserRepository<T> userRepository;
     private final UserManagementConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate batchTransaction;
+    private UserMetrics metrics = UserMetrics.NOOP;
+    private UserSnapshotCache snapshotCache = UserSnapshotCache.NONE;
 
     public UserHardDeleteScheduler(BaseUserRepository<T> userRepository,
-                                   UserManagementConfig config) {
+                                   UserManagementConfig config,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Injects the metrics to report to, when a {@link UserMetrics} bean exists.
+     *
+     * @param metrics the metrics
+     */
+    @Autowired(required = false)
+    public void setMetrics(UserMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Injects the user snapshot cache, when it is enabled.
+     *
+     * @param snapshotCache the user snapshot cache
+     */
+    @Autowired(required = false)
+    public void setSnapshotCache(UserSnapshotCache snapshotCache) {
+        this.snapshotCache = snapshotCache;
     }
 
     /**
@@ -55,49 +114,127 @@ public class UserHardDeleteScheduler<T extends BaseUser> {
      * <p>
      * This method:
      * 1. Calculates the threshold date (now - configured days)
-     * 2. Finds all users soft-deleted before that date
-     * 3. Permanently deletes them from the database
-     * 4. Logs the operation for audit purposes
+     * 2. Selects the next batch of ids of users soft-deleted before that date
+     * 3. Permanently deletes the batch in its own transaction
+     * 4. Pauses, then continues after the last id until no users are left
+     * 5. Logs the operation for audit purposes
      */
     @Scheduled(cron = "${app.user.hard-delete-cron:0 0 2 * * *}")
-    @Transactional
+    @SingleNodeJob(value = "user-hard-delete", leaseTime = "PT10M")
     public void hardDeleteOldSoftDeletedUsers() {
+        long start = System.nanoTime();
         log.info("Starting scheduled hard delete of old soft-deleted users...");
         log.info("Hard delete threshold: {} days", config.getHardDeleteAfterDays());
 
-        LocalDateTime threshold = LocalDateTime.now()
-            .minusDays(config.getHardDeleteAfterDays());
+        var threshold = Timestamp.valueOf(LocalDateTime.now().minusDays(config.getHardDeleteAfterDays()));
+        int batchSize = Math.max(1, config.getHardDeleteBatchSize());
+        var selectBatch = "SELECT id FROM " + config.getUsersTable()
+                + " WHERE deleted_at IS NOT NULL AND deleted_at < ? AND id > ? ORDER BY id LIMIT ?";
 
-        log.debug("Querying for users soft-deleted before: {}", threshold);
+        log.debug("Deleting users soft-deleted before {} in batches of {}", threshold, batchSize);
 
-        List<T> usersToDelete = userRepository.findByDeletedAtBefore(threshold);
+        int deletedCount = 0;
+        int failedCount = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(selectBatch, Long.class, threshold, afterId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.getLast();
+
+            long batchStart = System.nanoTime();
+            var result = deleteBatch(ids, threshold);
+            long batchNanos = System.nanoTime() - batchStart;
+
+            deletedCount += result.deleted();
+            failedCount += result.failed();
+            metrics.hardDeleteBatchCompleted(result.deleted(), result.failed(), batchNanos);
+            log.info("Hard deleted {} of {} user(s) up to id {} ({} deleted so far)",
+                result.deleted(), ids.size(), afterId, deletedCount);
+
+            if (ids.size() < batchSize || !pauseAfter(batchNanos)) {
+                break;
+            }
+        }
 
-        if (usersToDelete.isEmpty()) {
+        if (deletedCount == 0 && failedCount == 0) {
             log.info("No users found for hard deletion");
-            return;
+        } else {
+            log.info("Hard delete completed: {} of {} user(s) successfully deleted",
+                deletedCount, deletedCount + failedCount);
         }
+        metrics.hardDeleteCompleted(deletedCount, failedCount, System.nanoTime() - start);
+    }
 
-        log.info("Found {} user(s) to hard delete", usersToDelete.size());
+    /**
+     * Deletes a batch in one transaction, or user by user if the batch fails, and drops the
+     * snapshots of the deleted users once their transaction committed.
+     */
+    private BatchResult deleteBatch(List<Long> ids, Timestamp threshold) {
+        try {
+            int deleted = batchTransaction.execute(status -> deleteUsers(ids, threshold));
+            ids.forEach(snapshotCache::invalidate);
+            return new BatchResult(deleted, 0);
+        } catch (DataAccessException e) {
+            log.warn("Failed to hard delete a batch of {} user(s), retrying one by one: {}",
+                ids.size(), e.getMessage());
+        }
 
-        int deletedCount = 0;
-        for (T user : usersToDelete) {
+        int deleted = 0;
+        int failed = 0;
+        for (Long id : ids) {
             try {
-                log.info("Hard deleting user: id={}, email={}, deletedAt={}",
-                    user.getId(), user.getEmail(), user.getDeletedAt());
-
-                userRepository.delete(user);
-                deletedCount++;
-
-                log.debug("Successfully hard deleted user: {}", user.getEmail());
-            } catch (Exception e) {
-                log.error("Failed to hard delete user: id={}, email={}. Error: {}",
-                    user.getId(), user.getEmail(), e.getMessage(), e);
+                deleted += batchTransaction.execute(status -> deleteUsers(List.of(id), threshold));
+                snapshotCache.invalidate(id);
+            } catch (DataAccessException e) {
+                failed++;
+                log.error("Failed to hard delete user: id={}. Error: {}", id, e.getMessage(), e);
                 // Continue with next user even if one fails
             }
         }
+        return new BatchResult(deleted, failed);
+    }
+
+    /**
+     * Deletes users and their roles. The soft delete condition is checked again, so a user
+     * reactivated since the batch was selected is kept.
+     */
+    private int deleteUsers(List<Long> ids, Timestamp threshold) {
+        var inIds = "id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+        var condition = " WHERE " + inIds + " AND deleted_at IS NOT NULL AND deleted_at < ?";
+        var args = new ArrayList<Object>(ids);
+        args.add(threshold);
 
-        log.info("Hard delete completed: {} of {} user(s) successfully deleted",
-            deletedCount, usersToDelete.size());
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id IN (SELECT id FROM "
+                + config.getUsersTable() + condition + ")", args.toArray());
+        return jdbcTemplate.update("DELETE FROM " + config.getUsersTable() + condition, args.toArray());
+    }
+
+    /**
+     * Waits before the next batch, in proportion to how long the last one took.
+     *
+     * @return false if interrupted, which stops the run
+     */
+    private boolean pauseAfter(long batchNanos) {
+        if (Thread.currentThread().isInterrupted()) {
+            // The job lost its lease to another instance, or the application is stopping
+            log.warn("Hard delete interrupted, remaining users are deleted on the next run");
+            return false;
+        }
+        long pauseNanos = Math.min((long) (batchNanos * config.getHardDeletePauseRatio()),
+            config.getHardDeleteMaxPause().toNanos());
+        if (pauseNanos <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Hard delete interrupted, remaining users are deleted on the next run");
+            return false;
+        }
     }
 
     /**
@@ -128,7 +265,11 @@ public class UserHardDeleteScheduler<T extends BaseUser> {
             user.getId(), user.getEmail(), user.getDeletedAt());
 
         userRepository.delete(user);
+        snapshotCache.invalidate(user.getId());
 
         log.info("Successfully hard deleted user: {}", user.getEmail());
     }
+
+    private record BatchResult(int deleted, int failed) {
+    }
 }
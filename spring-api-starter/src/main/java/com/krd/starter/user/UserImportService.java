@@ -0,0 +1,531 @@
+package com.krd.starter.user;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.krd.starter.user.UserMetrics.PasswordOperation;
+import com.krd.starter.user.dto.UserImportResult;
+import com.krd.starter.user.dto.UserImportRow;
+import com.krd.starter.user.dto.UserImportSummary;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Imports users in bulk from CSV or NDJSON, e.g. to onboard a tenant.
+ * <p>
+ * The input is read one row at a time and handled in chunks of {@code chunk-size} rows, so
+ * memory does not depend on the size of the import. For every chunk:
+ * <ol>
+ *   <li>Rows are validated like registrations, and duplicates within the import are rejected</li>
+ *   <li>Emails and usernames already taken are found with one query for the whole chunk</li>
+ *   <li>Passwords are hashed in parallel on a dedicated pool, by default one thread per
+ *       core; rows with a {@code passwordHash} are imported without hashing</li>
+ *   <li>The users and their USER role are inserted with JDBC batch statements in one short
+ *       transaction; if that fails, rows are retried one by one</li>
+ * </ol>
+ * The outcome of every row is passed to the caller as soon as its chunk is done, which
+ * {@link BaseUserController} streams back to the client.
+ * <p>
+ * Imports use SQL and bypass JPA: entity listeners are not called and only the columns of
+ * {@link BaseUser} are set, so columns of your own entity need defaults. Unlike registration,
+ * an email of a soft-deleted account is rejected instead of reactivating the account.
+ * <p>
+ * Enable it in your application.yaml:
+ * <pre>
+ * app:
+ *   user:
+ *     bulk-import:
+ *       enabled: true
+ *       chunk-size: 1000
+ *       hashing-threads: 0  # 0 = number of available processors
+ * </pre>
+ */
+@Slf4j
+public class UserImportService implements DisposableBean {
+
+    /**
+     * Input formats.
+     */
+    public enum Format {
+
+        /**
+         * Comma separated values with a header naming the {@link UserImportRow} fields.
+         */
+        CSV,
+
+        /**
+         * One {@link UserImportRow} JSON object per line.
+         */
+        NDJSON
+    }
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^(\\{bcrypt})?\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+
+    private static final String BCRYPT_PREFIX = "{bcrypt}";
+
+    private final UserManagementConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ForkJoinPool hashingPool;
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private UserMetrics metrics = UserMetrics.NOOP;
+
+    public UserImportService(UserManagementConfig config,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             PasswordEncoder passwordEncoder,
+                             Validator validator) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+
+        int threads = config.getBulkImport().getHashingThreads();
+        this.hashingPool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("user-import-hashing-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+
+    /**
+     * Injects the application's ObjectMapper, so NDJSON rows are read like request bodies.
+     *
+     * @param objectMapper the object mapper
+     */
+    @Autowired(required = false)
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Injects the metrics to report to, when a {@link UserMetrics} bean exists.
+     *
+     * @param metrics the metrics
+     */
+    @Autowired(required = false)
+    public void setMetrics(UserMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Import users, reporting the outcome of every row.
+     * <p>
+     * Rejected rows do not stop the import. If the input cannot be read any further, the
+     * rows read so far are still imported and the summary is marked as not completed.
+     *
+     * @param input   The input, read up to its end
+     * @param format  The input format
+     * @param results Receives the outcome of every row, in input order
+     * @return The totals of the import
+     */
+    public UserImportSummary importUsers(Reader input, Format format, Consumer<? super UserImportResult> results) {
+        int chunkSize = Math.max(1, config.getBulkImport().getChunkSize());
+        var reader = input instanceof BufferedReader buffered ? buffered : new BufferedReader(input);
+        var chunk = new ArrayList<Row>(chunkSize);
+        var totals = new Totals();
+        String error = null;
+
+        RowSource rows = null;
+        while (true) {
+            // Only reading stops the import; chunks report their own failures
+            Row row;
+            try {
+                if (rows == null) {
+                    rows = format == Format.CSV ? new CsvRows(reader) : new NdjsonRows(reader);
+                }
+                row = rows.next();
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("User import stopped after {} row(s): {}", totals.rows + chunk.size(), e.getMessage());
+                error = e.getMessage();
+                break;
+            }
+            if (row == null) {
+                break;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, results, totals);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, results, totals);
+        }
+
+        log.info("User import {}: {} of {} user(s) created", error == null ? "completed" : "stopped",
+                totals.created, totals.rows);
+        return new UserImportSummary(totals.rows, totals.created, totals.failed, error == null, error);
+    }
+
+    /**
+     * Shuts down the hashing pool.
+     */
+    @Override
+    public void destroy() {
+        hashingPool.shutdown();
+    }
+
+    private void importChunk(List<Row> chunk, Consumer<? super UserImportResult> results, Totals totals) {
+        var outcomes = new UserImportResult[chunk.size()];
+
+        // Validate, and reject duplicates within the chunk (earlier chunks are in the database)
+        var accepted = new ArrayList<Integer>(chunk.size());
+        var emails = new HashSet<String>();
+        var usernames = new HashSet<String>();
+        for (int i = 0; i < chunk.size(); i++) {
+            var row = chunk.get(i);
+            var error = row.error() != null ? row.error() : validate(row.user());
+            if (error == null && !emails.add(emailKey(row.user().getEmail()))) {
+                error = "Duplicate email in import";
+            }
+            if (error == null && row.user().getUsername() != null
+                    && !usernames.add(row.user().getUsername().toLowerCase(Locale.ROOT))) {
+                error = "Duplicate username in import";
+            }
+            if (error != null) {
+                outcomes[i] = UserImportResult.failed(row.line(), row.user() != null ? row.user().getEmail() : null, error);
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        accepted = rejectTaken(chunk, accepted, emails, usernames, outcomes);
+
+        if (!accepted.isEmpty()) {
+            var hashes = hashPasswords(chunk, accepted);
+            insert(chunk, accepted, hashes, outcomes);
+        }
+
+        for (var outcome : outcomes) {
+            totals.rows++;
+            if (outcome.status() == UserImportResult.Status.CREATED) {
+                totals.created++;
+            } else {
+                totals.failed++;
+            }
+            results.accept(outcome);
+        }
+    }
+
+    /**
+     * Validates a row like a registration.
+     *
+     * @return the first problem, or null if the row is valid
+     */
+    private String validate(UserImportRow user) {
+        if (user.getUsername() != null && user.getUsername().isBlank()) {
+            user.setUsername(null);
+        }
+        boolean hasPassword = user.getPassword() != null;
+        boolean hasHash = user.getPasswordHash() != null;
+        if (hasPassword == hasHash) {
+            return "Either password or passwordHash is required";
+        }
+        if (hasHash && !BCRYPT_HASH.matcher(user.getPasswordHash()).matches()) {
+            return "Password hash must be a BCrypt hash";
+        }
+        return validator.validate(user).stream()
+                // The password policy only applies to plain passwords
+                .filter(violation -> hasPassword || !violation.getPropertyPath().toString().equals("password"))
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Rejects rows whose email or username is already taken, with one query for the chunk.
+     * Emails of soft-deleted accounts carry a {@code _deleted} suffix, and their usernames
+     * stay taken.
+     *
+     * @return the rows that can be inserted
+     */
+    private ArrayList<Integer> rejectTaken(List<Row> chunk, List<Integer> accepted, Set<String> emails,
+                                           Set<String> usernames, UserImportResult[] outcomes) {
+        if (accepted.isEmpty()) {
+            return new ArrayList<>();
+        }
+        var lookupEmails = new ArrayList<Object>(emails.size() * 2);
+        for (var email : emails) {
+            lookupEmails.add(email);
+            lookupEmails.add(email + "_deleted");
+        }
+        var sql = new StringBuilder("SELECT email, username FROM " + config.getUsersTable()
+                + " WHERE email IN (" + placeholders(lookupEmails.size()) + ")");
+        var args = new ArrayList<>(lookupEmails);
+        if (!usernames.isEmpty()) {
+            sql.append(" OR username IN (").append(placeholders(usernames.size())).append(")");
+            args.addAll(usernames);
+        }
+
+        var takenEmails = new HashSet<String>();
+        var takenUsernames = new HashSet<String>();
+        jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> {
+            takenEmails.add(emailKey(rs.getString(1)));
+            var username = rs.getString(2);
+            if (username != null) {
+                takenUsernames.add(username.toLowerCase(Locale.ROOT));
+            }
+        }, args.toArray());
+
+        var remaining = new ArrayList<Integer>(accepted.size());
+        for (int i : accepted) {
+            var row = chunk.get(i);
+            var email = row.user().getEmail();
+            var username = row.user().getUsername();
+            String error = null;
+            if (takenEmails.contains(emailKey(email))) {
+                error = "Email already in use";
+            } else if (takenEmails.contains(emailKey(email) + "_deleted")) {
+                error = "Email belongs to a deleted account; register it to reactivate the account";
+            } else if (username != null && takenUsernames.contains(username.toLowerCase(Locale.ROOT))) {
+                error = "Username already in use";
+            }
+            if (error != null) {
+                outcomes[i] = UserImportResult.failed(row.line(), email, error);
+            } else {
+                remaining.add(i);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Hashes the passwords of the accepted rows in parallel on the hashing pool.
+     *
+     * @return the stored password of every row, by index in the chunk
+     */
+    private String[] hashPasswords(List<Row> chunk, List<Integer> accepted) {
+        var hashes = new String[chunk.size()];
+        var toHash = new ArrayList<Integer>(accepted.size());
+        for (int i : accepted) {
+            var hash = chunk.get(i).user().getPasswordHash();
+            if (hash != null) {
+                hashes[i] = hash.startsWith(BCRYPT_PREFIX) ? hash : BCRYPT_PREFIX + hash;
+            } else {
+                toHash.add(i);
+            }
+        }
+        if (!toHash.isEmpty()) {
+            // Parallel streams run on the pool the task was submitted to
+            hashingPool.submit(() -> toHash.parallelStream().forEach(i -> {
+                long start = System.nanoTime();
+                hashes[i] = passwordEncoder.encode(chunk.get(i).user().getPassword());
+                metrics.passwordHashed(PasswordOperation.IMPORT, System.nanoTime() - start);
+            })).join();
+        }
+        return hashes;
+    }
+
+    /**
+     * Inserts the accepted rows in one transaction, or row by row if that fails.
+     */
+    private void insert(List<Row> chunk, List<Integer> accepted, String[] hashes, UserImportResult[] outcomes) {
+        try {
+            var ids = chunkTransaction.execute(status -> insertUsers(chunk, accepted, hashes));
+            for (int i : accepted) {
+                var row = chunk.get(i);
+                var email = row.user().getEmail();
+                outcomes[i] = UserImportResult.created(row.line(), email, ids.get(emailKey(email)));
+            }
+            return;
+        } catch (DataAccessException e) {
+            log.warn("Failed to insert a chunk of {} imported user(s), retrying one by one: {}",
+                    accepted.size(), e.getMessage());
+        }
+
+        for (int i : accepted) {
+            var row = chunk.get(i);
+            var email = row.user().getEmail();
+            try {
+                var ids = chunkTransaction.execute(status -> insertUsers(chunk, List.of(i), hashes));
+                outcomes[i] = UserImportResult.created(row.line(), email, ids.get(emailKey(email)));
+            } catch (DuplicateKeyException e) {
+                outcomes[i] = UserImportResult.failed(row.line(), email, "Email or username already in use");
+            } catch (DataAccessException e) {
+                log.error("Failed to insert imported user at line {}: {}", row.line(), e.getMessage(), e);
+                outcomes[i] = UserImportResult.failed(row.line(), email, "User could not be saved");
+            }
+        }
+    }
+
+    /**
+     * Inserts users with the USER role.
+     *
+     * @return the ids of the new users, by {@link #emailKey(String) email key}
+     */
+    private Map<String, Long> insertUsers(List<Row> chunk, List<Integer> indexes, String[] hashes) {
+        var table = config.getUsersTable();
+        var batch = new ArrayList<Object[]>(indexes.size());
+        var emails = new ArrayList<Object>(indexes.size());
+        for (int i : indexes) {
+            var user = chunk.get(i).user();
+            batch.add(new Object[]{user.getFirstName(), user.getLastName(), user.getUsername(), user.getEmail(), hashes[i]});
+            emails.add(user.getEmail());
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (first_name, last_name, username, email, password,"
+                + " enabled, token_epoch) VALUES (?, ?, ?, ?, ?, TRUE, 0)", batch);
+
+        var inEmails = " WHERE deleted_at IS NULL AND email IN (" + placeholders(emails.size()) + ")";
+        var roleArgs = new ArrayList<>(List.of("USER"));
+        roleArgs.addAll(emails);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role) SELECT id, ? FROM " + table + inEmails,
+                roleArgs.toArray());
+
+        var ids = new HashMap<String, Long>();
+        jdbcTemplate.query("SELECT id, email FROM " + table + inEmails,
+                (RowCallbackHandler) rs -> ids.put(emailKey(rs.getString(2)), rs.getLong(1)), emails.toArray());
+        return ids;
+    }
+
+    /**
+     * Normalizes an email for comparisons, which the database makes case-insensitively.
+     */
+    private static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Maps a CSV header to the field it sets, or null for columns that are ignored.
+     */
+    private static BiConsumer<UserImportRow, String> column(String header) {
+        return switch (normalize(header)) {
+            case "firstname" -> UserImportRow::setFirstName;
+            case "lastname" -> UserImportRow::setLastName;
+            case "username" -> UserImportRow::setUsername;
+            case "email" -> UserImportRow::setEmail;
+            case "password" -> UserImportRow::setPassword;
+            case "passwordhash" -> UserImportRow::setPasswordHash;
+            default -> null;
+        };
+    }
+
+    private static String normalize(String header) {
+        return header.replace("\uFEFF", "").replace("_", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A row read from the input, or why it could not be read.
+     */
+    private record Row(long line, UserImportRow user, String error) {
+    }
+
+    private interface RowSource {
+
+        /**
+         * Reads the next row, or returns null at the end of the input.
+         */
+        Row next() throws IOException;
+    }
+
+    private final class NdjsonRows implements RowSource {
+
+        private final BufferedReader reader;
+        private long line;
+
+        NdjsonRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    var user = objectMapper.readValue(text, UserImportRow.class);
+                    return user != null ? new Row(line, user, null) : new Row(line, null, "Invalid JSON");
+                } catch (JsonProcessingException e) {
+                    return new Row(line, null, "Invalid JSON");
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class CsvRows implements RowSource {
+
+        private final CsvReader csv;
+        private final List<BiConsumer<UserImportRow, String>> columns = new ArrayList<>();
+
+        CsvRows(BufferedReader reader) throws IOException {
+            this.csv = new CsvReader(reader);
+            var header = csv.next();
+            if (header == null) {
+                return;
+            }
+            if (header.stream().map(UserImportService::normalize).noneMatch("email"::equals)) {
+                throw new IllegalArgumentException("CSV header must include an email column");
+            }
+            header.forEach(name -> columns.add(column(name)));
+        }
+
+        @Override
+        public Row next() throws IOException {
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                if (fields.size() == 1 && fields.getFirst().isBlank()) {
+                    continue;
+                }
+                var user = new UserImportRow();
+                for (int i = 0; i < Math.min(fields.size(), columns.size()); i++) {
+                    var column = columns.get(i);
+                    if (column != null && !fields.get(i).isEmpty()) {
+                        column.accept(user, fields.get(i));
+                    }
+                }
+                var error = fields.size() != columns.size()
+                        ? "Expected " + columns.size() + " fields, found " + fields.size()
+                        : null;
+                return new Row(csv.recordLine(), user, error);
+            }
+            return null;
+        }
+    }
+
+    private static final class Totals {
+        long rows;
+        long created;
+        long failed;
+    }
+}
@@ -3,6 +3,9 @@ package com.krd.starter.user;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * Configuration properties for user management features.
  * <p>
@@ -13,6 +16,18 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  *     hard-delete-after-days: 180
  *     hard-delete-enabled: true
  *     hard-delete-cron: "0 0 2 * * *"
+ *     hard-delete-batch-size: 500
+ *     token-epoch-enabled: true
+ *     token-epoch-poll-interval: 10s
+ *     password-hashing:
+ *       threads: 0
+ *       queue-capacity: 64
+ *       strength: 10
+ *       target-latency: 250ms
+ *     snapshot-cache:
+ *       enabled: true
+ *       maximum-size: 10000
+ *       time-to-live: 5m
  * </pre>
  */
 @Data
@@ -46,4 +61,264 @@ public class UserManagementConfig {
      * </ul>
      */
     private String hardDeleteCron = "0 0 2 * * *";
+
+    /**
+     * Number of users deleted per batch by the hard delete task. Each batch runs in its own
+     * short transaction.
+     * Default: 500
+     */
+    private int hardDeleteBatchSize = 500;
+
+    /**
+     * Pause after each hard delete batch, relative to the time the batch took: 1.0 waits as
+     * long as the batch ran, keeping the task's share of database time at about half.
+     * Slower batches (a busier database) lead to longer pauses.
+     * Default: 1.0
+     */
+    private double hardDeletePauseRatio = 1.0;
+
+    /**
+     * Longest pause between hard delete batches.
+     * Default: 5 seconds
+     */
+    private Duration hardDeleteMaxPause = Duration.ofSeconds(5);
+
+    /**
+     * Whether tokens are rejected as soon as their user's token epoch advances
+     * (password change, removed role, deleted account), checked in memory on every request.
+     * Requires the {@code token_epoch} column on the users table.
+     * Default: false
+     */
+    private boolean tokenEpochEnabled = false;
+
+    /**
+     * How often token epochs advanced by other instances are picked up.
+     * Default: 10 seconds
+     */
+    private Duration tokenEpochPollInterval = Duration.ofSeconds(10);
+
+    /**
+     * Name of the table user entities are stored in, used by queries that bypass JPA.
+     * Default: "users"
+     */
+    private String usersTable = "users";
+
+    /**
+     * Settings for {@link PasswordHashingExecutor}.
+     */
+    private PasswordHashing passwordHashing = new PasswordHashing();
+
+    /**
+     * Settings for {@link UserSnapshotCache}.
+     */
+    private SnapshotCache snapshotCache = new SnapshotCache();
+
+    /**
+     * Settings for {@link RoleChangeAuditWriter}.
+     */
+    private RoleChangeAudit roleChangeAudit = new RoleChangeAudit();
+
+    /**
+     * Settings for {@link BulkUserOperationService}.
+     */
+    private BulkOperations bulkOperations = new BulkOperations();
+
+    /**
+     * Settings for {@link UserImportService}.
+     */
+    private BulkImport bulkImport = new BulkImport();
+
+    /**
+     * Settings for password hashing: the BCrypt cost and the bounded hashing pool.
+     */
+    @Data
+    public static class PasswordHashing {
+
+        /**
+         * Number of threads hashing passwords.
+         * Default: 0 (one per available processor)
+         */
+        private int threads = 0;
+
+        /**
+         * Maximum number of login, registration and password change requests waiting for
+         * a hashing thread. Further requests are rejected with 503 Service Unavailable.
+         * Default: 64
+         */
+        private int queueCapacity = 64;
+
+        /**
+         * BCrypt cost factor (log2 rounds, 4-31). With {@link #targetLatency}, the lowest
+         * cost calibration may choose.
+         * Default: 10
+         */
+        private int strength = 10;
+
+        /**
+         * Highest BCrypt cost calibration may choose.
+         * Default: 16
+         */
+        private int maxStrength = 16;
+
+        /**
+         * Target time to hash one password. When set, the cost is calibrated at startup to
+         * the highest value (between {@link #strength} and {@link #maxStrength}) that hashes
+         * within this time on the current hardware. Stored hashes at a lower cost are
+         * upgraded on the next login.
+         * Default: not set (always use {@link #strength})
+         */
+        private Duration targetLatency;
+    }
+
+    /**
+     * Settings for the user snapshot cache.
+     */
+    @Data
+    public static class SnapshotCache {
+
+        /**
+         * Whether user reads by id are served from an in-memory cache.
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of cached users.
+         * Default: 10000
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * How long a snapshot is served after it was loaded. Bounds staleness for changes
+         * that were not invalidated.
+         * Default: 5 minutes
+         */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        /**
+         * Whether invalidations are shared with other instances through the
+         * {@code user_changes} table.
+         * Default: false
+         */
+        private boolean changeLogEnabled = false;
+
+        /**
+         * How often changes recorded by other instances are picked up.
+         * Default: 5 seconds
+         */
+        private Duration pollInterval = Duration.ofSeconds(5);
+    }
+
+    /**
+     * Settings for writing role change audit records.
+     */
+    @Data
+    public static class RoleChangeAudit {
+
+        /**
+         * Whether role change audit records are queued and written in batches by a
+         * background thread, instead of inserted in the request's transaction.
+         * Default: false
+         */
+        private boolean asyncEnabled = false;
+
+        /**
+         * Maximum number of records waiting to be written. Further records are dropped
+         * (or spooled, with {@link #spoolFile}).
+         * Default: 10000
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Maximum number of records per batch insert.
+         * Default: 100
+         */
+        private int batchSize = 100;
+
+        /**
+         * Longest time a record waits in the queue before it is written.
+         * Default: 1 second
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * File that records are appended to when the queue is full or the database cannot
+         * be reached. Written to the database on the next start.
+         * Default: not set (such records are dropped)
+         */
+        private Path spoolFile;
+    }
+
+    /**
+     * Settings for bulk user operations.
+     */
+    @Data
+    public static class BulkOperations {
+
+        /**
+         * Whether bulk operations can be submitted with {@code POST /users/bulk}.
+         * Requires the {@code bulk_user_jobs} table.
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of users changed per chunk. Each chunk runs in its own short transaction.
+         * Default: 500
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Maximum number of user ids in one request. Select more users with a filter.
+         * Default: 100000
+         */
+        private int maxUserIds = 100_000;
+
+        /**
+         * Pause after each chunk, relative to the time the chunk took.
+         * Default: 0.5
+         */
+        private double pauseRatio = 0.5;
+
+        /**
+         * Longest pause between chunks.
+         * Default: 5 seconds
+         */
+        private Duration maxPause = Duration.ofSeconds(5);
+
+        /**
+         * How long a queued or running job may go without a heartbeat from its instance
+         * before it is considered abandoned and marked as failed. Must be well above the
+         * time one chunk takes.
+         * Default: 10 minutes
+         */
+        private Duration staleAfter = Duration.ofMinutes(10);
+    }
+
+    /**
+     * Settings for bulk user imports.
+     */
+    @Data
+    public static class BulkImport {
+
+        /**
+         * Whether users can be imported with {@code POST /users/import}.
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of rows validated, looked up, hashed and inserted together. Each chunk is
+         * inserted in its own short transaction.
+         * Default: 1000
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Number of threads hashing imported passwords. Lower it to leave cores for logins
+         * while an import runs.
+         * Default: 0 (one per available processor)
+         */
+        private int hashingThreads = 0;
+    }
 }
@@ -0,0 +1,122 @@
+package com.krd.starter.user;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Receives timings from the user and authentication services.
+ * <p>
+ * The default methods do nothing, so the starter works without a metrics library.
+ * When Micrometer is on the classpath, {@link MicrometerUserMetrics} is registered
+ * automatically and publishes the timings as Micrometer meters.
+ * <p>
+ * Repository calls are not reported here: with Spring Boot Actuator, every Spring Data
+ * repository invocation is already timed as {@code spring.data.repository.invocations},
+ * tagged with the repository and method.
+ *
+ * @see MicrometerUserMetrics
+ */
+public interface UserMetrics {
+
+    /**
+     * Metrics that discard every measurement.
+     */
+    UserMetrics NOOP = new UserMetrics() {
+    };
+
+    /**
+     * Operations that hash or check a password with the {@code PasswordEncoder}.
+     */
+    enum PasswordOperation {
+
+        /**
+         * Rehashing an outdated password hash after a successful login.
+         */
+        LOGIN,
+
+        /**
+         * Hashing the password of a new or reactivated user.
+         */
+        REGISTER,
+
+        /**
+         * Checking the old and hashing the new password on a password change.
+         */
+        CHANGE_PASSWORD,
+
+        /**
+         * Hashing the passwords of imported users.
+         */
+        IMPORT
+    }
+
+    /**
+     * Records the time spent hashing or checking a password.
+     *
+     * @param operation the operation the password was hashed for
+     * @param nanos the time spent in the password encoder
+     */
+    default void passwordHashed(PasswordOperation operation, long nanos) {
+    }
+
+    /**
+     * Records the credential check of a login: the user lookup and the password check of
+     * the {@code AuthenticationManager}.
+     *
+     * @param authenticated whether the credentials were valid
+     * @param nanos the duration of the check
+     */
+    default void loginAuthenticated(boolean authenticated, long nanos) {
+    }
+
+    /**
+     * Records a request turned away because the password hashing queue was full.
+     */
+    default void passwordHashingRejected() {
+    }
+
+    /**
+     * Records a batch of the scheduled hard delete of soft-deleted users, as it completes.
+     *
+     * @param deleted the number of users deleted
+     * @param failed the number of users that could not be deleted
+     * @param nanos the duration of the batch
+     */
+    default void hardDeleteBatchCompleted(int deleted, int failed, long nanos) {
+    }
+
+    /**
+     * Records a run of the scheduled hard delete of soft-deleted users.
+     *
+     * @param deleted the number of users deleted
+     * @param failed the number of users that could not be deleted
+     * @param nanos the duration of the run
+     */
+    default void hardDeleteCompleted(int deleted, int failed, long nanos) {
+    }
+
+    /**
+     * Called once when the asynchronous role change audit writer is created.
+     *
+     * @param depth the number of records waiting in its queue
+     */
+    default void auditQueueCreated(IntSupplier depth) {
+    }
+
+    /**
+     * Records a batch of role change audit records written to the database.
+     *
+     * @param records the number of records in the batch
+     * @param nanos the duration of the batch insert
+     */
+    default void auditBatchWritten(int records, long nanos) {
+    }
+
+    /**
+     * Records role change audit records that were not queued or not written, because the
+     * queue was full or the database failed. Records that were spooled to a file count here too.
+     *
+     * @param records the number of records
+     */
+    default void auditRecordsDropped(int records) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.krd.starter.user;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only projection of a user: the columns of {@link com.krd.starter.user.dto.BaseUserDto}
+ * and the user's roles, without the password hash and without a managed entity.
+ * <p>
+ * Read endpoints select rows instead of entities when the mapper opts in through
+ * {@link BaseUserMapper#supportsRowMapping()}, so Hibernate neither hydrates nor dirty-checks
+ * anything. Columns of your own entity are added by overriding
+ * {@link BaseUserService#projectedAttributes()}; their values are in {@link #attributes()},
+ * keyed by attribute name:
+ * <pre>
+ * {@code
+ * @Mapper(componentModel = "spring")
+ * public interface UserMapper extends BaseUserMapper<User, UserDto> {
+ *     @Override
+ *     @Mapping(target = "phone", expression = "java((String) row.attributes().get(\"phone\"))")
+ *     UserDto rowToDto(UserRow row);
+ *
+ *     @Override
+ *     default boolean supportsRowMapping() {
+ *         return true;
+ *     }
+ * }
+ * }
+ * </pre>
+ *
+ * @param id the user ID
+ * @param firstName the first name
+ * @param lastName the last name
+ * @param username the username
+ * @param email the email
+ * @param enabled whether the account is enabled
+ * @param roles the user's roles
+ * @param attributes values of the {@link BaseUserService#projectedAttributes() extra attributes}
+ */
+public record UserRow(Long id,
+                      String firstName,
+                      String lastName,
+                      String username,
+                      String email,
+                      boolean enabled,
+                      Set<String> roles,
+                      Map<String, Object> attributes) {
+}
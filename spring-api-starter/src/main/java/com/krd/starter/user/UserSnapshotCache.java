@@ -0,0 +1,62 @@
+package com.krd.starter.user;
+
+import java.util.function.LongFunction;
+
+/**
+ * Cache of read-only user snapshots (the user DTOs returned by the API), keyed by user id.
+ * <p>
+ * {@link BaseUserService#getUser(Long)} and {@code /auth/me} read through it, so repeated
+ * reads of the same user skip the database. Every write made through the starter
+ * ({@code updateUser}, {@code deleteUser}, {@code addRole}, {@code removeRole},
+ * {@code changePassword}, re-registration and hard deletes) invalidates the user's entry.
+ * Call {@link #invalidate(long)} from your own code after changing a user in other ways.
+ * <p>
+ * Snapshots must be treated as immutable: they are shared between requests.
+ *
+ * @see CaffeineUserSnapshotCache
+ * @see ChangeLogUserSnapshotCache
+ */
+public interface UserSnapshotCache {
+
+    /**
+     * A cache that caches nothing: every read calls the loader.
+     */
+    UserSnapshotCache NONE = new UserSnapshotCache() {
+        @Override
+        public <S> S get(long userId, LongFunction<S> loader) {
+            return loader.apply(userId);
+        }
+
+        @Override
+        public void invalidate(long userId) {
+        }
+
+        @Override
+        public void invalidateAll() {
+        }
+    };
+
+    /**
+     * Returns the cached snapshot of a user, loading and caching it if absent.
+     *
+     * @param userId the user ID
+     * @param loader loads the snapshot; may return null, which is not cached
+     * @param <S> the snapshot type
+     * @return the snapshot, or null if the loader found none
+     */
+    <S> S get(long userId, LongFunction<S> loader);
+
+    /**
+     * Drops a user's snapshot, including one being loaded concurrently. Inside a
+     * transaction, it is dropped again after commit, so a concurrent read cannot cache the
+     * state before the change.
+     *
+     * @param userId the user ID
+     */
+    void invalidate(long userId);
+
+    /**
+     * Drops every snapshot.
+     */
+    void invalidateAll();
+}
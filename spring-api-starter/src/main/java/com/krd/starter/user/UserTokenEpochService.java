@@ -0,0 +1,120 @@
+package com.krd.starter.user;
+
+import com.krd.starter.jwt.TokenEpochChecker;
+import com.krd.starter.jwt.TokenEpochMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Keeps the token epochs of all users in memory, so stale tokens are rejected without
+ * reading the database on the request path.
+ * <p>
+ * A user's token epoch ({@link BaseUser#getTokenEpoch()}) is the time their tokens were
+ * last invalidated. {@link BaseUserService} advances it when a password is changed, a
+ * role is removed or an account is deleted, and updates this service once the change is
+ * committed. Changes made on other instances are picked up by polling the users table for
+ * recently advanced epochs, so a token is rejected everywhere within one poll interval.
+ * <p>
+ * Only epochs newer than the longest token lifetime are kept: tokens issued before an
+ * older epoch have expired anyway.
+ * <p>
+ * Enable it in your application.yaml (requires the {@code token_epoch} column):
+ * <pre>
+ * app:
+ *   user:
+ *     token-epoch-enabled: true
+ *     token-epoch-poll-interval: 10s
+ * </pre>
+ *
+ * @see com.krd.starter.jwt.JwtAuthenticationFilter
+ */
+@Slf4j
+public class UserTokenEpochService implements TokenEpochChecker {
+
+    /**
+     * Overlap between polls, so epochs are not missed due to clock skew between instances.
+     */
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String selectEpochsSince;
+    private final long retentionMillis;
+    private final TokenEpochMap epochs = new TokenEpochMap();
+    private volatile long lastPollMillis;
+
+    /**
+     * Creates the service and loads the epochs that can still reject tokens.
+     *
+     * @param jdbcTemplate the JDBC template
+     * @param usersTable the table user entities are stored in
+     * @param maxTokenLifetime the lifetime of the longest-lived token (usually the refresh token)
+     */
+    public UserTokenEpochService(JdbcTemplate jdbcTemplate, String usersTable, Duration maxTokenLifetime) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.selectEpochsSince = "SELECT id, token_epoch FROM " + usersTable + " WHERE token_epoch >= ?";
+        this.retentionMillis = maxTokenLifetime.toMillis();
+
+        long now = System.currentTimeMillis();
+        int loaded = load(now - retentionMillis);
+        this.lastPollMillis = now;
+        log.info("Loaded {} user token epoch(s)", loaded);
+    }
+
+    @Override
+    public boolean isStale(long userId, long tokenEpoch) {
+        return tokenEpoch < epochs.get(userId);
+    }
+
+    /**
+     * Records a user's new token epoch.
+     * <p>
+     * Inside a transaction the epoch only takes effect after commit, so a rolled back
+     * change never rejects tokens.
+     *
+     * @param userId the user ID
+     * @param epoch the new token epoch
+     */
+    public void advance(long userId, long epoch) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    epochs.advance(userId, epoch);
+                }
+            });
+        } else {
+            epochs.advance(userId, epoch);
+        }
+    }
+
+    /**
+     * Picks up epochs advanced by other instances and drops epochs that no longer matter.
+     * <p>
+     * Runs every {@code app.user.token-epoch-poll-interval} (default: 10 seconds).
+     */
+    @Scheduled(fixedDelayString = "${app.user.token-epoch-poll-interval:10s}")
+    public void poll() {
+        long now = System.currentTimeMillis();
+        load(lastPollMillis - POLL_OVERLAP.toMillis());
+        lastPollMillis = now;
+
+        int dropped = epochs.removeOlderThan(now - retentionMillis);
+        if (dropped > 0) {
+            log.debug("Dropped {} expired user token epoch(s)", dropped);
+        }
+    }
+
+    private int load(long sinceMillis) {
+        var count = new int[1];
+        jdbcTemplate.query(selectEpochsSince, rs -> {
+            epochs.advance(rs.getLong("id"), rs.getLong("token_epoch"));
+            count[0]++;
+        }, sinceMillis);
+        return count[0];
+    }
+}
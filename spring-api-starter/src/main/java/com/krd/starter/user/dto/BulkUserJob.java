@@ -0,0 +1,51 @@
+package com.krd.starter.user.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status and progress of a bulk user operation.
+ * <p>
+ * {@code processed} counts the selected users handled so far; each of them was either
+ * {@code updated}, {@code skipped} (already in the requested state, or protected by an
+ * invariant such as the last admin) or {@code failed}.
+ *
+ * @param id the job id
+ * @param operation the operation
+ * @param role the role added or removed, or null
+ * @param status the job status
+ * @param requestedBy the id of the admin who submitted the job
+ * @param total the number of selected users, known once the job runs
+ * @param processed the number of users handled so far
+ * @param updated the number of users changed
+ * @param skipped the number of users left unchanged
+ * @param failed the number of users that could not be changed
+ * @param error why the job failed, or null
+ * @param createdAt when the job was submitted
+ * @param startedAt when the job started, or null
+ * @param finishedAt when the job finished, or null
+ */
+public record BulkUserJob(String id,
+                          BulkUserOperationRequest.Operation operation,
+                          String role,
+                          Status status,
+                          Long requestedBy,
+                          long total,
+                          long processed,
+                          long updated,
+                          long skipped,
+                          long failed,
+                          String error,
+                          LocalDateTime createdAt,
+                          LocalDateTime startedAt,
+                          LocalDateTime finishedAt) {
+
+    /**
+     * Lifecycle of a job.
+     */
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
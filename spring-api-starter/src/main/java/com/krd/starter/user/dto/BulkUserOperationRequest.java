@@ -0,0 +1,78 @@
+package com.krd.starter.user.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request DTO for changing many users at once.
+ * <p>
+ * Selects users either by id or by filter. Exactly one of {@code userIds} and
+ * {@code filter} must be given; an empty filter selects every user.
+ * <p>
+ * Example JSON:
+ * <pre>
+ * {
+ *   "operation": "ADD_ROLE",
+ *   "role": "ADMIN",
+ *   "filter": { "emailPrefix": "ops-", "enabled": true }
+ * }
+ * </pre>
+ */
+@Data
+public class BulkUserOperationRequest {
+
+    /**
+     * Changes a bulk operation can make.
+     */
+    public enum Operation {
+        DISABLE,
+        ENABLE,
+        SOFT_DELETE,
+        ADD_ROLE,
+        REMOVE_ROLE
+    }
+
+    @NotNull(message = "Operation is required")
+    private Operation operation;
+
+    /**
+     * Role to add or remove; required for ADD_ROLE and REMOVE_ROLE.
+     */
+    @Pattern(regexp = "^(USER|ADMIN)$", message = "Role must be USER or ADMIN")
+    private String role;
+
+    /**
+     * Ids of the users to change.
+     */
+    private List<Long> userIds;
+
+    /**
+     * Filter selecting the users to change.
+     */
+    private Filter filter;
+
+    /**
+     * Selects users like the filters of {@code GET /users}.
+     */
+    @Data
+    public static class Filter {
+
+        /**
+         * Only users with this role.
+         */
+        private String role;
+
+        /**
+         * Only enabled (true) or disabled (false) users.
+         */
+        private Boolean enabled;
+
+        /**
+         * Only users whose email starts with this prefix.
+         */
+        private String emailPrefix;
+    }
+}
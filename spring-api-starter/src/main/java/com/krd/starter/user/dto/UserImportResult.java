@@ -0,0 +1,29 @@
+package com.krd.starter.user.dto;
+
+/**
+ * Outcome of one row of a bulk import, streamed back as the import proceeds.
+ *
+ * @param line the line of the input the row started on (1-based, the CSV header is line 1)
+ * @param email the row's email, or null if the row could not be read
+ * @param status whether the user was created
+ * @param id the id of the created user, or null
+ * @param error why the row was rejected, or null
+ */
+public record UserImportResult(long line, String email, Status status, Long id, String error) {
+
+    /**
+     * Outcome of a row.
+     */
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    public static UserImportResult created(long line, String email, long id) {
+        return new UserImportResult(line, email, Status.CREATED, id, null);
+    }
+
+    public static UserImportResult failed(long line, String email, String error) {
+        return new UserImportResult(line, email, Status.FAILED, null, error);
+    }
+}
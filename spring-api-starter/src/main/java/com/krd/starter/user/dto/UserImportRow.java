@@ -0,0 +1,48 @@
+package com.krd.starter.user.dto;
+
+import com.krd.starter.validation.Lowercase;
+import com.krd.starter.validation.ValidPassword;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * One user of a bulk import: an NDJSON line or a CSV record.
+ * <p>
+ * Validated like {@link RegisterUserRequest}. Each row has either a plain {@code password},
+ * which is hashed during the import, or the BCrypt {@code passwordHash} of an existing
+ * account ({@code $2a$...} or {@code {bcrypt}$2a$...}).
+ * <p>
+ * Example NDJSON line:
+ * <pre>
+ * {"firstName":"John","lastName":"Doe","username":"johndoe","email":"john@example.com","password":"SecurePass123!"}
+ * </pre>
+ * CSV input starts with a header naming these fields, in any order:
+ * <pre>
+ * email,firstName,lastName,passwordHash
+ * john@example.com,John,Doe,$2a$10$...
+ * </pre>
+ */
+@Data
+public class UserImportRow {
+
+    @Size(max = 255, message = "First name must be less than 255 characters")
+    private String firstName;
+
+    @Size(max = 255, message = "Last name must be less than 255 characters")
+    private String lastName;
+
+    @Size(min = 3, max = 255, message = "Username must be between 3 and 255 characters")
+    private String username;
+
+    @NotBlank(message = "Email is required")
+    @Email(message = "Email must be valid")
+    @Lowercase(message = "Email must be lowercase")
+    private String email;
+
+    @ValidPassword
+    private String password;
+
+    private String passwordHash;
+}
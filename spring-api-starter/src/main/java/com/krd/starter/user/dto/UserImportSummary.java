@@ -0,0 +1,13 @@
+package com.krd.starter.user.dto;
+
+/**
+ * Totals of a bulk import, sent as the last line of the import response.
+ *
+ * @param rows the number of rows read
+ * @param created the number of users created
+ * @param failed the number of rows rejected
+ * @param completed false if the import stopped early because the input could not be read
+ * @param error why the import stopped early, or null
+ */
+public record UserImportSummary(long rows, long created, long failed, boolean completed, String error) {
+}
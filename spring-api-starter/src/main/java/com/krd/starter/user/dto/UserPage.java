@@ -0,0 +1,21 @@
+package com.krd.starter.user.dto;
+
+import java.util.List;
+
+/**
+ * One page of users.
+ * <p>
+ * Example JSON:
+ * <pre>
+ * {
+ *   "items": [ { "id": 42, "email": "jo@example.com", ... } ],
+ *   "nextCursor": "ZW1haWwKNDIKam9AZXhhbXBsZS5jb20"
+ * }
+ * </pre>
+ *
+ * @param items the users in the page
+ * @param nextCursor opaque cursor of the next page, or null if this is the last page
+ * @param <D> the user DTO type
+ */
+public record UserPage<D extends BaseUserDto>(List<D> items, String nextCursor) {
+}
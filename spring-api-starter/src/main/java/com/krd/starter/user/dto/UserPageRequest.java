@@ -0,0 +1,51 @@
+package com.krd.starter.user.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * Query parameters for listing users one page at a time.
+ * <p>
+ * All filters are optional. To fetch the next page, repeat the request with the
+ * {@code nextCursor} of the previous response:
+ * <pre>
+ * GET /users?role=ADMIN&amp;enabled=true&amp;emailPrefix=jo&amp;limit=50
+ * GET /users?role=ADMIN&amp;enabled=true&amp;emailPrefix=jo&amp;limit=50&amp;cursor=ZW1haWwKNDIKam9AZXhhbXBsZS5jb20
+ * </pre>
+ */
+@Data
+public class UserPageRequest {
+
+    /**
+     * Field to sort by (firstName, lastName, username, or email). Defaults to email.
+     */
+    private String sort = "email";
+
+    /**
+     * Only users with this role.
+     */
+    private String role;
+
+    /**
+     * Only enabled (true) or disabled (false) users.
+     */
+    private Boolean enabled;
+
+    /**
+     * Only users whose email starts with this prefix.
+     */
+    private String emailPrefix;
+
+    /**
+     * The {@code nextCursor} of the previous page; omit for the first page.
+     */
+    private String cursor;
+
+    /**
+     * Maximum number of users in the page.
+     */
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 500, message = "Limit must be at most 500")
+    private int limit = 50;
+}
@@ -0,0 +1,12 @@
+package com.krd.starter.user.exception;
+
+/**
+ * Exception thrown when a requested bulk user job cannot be found.
+ * <p>
+ * Typically results in a 404 NOT FOUND response.
+ */
+public class BulkUserJobNotFoundException extends RuntimeException {
+    public BulkUserJobNotFoundException() {
+        super("Bulk user job not found");
+    }
+}
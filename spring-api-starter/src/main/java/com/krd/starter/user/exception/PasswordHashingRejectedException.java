@@ -0,0 +1,40 @@
+package com.krd.starter.user.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exception thrown when the password hashing queue is full.
+ * <p>
+ * Results in a 503 SERVICE UNAVAILABLE response with a {@code Retry-After} header.
+ * It is thrown under overload, so it is created without a stack trace. A new instance is
+ * thrown every time: a shared one would collect the suppressed exceptions of every thread
+ * it passed through.
+ *
+ * @see com.krd.starter.user.PasswordHashingExecutor
+ */
+public class PasswordHashingRejectedException extends ResponseStatusException {
+
+    private static final HttpHeaders HEADERS = HttpHeaders.readOnlyHttpHeaders(retryAfter());
+
+    public PasswordHashingRejectedException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Too many authentication requests. Please try again shortly.");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    private static HttpHeaders retryAfter() {
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return headers;
+    }
+}
@@ -0,0 +1,18 @@
+-- ============================================================================
+-- User Token Epoch Column
+-- ============================================================================
+-- This migration adds the token epoch to an existing users table created
+-- before token epochs were introduced. New installations get the column from
+-- create_users_and_roles_tables.sql.
+--
+-- Columns added:
+-- - users.token_epoch: Epoch millis of the last token invalidation. Tokens
+--   issued with an older epoch are rejected.
+--
+-- The index is used to poll for recently advanced epochs
+-- (app.user.token-epoch-enabled=true).
+-- ============================================================================
+
+ALTER TABLE users
+    ADD COLUMN token_epoch BIGINT DEFAULT 0 NOT NULL COMMENT 'Epoch millis of the last token invalidation',
+    ADD INDEX idx_users_token_epoch (token_epoch);
@@ -0,0 +1,30 @@
+-- ============================================================================
+-- User Listing Indexes
+-- ============================================================================
+-- This migration adds the composite indexes used by the keyset-paginated
+-- GET /users endpoint to an existing users table. New installations get them
+-- from create_users_and_roles_tables.sql.
+--
+-- Indexes added:
+-- - idx_users_listing_email: Pages of active users sorted by email
+--   (WHERE deleted_at IS NULL ... ORDER BY email, id), including the
+--   emailPrefix filter
+-- - idx_users_listing_enabled_email: The same, filtered by enabled
+-- - idx_users_listing_first_name, idx_users_listing_last_name,
+--   idx_users_listing_username: Pages sorted by first name, last name or
+--   username. Users without the value (NULL) come first.
+--
+-- The role filter uses the primary key of user_roles. The enabled filter is
+-- index-assisted only for the email sort.
+--
+-- idx_users_deleted_at is a prefix of these indexes and can be dropped.
+-- ============================================================================
+
+ALTER TABLE users
+    ADD INDEX idx_users_listing_email (deleted_at, email, id),
+    ADD INDEX idx_users_listing_enabled_email (deleted_at, enabled, email, id),
+    ADD INDEX idx_users_listing_first_name (deleted_at, first_name, id),
+    ADD INDEX idx_users_listing_last_name (deleted_at, last_name, id),
+    ADD INDEX idx_users_listing_username (deleted_at, username, id);
+
+-- ALTER TABLE users DROP INDEX idx_users_deleted_at;
@@ -0,0 +1,36 @@
+-- ============================================================================
+-- Bulk User Jobs Table
+-- ============================================================================
+-- This migration creates the table that holds the status and progress of bulk
+-- user operations submitted with POST /users/bulk
+-- (app.user.bulk-operations.enabled=true).
+--
+-- Tables created:
+-- - bulk_user_jobs: One row per job, updated after every chunk
+--
+-- Queued and running jobs whose heartbeat_at is older than
+-- app.user.bulk-operations.stale-after are marked FAILED as abandoned.
+--
+-- Rows are never deleted by the starter; delete old jobs as you see fit.
+-- ============================================================================
+
+CREATE TABLE bulk_user_jobs
+(
+    id           VARCHAR(36)   NOT NULL PRIMARY KEY,
+    operation    VARCHAR(20)   NOT NULL COMMENT 'DISABLE, ENABLE, SOFT_DELETE, ADD_ROLE or REMOVE_ROLE',
+    role         VARCHAR(50)   NULL COMMENT 'Role added or removed',
+    status       VARCHAR(20)   NOT NULL COMMENT 'QUEUED, RUNNING, COMPLETED or FAILED',
+    requested_by BIGINT        NULL COMMENT 'Admin who submitted the job',
+    total        BIGINT        NOT NULL DEFAULT 0,
+    processed    BIGINT        NOT NULL DEFAULT 0,
+    updated      BIGINT        NOT NULL DEFAULT 0,
+    skipped      BIGINT        NOT NULL DEFAULT 0,
+    failed       BIGINT        NOT NULL DEFAULT 0,
+    error        VARCHAR(1000) NULL,
+    created_at   DATETIME(3)   NOT NULL,
+    started_at   DATETIME(3)   NULL,
+    finished_at  DATETIME(3)   NULL,
+    owner        VARCHAR(255)  NULL COMMENT 'Instance running the job (pid@hostname)',
+    heartbeat_at DATETIME(3)   NULL COMMENT 'Last sign of life of the owner while the job is queued or running',
+    INDEX idx_bulk_user_jobs_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
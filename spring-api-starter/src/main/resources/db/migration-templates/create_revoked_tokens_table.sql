@@ -0,0 +1,22 @@
+-- ============================================================================
+-- Token Revocation Table
+-- ============================================================================
+-- This migration creates the table used by spring-api-starter to revoke JWT
+-- tokens before they expire (spring.jwt.revocation.enabled=true).
+--
+-- Tables created:
+-- - revoked_tokens: Revoked token ids (jti) until the token expires
+--
+-- Rows are deleted automatically once the token has expired.
+-- ============================================================================
+
+CREATE TABLE revoked_tokens
+(
+    jti        VARCHAR(64) PRIMARY KEY,
+    expires_at DATETIME    NOT NULL,
+    revoked_at DATETIME    NOT NULL,
+
+    -- Indexes for polling new revocations and deleting expired ones
+    INDEX idx_revoked_tokens_revoked_at (revoked_at),
+    INDEX idx_revoked_tokens_expires_at (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,22 @@
+-- ============================================================================
+-- Scheduler Leases Table
+-- ============================================================================
+-- This migration creates the lease table used by spring-api-starter to run
+-- scheduled jobs annotated with @SingleNodeJob (such as the hard delete of
+-- soft-deleted users) on one instance at a time
+-- (app.scheduling.leases.enabled=true).
+--
+-- Tables created:
+-- - scheduler_leases: One row per job, naming the instance holding it and
+--   until when
+--
+-- Rows are created on first use and never deleted.
+-- ============================================================================
+
+CREATE TABLE scheduler_leases
+(
+    name        VARCHAR(100) NOT NULL PRIMARY KEY,
+    holder      VARCHAR(255) NOT NULL COMMENT 'Instance id and unique lease id',
+    lease_until DATETIME(3)  NOT NULL COMMENT 'Other instances may take the lease after this time',
+    acquired_at DATETIME(3)  NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
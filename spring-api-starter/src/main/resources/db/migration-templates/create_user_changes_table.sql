@@ -0,0 +1,23 @@
+-- ============================================================================
+-- User Changes Table
+-- ============================================================================
+-- This migration creates the change log used by spring-api-starter to keep the
+-- user snapshot caches of several instances consistent
+-- (app.user.snapshot-cache.change-log-enabled=true).
+--
+-- Tables created:
+-- - user_changes: One row per change to a user, polled by every instance
+--
+-- Rows are deleted automatically once they are older than the cache's time
+-- to live.
+-- ============================================================================
+
+CREATE TABLE user_changes
+(
+    seq        BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id    BIGINT      NOT NULL,
+    changed_at DATETIME(3) NOT NULL,
+
+    -- Index for polling recent changes and deleting old ones
+    INDEX idx_user_changes_changed_at (changed_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -21,12 +21,20 @@ CREATE TABLE users
     password   VARCHAR(255)        NOT NULL,
     enabled    BOOLEAN DEFAULT TRUE NOT NULL,
     deleted_at DATETIME            NULL,
+    token_epoch BIGINT DEFAULT 0    NOT NULL COMMENT 'Epoch millis of the last token invalidation',
 
     -- Indexes for performance
     INDEX idx_users_email (email),
     INDEX idx_users_username (username),
-    INDEX idx_users_deleted_at (deleted_at),
-    INDEX idx_users_enabled (enabled)
+    INDEX idx_users_enabled (enabled),
+    INDEX idx_users_token_epoch (token_epoch),
+
+    -- Keyset pagination of active users (GET /users), per sort field
+    INDEX idx_users_listing_email (deleted_at, email, id),
+    INDEX idx_users_listing_enabled_email (deleted_at, enabled, email, id),
+    INDEX idx_users_listing_first_name (deleted_at, first_name, id),
+    INDEX idx_users_listing_last_name (deleted_at, last_name, id),
+    INDEX idx_users_listing_username (deleted_at, username, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Create user_roles table (many-to-many relationship)
@@ -0,0 +1,320 @@
+package com.krd.starter.jwt;
+
+import com.krd.starter.jwt.TokenValidationResult.Failure;
+import com.krd.starter.jwt.TokenValidationResult.Valid;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link FastPathTokenVerifier} gives the same answer as the jjwt parser
+ * ({@link JwtService} with {@code fastPathVerification} disabled) for every kind of token,
+ * and that it only hands tokens it does not understand to the fallback.
+ */
+class FastPathTokenVerifierTest {
+
+    private static final String SECRET = "fast-path-test-secret-of-32-bytes";
+    private static final String RETIRED_SECRET = "retired-test-secret-of-32-bytes!";
+    private static final String WIDE_SECRET = "hs512-test-secret-that-is-at-least-five-hundred-and-twelve-bits-long";
+    private static final List<String> ROLES = List.of("USER", "ADMIN");
+
+    private final Key primaryKey = hmacKey(SECRET);
+    private final Key retiredKey = hmacKey(RETIRED_SECRET);
+    private final Key wideKey = hmacKey(WIDE_SECRET);
+
+    private JwtService parser;
+    private FastPathTokenVerifier verifier;
+    private List<String> fallbackCalls;
+
+    @BeforeEach
+    void setUp() {
+        var config = config(JwtConfig.ClaimProfile.FULL, 0);
+        config.setFastPathVerification(false);
+        parser = new JwtService(config);
+
+        fallbackCalls = new ArrayList<>();
+        verifier = new FastPathTokenVerifier(JwtKeyRing.from(config), new RoleRegistry(ROLES), token -> {
+            fallbackCalls.add(token);
+            return parser.validateAccessToken(token);
+        });
+    }
+
+    @Test
+    void acceptsValidToken() {
+        var token = new JwtService(config(JwtConfig.ClaimProfile.FULL, 0))
+                .generateAccessToken(user(42, Set.of("USER", "ADMIN"), 3))
+                .toString();
+
+        var result = assertSameAsParser(token);
+
+        var snapshot = assertInstanceOf(Valid.class, result).snapshot();
+        assertEquals(42L, snapshot.userId());
+        assertEquals(3L, snapshot.tokenEpoch());
+        assertHandledWithoutFallback();
+    }
+
+    @Test
+    void acceptsCompactProfileToken() {
+        var token = new JwtService(config(JwtConfig.ClaimProfile.COMPACT, 0))
+                .generateAccessToken(user(7, Set.of("ADMIN"), 0))
+                .toString();
+
+        assertInstanceOf(Valid.class, assertSameAsParser(token));
+        assertHandledWithoutFallback();
+    }
+
+    @Test
+    void acceptsCompactProfileTokenWithUnregisteredRoles() {
+        var token = new JwtService(config(JwtConfig.ClaimProfile.COMPACT, 0))
+                .generateAccessToken(user(7, Set.of("USER", "AUDITOR"), 0))
+                .toString();
+
+        assertInstanceOf(Valid.class, assertSameAsParser(token));
+        assertHandledWithoutFallback();
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        var token = sign(primaryKey, "primary",
+                builder -> builder.expiration(new Date(System.currentTimeMillis() - 60_000)));
+
+        assertEquals(Failure.EXPIRED, assertSameAsParser(token));
+        assertHandledWithoutFallback();
+    }
+
+    @Test
+    void rejectsDisabledUser() {
+        var token = sign(primaryKey, "primary", builder -> builder.claim("enabled", false));
+
+        assertEquals(Failure.DISABLED, assertSameAsParser(token));
+        assertHandledWithoutFallback();
+    }
+
+    @Test
+    void rejectsBadSignature() {
+        var token = sign(hmacKey(SECRET.toUpperCase()), "primary", UnaryOperator.identity());
+
+        assertEquals(Failure.BAD_SIGNATURE, assertSameAsParser(token));
+        assertHandledWithoutFallback();
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        var token = sign(primaryKey, "primary", UnaryOperator.identity());
+        var forged = sign(primaryKey, "primary", builder -> builder.claim("roles", "ADMIN"));
+        var parts = token.split("\\.");
+        var tampered = parts[0] + "." + forged.split("\\.")[1] + "." + parts[2];
+
+        assertEquals(Failure.BAD_SIGNATURE, assertSameAsParser(tampered));
+        assertHandledWithoutFallback();
+    }
+
+    @Test
+    void acceptsTokenOfRetiredKey() {
+        var token = sign(retiredKey, "retired", UnaryOperator.identity());
+
+        assertInstanceOf(Valid.class, assertSameAsParser(token));
+        assertHandledWithoutFallback();
+    }
+
+    @Test
+    void acceptsHs512Token() {
+        var token = sign(wideKey, "wide", UnaryOperator.identity());
+
+        assertInstanceOf(Valid.class, assertSameAsParser(token));
+        assertHandledWithoutFallback();
+    }
+
+    @Test
+    void acceptsLegacyTokenWithoutKeyId() {
+        var token = sign(primaryKey, null, UnaryOperator.identity());
+
+        assertInstanceOf(Valid.class, assertSameAsParser(token));
+        assertHandledWithoutFallback();
+    }
+
+    @Test
+    void delegatesUnknownKeyId() {
+        var token = sign(primaryKey, "rotated-away", UnaryOperator.identity());
+
+        assertEquals(Failure.MALFORMED, assertSameAsParser(token));
+        assertDelegated(token);
+    }
+
+    @Test
+    void delegatesFutureNotBefore() {
+        var token = sign(primaryKey, "primary",
+                builder -> builder.notBefore(new Date(System.currentTimeMillis() + 60_000)));
+
+        assertEquals(Failure.MALFORMED, assertSameAsParser(token));
+        assertDelegated(token);
+    }
+
+    @Test
+    void delegatesPastNotBefore() {
+        var token = sign(primaryKey, "primary",
+                builder -> builder.notBefore(new Date(System.currentTimeMillis() - 60_000)));
+
+        assertInstanceOf(Valid.class, assertSameAsParser(token));
+        assertDelegated(token);
+    }
+
+    @Test
+    void delegatesCompressedToken() {
+        var token = new JwtService(config(JwtConfig.ClaimProfile.COMPACT, 1))
+                .generateAccessToken(user(7, Set.of("USER"), 0))
+                .toString();
+
+        assertInstanceOf(Valid.class, assertSameAsParser(token));
+        assertDelegated(token);
+    }
+
+    @Test
+    void delegatesExtraHeaderParameters() {
+        var token = Jwts.builder()
+                .header().keyId("primary").add("trace", "abc").and()
+                .subject("42")
+                .claim("roles", "USER")
+                .claim("enabled", true)
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(primaryKey)
+                .compact();
+
+        assertInstanceOf(Valid.class, assertSameAsParser(token));
+        assertDelegated(token);
+    }
+
+    @Test
+    void delegatesNonHmacToken() {
+        var keyPair = Jwts.SIG.RS256.keyPair().build();
+        var token = sign(keyPair.getPrivate(), "primary", UnaryOperator.identity());
+
+        assertInstanceOf(Failure.class, assertSameAsParser(token));
+        assertDelegated(token);
+    }
+
+    @Test
+    void delegatesHmacTokenWithWrongAlgorithmForKey() {
+        var token = Jwts.builder()
+                .header().keyId("primary").and()
+                .subject("42")
+                .claim("enabled", true)
+                .signWith(wideKey, Jwts.SIG.HS384)
+                .compact();
+
+        assertInstanceOf(Failure.class, assertSameAsParser(token));
+        assertDelegated(token);
+    }
+
+    private TokenValidationResult assertSameAsParser(String token) {
+        var expected = parser.validateAccessToken(token);
+        var actual = verifier.verify(token);
+        assertEquals(expected, actual);
+        return actual;
+    }
+
+    private void assertHandledWithoutFallback() {
+        assertTrue(fallbackCalls.isEmpty(), "Unexpected fallback for " + fallbackCalls);
+    }
+
+    private void assertDelegated(String token) {
+        assertEquals(List.of(token), fallbackCalls);
+    }
+
+    private static String sign(Key key, String keyId, UnaryOperator<JwtBuilder> customizer) {
+        var builder = Jwts.builder();
+        if (keyId != null) {
+            builder.header().keyId(keyId);
+        }
+        builder.id(UUID.randomUUID().toString())
+                .subject("42")
+                .claim("email", "user@example.com")
+                .claim("roles", "USER")
+                .claim("enabled", true)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000));
+        return customizer.apply(builder).signWith(key).compact();
+    }
+
+    private static JwtConfig config(JwtConfig.ClaimProfile claimProfile, int compressionThreshold) {
+        var retired = new JwtConfig.VerificationKey();
+        retired.setKeyId("retired");
+        retired.setSecret(RETIRED_SECRET);
+        var wide = new JwtConfig.VerificationKey();
+        wide.setKeyId("wide");
+        wide.setSecret(WIDE_SECRET);
+
+        var config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setAccessTokenExpiration(900);
+        config.setRefreshTokenExpiration(3600);
+        config.setVerificationKeys(new ArrayList<>(List.of(retired, wide)));
+        config.setClaimProfile(claimProfile);
+        config.getCompact().setRoles(ROLES);
+        config.getCompact().setCompressionThreshold(compressionThreshold);
+        return config;
+    }
+
+    private static Key hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JwtUser user(long id, Set<String> roles, long tokenEpoch) {
+        return new JwtUser() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return "user" + id + "@example.com";
+            }
+
+            @Override
+            public String getUsername() {
+                return "user" + id;
+            }
+
+            @Override
+            public String getFirstName() {
+                return "Test";
+            }
+
+            @Override
+            public String getLastName() {
+                return "User";
+            }
+
+            @Override
+            public Set<String> getRoles() {
+                return roles;
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public long getTokenEpoch() {
+                return tokenEpoch;
+            }
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package com.krd.starter.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevocationBloomFilterTest {
+
+    private static final long BUCKET_MILLIS = 60_000;
+
+    /**
+     * Start of a bucket, well after the epoch.
+     */
+    private static final long BUCKET_START = 1_000 * BUCKET_MILLIS;
+
+    private final RevocationBloomFilter filter = new RevocationBloomFilter(BUCKET_MILLIS, 1000, 0.01);
+
+    @Test
+    void containsEveryAddedToken() {
+        var tokenIds = new ArrayList<String>();
+        for (int i = 0; i < 5000; i++) {
+            var tokenId = UUID.randomUUID().toString();
+            tokenIds.add(tokenId);
+            // Spread over five buckets, beyond the expected load of each
+            filter.add(tokenId, BUCKET_START + i * BUCKET_MILLIS / 1000);
+        }
+
+        for (int i = 0; i < tokenIds.size(); i++) {
+            assertTrue(filter.mightContain(tokenIds.get(i), BUCKET_START + i * BUCKET_MILLIS / 1000));
+        }
+        assertEquals(5, filter.bucketCount());
+    }
+
+    @Test
+    void rejectsMostOtherTokensAtExpectedLoad() {
+        for (int i = 0; i < 1000; i++) {
+            filter.add(UUID.randomUUID().toString(), BUCKET_START);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString(), BUCKET_START)) {
+                falsePositives++;
+            }
+        }
+        // Target 1%; allow for variance
+        assertTrue(falsePositives < 2000, falsePositives + " false positives");
+    }
+
+    @Test
+    void looksUpOnlyTheBucketOfTheExpiration() {
+        filter.add("token", BUCKET_START);
+
+        assertTrue(filter.mightContain("token", BUCKET_START + BUCKET_MILLIS - 1));
+        assertFalse(filter.mightContain("token", BUCKET_START + BUCKET_MILLIS));
+        assertFalse(filter.mightContain("token", BUCKET_START - 1));
+    }
+
+    @Test
+    void keepsBucketUntilAllItsTokensExpired() {
+        filter.add("first", BUCKET_START);
+        filter.add("last", BUCKET_START + BUCKET_MILLIS - 1);
+
+        filter.dropExpired(BUCKET_START + BUCKET_MILLIS - 1);
+
+        assertTrue(filter.mightContain("first", BUCKET_START));
+        assertTrue(filter.mightContain("last", BUCKET_START + BUCKET_MILLIS - 1));
+        assertEquals(1, filter.bucketCount());
+    }
+
+    @Test
+    void dropsBucketOnRollover() {
+        filter.add("expired", BUCKET_START + BUCKET_MILLIS - 1);
+        filter.add("current", BUCKET_START + BUCKET_MILLIS);
+        filter.add("future", BUCKET_START + 5 * BUCKET_MILLIS);
+
+        filter.dropExpired(BUCKET_START + BUCKET_MILLIS);
+
+        assertFalse(filter.mightContain("expired", BUCKET_START + BUCKET_MILLIS - 1));
+        assertTrue(filter.mightContain("current", BUCKET_START + BUCKET_MILLIS));
+        assertTrue(filter.mightContain("future", BUCKET_START + 5 * BUCKET_MILLIS));
+        assertEquals(2, filter.bucketCount());
+
+        filter.dropExpired(BUCKET_START + 10 * BUCKET_MILLIS);
+
+        assertEquals(0, filter.bucketCount());
+    }
+
+    @Test
+    void acceptsTokensAddedAfterRollover() {
+        filter.add("old", BUCKET_START);
+        filter.dropExpired(BUCKET_START + BUCKET_MILLIS);
+
+        filter.add("new", BUCKET_START + BUCKET_MILLIS);
+
+        assertTrue(filter.mightContain("new", BUCKET_START + BUCKET_MILLIS));
+        assertEquals(1, filter.bucketCount());
+    }
+
+    @Test
+    void keepsConcurrentlyAddedTokens() throws Exception {
+        var writers = new ArrayList<CompletableFuture<Void>>();
+        for (int w = 0; w < 4; w++) {
+            int writer = w;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    filter.add(writer + "-" + i, BUCKET_START + i % 3 * BUCKET_MILLIS);
+                }
+            }));
+        }
+        for (var writer : writers) {
+            writer.get();
+        }
+
+        for (int w = 0; w < 4; w++) {
+            for (int i = 0; i < 2000; i++) {
+                assertTrue(filter.mightContain(w + "-" + i, BUCKET_START + i % 3 * BUCKET_MILLIS));
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new RevocationBloomFilter(0, 1000, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new RevocationBloomFilter(BUCKET_MILLIS, 0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new RevocationBloomFilter(BUCKET_MILLIS, 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RevocationBloomFilter(BUCKET_MILLIS, 1000, 1));
+    }
+}
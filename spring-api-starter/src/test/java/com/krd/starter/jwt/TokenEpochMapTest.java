@@ -0,0 +1,191 @@
+package com.krd.starter.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenEpochMapTest {
+
+    private final TokenEpochMap map = new TokenEpochMap();
+
+    @Test
+    void returnsZeroForUnknownUsers() {
+        map.advance(1, 100);
+
+        assertEquals(0, map.get(2));
+        assertEquals(0, map.get(0));
+        assertEquals(0, map.get(-1));
+    }
+
+    @Test
+    void advancesEpochs() {
+        map.advance(1, 100);
+        map.advance(1, 200);
+
+        assertEquals(200, map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void ignoresOlderEpochs() {
+        map.advance(1, 200);
+        map.advance(1, 100);
+        map.advance(1, 200);
+
+        assertEquals(200, map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void ignoresInvalidIdsAndEpochs() {
+        map.advance(0, 100);
+        map.advance(-1, 100);
+        map.advance(1, 0);
+        map.advance(2, -5);
+
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(1));
+    }
+
+    @Test
+    void growsPastHalfFull() {
+        int initialCapacity = map.capacity();
+        for (long id = 1; id <= initialCapacity / 2; id++) {
+            map.advance(id, 1000 + id);
+        }
+        assertEquals(initialCapacity, map.capacity());
+
+        map.advance(initialCapacity, 1);
+
+        assertEquals(2 * initialCapacity, map.capacity());
+        assertEquals(initialCapacity / 2 + 1, map.size());
+        for (long id = 1; id <= initialCapacity / 2; id++) {
+            assertEquals(1000 + id, map.get(id));
+        }
+        assertEquals(1, map.get(initialCapacity));
+    }
+
+    @Test
+    void keepsEveryEntryWhileGrowing() {
+        for (long id = 1; id <= 100_000; id++) {
+            map.advance(id * 7919, id);
+        }
+
+        assertEquals(100_000, map.size());
+        assertTrue(2 * map.size() <= map.capacity());
+        for (long id = 1; id <= 100_000; id++) {
+            assertEquals(id, map.get(id * 7919));
+        }
+        assertEquals(0, map.get(7918));
+    }
+
+    @Test
+    void removeOlderThanDropsOnlyOlderEpochs() {
+        map.advance(1, 100);
+        map.advance(2, 200);
+        map.advance(3, 300);
+
+        assertEquals(1, map.removeOlderThan(200));
+
+        assertEquals(0, map.get(1));
+        assertEquals(200, map.get(2));
+        assertEquals(300, map.get(3));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void removeOlderThanShrinksWithoutLosingKeptEntries() {
+        for (long id = 1; id <= 10_000; id++) {
+            // Every hundredth user keeps a recent epoch
+            map.advance(id, id % 100 == 0 ? 5000 : 1);
+        }
+        int grownCapacity = map.capacity();
+
+        assertEquals(9_900, map.removeOlderThan(2));
+
+        assertEquals(100, map.size());
+        assertTrue(map.capacity() < grownCapacity);
+        assertTrue(2 * map.size() <= map.capacity());
+        for (long id = 1; id <= 10_000; id++) {
+            assertEquals(id % 100 == 0 ? 5000 : 0, map.get(id));
+        }
+
+        // The shrunk table still grows again as needed
+        for (long id = 10_001; id <= 20_000; id++) {
+            map.advance(id, 6000);
+        }
+        assertEquals(10_100, map.size());
+        assertEquals(5000, map.get(100));
+        assertEquals(6000, map.get(20_000));
+    }
+
+    @Test
+    void removeOlderThanShrinksToMinimumCapacity() {
+        int initialCapacity = map.capacity();
+        for (long id = 1; id <= 10_000; id++) {
+            map.advance(id, 1);
+        }
+
+        map.removeOlderThan(2);
+
+        assertEquals(0, map.size());
+        assertEquals(initialCapacity, map.capacity());
+    }
+
+    @Test
+    void getRacingAdvanceAndRehashSeesConsistentEpochs() throws Exception {
+        // Users present throughout, with a fixed and with a growing epoch
+        long stableEpoch = 1_000_000_000L;
+        for (long id = 1; id <= 1000; id++) {
+            map.advance(id, stableEpoch + id);
+        }
+        long growingId = 500;
+
+        var stop = new AtomicBoolean();
+        var readers = new ArrayList<CompletableFuture<List<String>>>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(CompletableFuture.supplyAsync(() -> {
+                var errors = new ArrayList<String>();
+                long lastGrowing = 0;
+                while (!stop.get() && errors.isEmpty()) {
+                    for (long id = 1; id <= 1000; id++) {
+                        long epoch = map.get(id);
+                        if (id == growingId) {
+                            if (epoch < lastGrowing || epoch < stableEpoch + id) {
+                                errors.add("user " + id + " went back to " + epoch + " from " + lastGrowing);
+                            }
+                            lastGrowing = epoch;
+                        } else if (epoch != stableEpoch + id) {
+                            errors.add("user " + id + " read " + epoch);
+                        }
+                    }
+                }
+                return errors;
+            }));
+        }
+
+        // Churn: users that grow the table and are removed again, shrinking it
+        for (int round = 1; round <= 200; round++) {
+            for (long id = 1001; id <= 5000; id++) {
+                map.advance(id, round);
+                if (id % 100 == 0) {
+                    map.advance(growingId, 2 * stableEpoch + round * 5000L + id);
+                }
+            }
+            map.removeOlderThan(round + 1);
+        }
+        stop.set(true);
+
+        for (var reader : readers) {
+            assertEquals(List.of(), reader.get(30, TimeUnit.SECONDS));
+        }
+        assertEquals(1000, map.size());
+    }
+}
@@ -0,0 +1,169 @@
+package com.krd.starter.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link TokenRevocationService} against an in-memory store that other instances
+ * write to.
+ */
+class TokenRevocationServiceTest {
+
+    private final InMemoryStore store = new InMemoryStore();
+
+    @Test
+    void rejectsTokensRevokedBeforeStartup() {
+        var expiresAt = Instant.now().plus(Duration.ofMinutes(10));
+        store.insert("revoked", expiresAt, Instant.now().minus(Duration.ofHours(1)));
+
+        var service = service();
+
+        assertTrue(service.isRevoked("revoked", expiresAt.toEpochMilli()));
+        assertFalse(service.isRevoked("other", expiresAt.toEpochMilli()));
+    }
+
+    @Test
+    void keepsRejectingRevokedTokenAcrossPolls() {
+        var service = service();
+        var expiresAt = Instant.now().plus(Duration.ofMinutes(10));
+        store.insert("revoked", expiresAt, Instant.now());
+
+        for (int i = 0; i < 5; i++) {
+            service.poll();
+            assertTrue(service.isRevoked("revoked", expiresAt.toEpochMilli()));
+        }
+    }
+
+    @Test
+    void answersNegativesWithoutStoreLookups() {
+        var service = service();
+        var expiresAt = Instant.now().plus(Duration.ofMinutes(10));
+        store.insert("revoked", expiresAt, Instant.now());
+        service.poll();
+        store.lookups = 0;
+
+        for (int i = 0; i < 1000; i++) {
+            service.isRevoked("token-" + i, expiresAt.toEpochMilli());
+        }
+
+        // Only Bloom filter false positives reach the store
+        assertTrue(store.lookups < 50, store.lookups + " lookups");
+    }
+
+    @Test
+    void picksUpRevocationCommittedDuringPoll() {
+        var service = service();
+        var expiresAt = Instant.now().plus(Duration.ofMinutes(10));
+        // Another instance stamps a revocation before this poll starts and commits it
+        // only after the poll has read the table
+        store.duringNextQuery = () -> store.insert("in-flight", expiresAt, Instant.now().minusMillis(1));
+
+        service.poll();
+        assertFalse(service.isRevoked("in-flight", expiresAt.toEpochMilli()));
+
+        service.poll();
+        assertTrue(service.isRevoked("in-flight", expiresAt.toEpochMilli()));
+    }
+
+    @Test
+    void picksUpRevocationOfInstanceWithClockBehind() {
+        var service = service();
+        service.poll();
+        var expiresAt = Instant.now().plus(Duration.ofMinutes(10));
+        // Stamped by an instance whose clock is 20 seconds behind, within the poll overlap
+        store.insert("skewed", expiresAt, Instant.now().minus(Duration.ofSeconds(20)));
+
+        service.poll();
+
+        assertTrue(service.isRevoked("skewed", expiresAt.toEpochMilli()));
+    }
+
+    @Test
+    void rereadsOverlapOnEveryPoll() {
+        var service = service();
+        service.poll();
+        var pollStart = Instant.now();
+
+        service.poll();
+
+        var since = store.queriedSince.getLast();
+        assertFalse(since.isAfter(pollStart.minus(Duration.ofSeconds(30))), "queried since " + since);
+    }
+
+    @Test
+    void deletesExpiredRevocationsOnPoll() {
+        var service = service();
+        store.insert("expired", Instant.now().minusSeconds(1), Instant.now().minus(Duration.ofMinutes(20)));
+
+        service.poll();
+
+        assertEquals(0, store.rows.size());
+    }
+
+    private TokenRevocationService service() {
+        var config = new JwtConfig.Revocation();
+        config.setEnabled(true);
+        config.setBucketWidth(Duration.ofMinutes(1));
+        config.setExpectedRevocationsPerBucket(1000);
+        return new TokenRevocationService(store, config);
+    }
+
+    /**
+     * Store of the rows of the {@code revoked_tokens} table, committed in insertion order.
+     */
+    private static class InMemoryStore implements TokenRevocationStore {
+
+        private record Row(String tokenId, Instant expiresAt, Instant revokedAt) {
+        }
+
+        private final List<Row> rows = new ArrayList<>();
+        private final List<Instant> queriedSince = new ArrayList<>();
+        private Runnable duringNextQuery;
+        private int lookups;
+
+        void insert(String tokenId, Instant expiresAt, Instant revokedAt) {
+            rows.add(new Row(tokenId, expiresAt, revokedAt));
+        }
+
+        @Override
+        public void revoke(String tokenId, Instant expiresAt) {
+            insert(tokenId, expiresAt, Instant.now());
+        }
+
+        @Override
+        public boolean isRevoked(String tokenId) {
+            lookups++;
+            return rows.stream().anyMatch(row -> row.tokenId().equals(tokenId));
+        }
+
+        @Override
+        public List<RevokedToken> findRevokedSince(Instant revokedSince, Instant now) {
+            queriedSince.add(revokedSince);
+            var found = rows.stream()
+                    .filter(row -> !row.revokedAt().isBefore(revokedSince) && row.expiresAt().isAfter(now))
+                    .map(row -> new RevokedToken(row.tokenId(), row.expiresAt()))
+                    .toList();
+            if (duringNextQuery != null) {
+                var commit = duringNextQuery;
+                duringNextQuery = null;
+                commit.run();
+            }
+            return found;
+        }
+
+        @Override
+        public int deleteExpired(Instant now) {
+            int before = rows.size();
+            rows.removeIf(row -> !row.expiresAt().isAfter(now));
+            return before - rows.size();
+        }
+    }
+}
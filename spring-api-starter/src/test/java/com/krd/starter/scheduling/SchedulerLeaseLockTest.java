@@ -0,0 +1,209 @@
+package com.krd.starter.scheduling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link SchedulerLeaseLock} against an in-memory H2 database in MySQL mode, with one
+ * lock per simulated instance sharing the {@code scheduler_leases} table.
+ */
+class SchedulerLeaseLockTest {
+
+    private static final String JOB = "test-job";
+    private static final Duration LEASE_TIME = Duration.ofMinutes(10);
+    private static final int INSTANCES = 8;
+
+    private JdbcTemplate jdbcTemplate;
+    private SchedulerLeaseLock first;
+    private SchedulerLeaseLock second;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE scheduler_leases (name VARCHAR(100) PRIMARY KEY,"
+                + " holder VARCHAR(255) NOT NULL, lease_until TIMESTAMP(9) NOT NULL, acquired_at TIMESTAMP(9) NOT NULL)");
+        first = new SchedulerLeaseLock(jdbcTemplate, "first");
+        second = new SchedulerLeaseLock(jdbcTemplate, "second");
+        pool = Executors.newFixedThreadPool(INSTANCES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void acquiresFreeLease() {
+        var lease = first.tryAcquire(JOB, LEASE_TIME);
+
+        assertNotNull(lease);
+        assertEquals(JOB, lease.name());
+        assertTrue(lease.holder().startsWith("first/"));
+        assertEquals(lease.holder(), holder());
+    }
+
+    @Test
+    void refusesLeaseHeldByAnotherInstance() {
+        var lease = first.tryAcquire(JOB, LEASE_TIME);
+
+        assertNull(second.tryAcquire(JOB, LEASE_TIME));
+        assertEquals(lease.holder(), holder());
+    }
+
+    @Test
+    void refusesLeaseHeldByAnotherRunOfTheSameInstance() {
+        first.tryAcquire(JOB, LEASE_TIME);
+
+        assertNull(first.tryAcquire(JOB, LEASE_TIME));
+    }
+
+    @Test
+    void keepsLeasesOfDifferentNamesApart() {
+        assertNotNull(first.tryAcquire(JOB, LEASE_TIME));
+        assertNotNull(second.tryAcquire("other-job", LEASE_TIME));
+    }
+
+    @Test
+    void takesOverExpiredLease() {
+        var expired = first.tryAcquire(JOB, LEASE_TIME);
+        expire();
+
+        var lease = second.tryAcquire(JOB, LEASE_TIME);
+
+        assertNotNull(lease);
+        assertNotEquals(expired.holder(), lease.holder());
+        assertEquals(lease.holder(), holder());
+    }
+
+    @Test
+    void renewsHeldLease() {
+        var lease = first.tryAcquire(JOB, Duration.ofSeconds(1));
+
+        assertTrue(first.renew(lease, LEASE_TIME));
+        assertTrue(leaseUntil().isAfter(lease.acquiredAt().plus(Duration.ofMinutes(9))));
+    }
+
+    @Test
+    void failsToRenewLeaseTakenOver() {
+        var lost = first.tryAcquire(JOB, LEASE_TIME);
+        expire();
+        var lease = second.tryAcquire(JOB, LEASE_TIME);
+
+        assertFalse(first.renew(lost, LEASE_TIME));
+        assertTrue(second.renew(lease, LEASE_TIME));
+        assertEquals(lease.holder(), holder());
+    }
+
+    @Test
+    void releaseFreesLease() {
+        var lease = first.tryAcquire(JOB, LEASE_TIME);
+
+        first.release(lease, Duration.ZERO);
+
+        assertNotNull(second.tryAcquire(JOB, LEASE_TIME));
+    }
+
+    @Test
+    void releaseKeepsLeaseForMinLeaseTime() {
+        var lease = first.tryAcquire(JOB, LEASE_TIME);
+
+        first.release(lease, Duration.ofMinutes(1));
+
+        assertNull(second.tryAcquire(JOB, LEASE_TIME));
+        assertEquals(lease.acquiredAt().plus(Duration.ofMinutes(1)), leaseUntil());
+    }
+
+    @Test
+    void releaseOfLeaseTakenOverLeavesNewHolder() {
+        var lost = first.tryAcquire(JOB, LEASE_TIME);
+        expire();
+        var lease = second.tryAcquire(JOB, LEASE_TIME);
+
+        first.release(lost, Duration.ZERO);
+
+        assertEquals(lease.holder(), holder());
+        assertNull(first.tryAcquire(JOB, LEASE_TIME));
+    }
+
+    @Test
+    void oneInstanceWinsRaceForNewLease() throws Exception {
+        assertEquals(1, race());
+    }
+
+    @Test
+    void oneInstanceWinsRaceForExpiredLease() throws Exception {
+        first.tryAcquire(JOB, LEASE_TIME);
+        expire();
+
+        assertEquals(1, race());
+    }
+
+    /**
+     * Lets several instances try to take the lease at the same time.
+     *
+     * @return how many got it
+     */
+    private long race() throws Exception {
+        var start = new CountDownLatch(1);
+        var attempts = new ArrayList<Future<SchedulerLeaseLock.Lease>>();
+        for (int i = 0; i < INSTANCES; i++) {
+            var lock = new SchedulerLeaseLock(jdbcTemplate, "instance-" + i);
+            Callable<SchedulerLeaseLock.Lease> attempt = () -> {
+                start.await();
+                return lock.tryAcquire(JOB, LEASE_TIME);
+            };
+            attempts.add(pool.submit(attempt));
+        }
+        start.countDown();
+
+        List<SchedulerLeaseLock.Lease> leases = new ArrayList<>();
+        for (var attempt : attempts) {
+            leases.add(attempt.get());
+        }
+        var winners = leases.stream().filter(Objects::nonNull).toList();
+        if (winners.size() == 1) {
+            assertEquals(winners.getFirst().holder(), holder());
+        }
+        return winners.size();
+    }
+
+    private void expire() {
+        jdbcTemplate.update("UPDATE scheduler_leases SET lease_until = ? WHERE name = ?",
+                Timestamp.from(Instant.now().minusSeconds(1)), JOB);
+    }
+
+    private String holder() {
+        return jdbcTemplate.queryForObject("SELECT holder FROM scheduler_leases WHERE name = ?", String.class, JOB);
+    }
+
+    private Instant leaseUntil() {
+        return jdbcTemplate.queryForObject("SELECT lease_until FROM scheduler_leases WHERE name = ?",
+                Timestamp.class, JOB).toInstant();
+    }
+}
@@ -0,0 +1,112 @@
+package com.krd.starter.scheduling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link SingleNodeJobInterceptor} around a proxied job, with the lease lock on an
+ * in-memory H2 database in MySQL mode.
+ */
+class SingleNodeJobInterceptorTest {
+
+    private static final String JOB = "test-job";
+
+    private JdbcTemplate jdbcTemplate;
+    private SingleNodeJobInterceptor interceptor;
+    private Jobs jobs;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE scheduler_leases (name VARCHAR(100) PRIMARY KEY,"
+                + " holder VARCHAR(255) NOT NULL, lease_until TIMESTAMP(9) NOT NULL, acquired_at TIMESTAMP(9) NOT NULL)");
+
+        var beanFactory = new StaticListableBeanFactory(
+                Map.of("schedulerLeaseLock", new SchedulerLeaseLock(jdbcTemplate, "first")));
+        interceptor = new SingleNodeJobInterceptor(beanFactory.getBeanProvider(SchedulerLeaseLock.class));
+
+        var proxyFactory = new ProxyFactory(new Jobs(jdbcTemplate));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        jobs = (Jobs) proxyFactory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        interceptor.destroy();
+    }
+
+    @Test
+    void runsJobWhileHoldingLease() {
+        assertEquals("done", jobs.run());
+
+        assertTrue(holder().startsWith("first/"));
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void skipsJobWhileAnotherInstanceHoldsLease() {
+        new SchedulerLeaseLock(jdbcTemplate, "second").tryAcquire(JOB, Duration.ofMinutes(10));
+
+        assertNull(jobs.run());
+    }
+
+    @Test
+    void interruptsJobThatLostItsLease() {
+        assertEquals("interrupted", jobs.runUntilInterrupted());
+
+        // The interrupt stays within the job, and the new holder keeps the lease
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertEquals("second/taken-over", holder());
+    }
+
+    private String holder() {
+        return jdbcTemplate.queryForObject("SELECT holder FROM scheduler_leases WHERE name = ?", String.class, JOB);
+    }
+
+    static class Jobs {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        Jobs(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @SingleNodeJob(value = JOB, minLeaseTime = "PT0S")
+        public String run() {
+            return "done";
+        }
+
+        /**
+         * Lets another instance take the lease over, then waits to be interrupted.
+         */
+        @SingleNodeJob(value = JOB, leaseTime = "PT0.3S", minLeaseTime = "PT0S")
+        public String runUntilInterrupted() {
+            jdbcTemplate.update("UPDATE scheduler_leases SET holder = 'second/taken-over' WHERE name = ?", JOB);
+            try {
+                TimeUnit.SECONDS.sleep(10);
+                return "not interrupted";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "interrupted";
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.krd.starter.user;
+
+import com.krd.starter.user.dto.BulkUserJob;
+import com.krd.starter.user.dto.BulkUserOperationRequest;
+import com.krd.starter.user.dto.BulkUserOperationRequest.Operation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link BulkUserOperationService} jobs against an in-memory H2 database in MySQL mode,
+ * checking the admin invariants across chunks.
+ */
+class BulkUserOperationServiceTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private JdbcTemplate jdbcTemplate;
+    private BulkUserOperationService service;
+
+    /**
+     * The id of the user submitting jobs, or null for an unauthenticated caller.
+     */
+    private Long requestedBy;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, email VARCHAR(255) NOT NULL UNIQUE,"
+                + " enabled BOOLEAN NOT NULL DEFAULT TRUE, deleted_at TIMESTAMP NULL,"
+                + " token_epoch BIGINT NOT NULL DEFAULT 0)");
+        jdbcTemplate.execute("CREATE TABLE user_roles (user_id BIGINT NOT NULL REFERENCES users (id),"
+                + " role VARCHAR(50) NOT NULL, PRIMARY KEY (user_id, role))");
+        jdbcTemplate.execute("CREATE TABLE role_change_logs (id BIGINT AUTO_INCREMENT PRIMARY KEY,"
+                + " user_id BIGINT, changed_by_user_id BIGINT, role VARCHAR(50) NOT NULL,"
+                + " action VARCHAR(20) NOT NULL, changed_at TIMESTAMP NOT NULL,"
+                + " user_email VARCHAR(255), changed_by_email VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE bulk_user_jobs (id VARCHAR(36) PRIMARY KEY, operation VARCHAR(20) NOT NULL,"
+                + " role VARCHAR(50), status VARCHAR(20) NOT NULL, requested_by BIGINT,"
+                + " total BIGINT NOT NULL DEFAULT 0, processed BIGINT NOT NULL DEFAULT 0,"
+                + " updated BIGINT NOT NULL DEFAULT 0, skipped BIGINT NOT NULL DEFAULT 0,"
+                + " failed BIGINT NOT NULL DEFAULT 0, error VARCHAR(1000), created_at TIMESTAMP(3) NOT NULL,"
+                + " started_at TIMESTAMP(3), finished_at TIMESTAMP(3), owner VARCHAR(255), heartbeat_at TIMESTAMP(3))");
+
+        var config = new UserManagementConfig();
+        config.getBulkOperations().setChunkSize(2);
+        config.getBulkOperations().setPauseRatio(0);
+        config.getBulkOperations().setStaleAfter(Duration.ofMinutes(10));
+
+        service = new BulkUserOperationService(config, jdbcTemplate, new DataSourceTransactionManager(dataSource));
+        service.setCurrentIdentity(new CurrentIdentity() {
+            @Override
+            public Long getUserId() {
+                return requestedBy;
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.destroy();
+    }
+
+    @Test
+    void disablesSelectedUsers() throws InterruptedException {
+        insertUser(1, "USER");
+        insertUser(2, "USER");
+        insertUser(3, "USER");
+        insertUser(4, "USER");
+
+        var job = run(byIds(Operation.DISABLE, null, 1L, 2L, 3L));
+
+        assertEquals(BulkUserJob.Status.COMPLETED, job.status());
+        assertEquals(3, job.total());
+        assertEquals(3, job.processed());
+        assertEquals(3, job.updated());
+        assertEquals(List.of(4L), enabledUserIds());
+        assertTrue(tokenEpoch(1) > 0);
+        assertEquals(0, tokenEpoch(4));
+    }
+
+    @Test
+    void neverDisablesRequester() throws InterruptedException {
+        insertUser(1, "USER", "ADMIN");
+        insertUser(2, "USER", "ADMIN");
+        insertUser(3, "USER");
+        requestedBy = 1L;
+
+        var job = run(byFilter(Operation.DISABLE, null, new BulkUserOperationRequest.Filter()));
+
+        assertEquals(BulkUserJob.Status.COMPLETED, job.status());
+        assertEquals(2, job.updated());
+        assertEquals(1, job.skipped());
+        assertEquals(List.of(1L), enabledUserIds());
+    }
+
+    @Test
+    void neverDeletesRequester() throws InterruptedException {
+        insertUser(1, "USER", "ADMIN");
+        insertUser(2, "USER", "ADMIN");
+        requestedBy = 1L;
+
+        var job = run(byIds(Operation.SOFT_DELETE, null, 1L, 2L));
+
+        assertEquals(1, job.updated());
+        assertEquals(1, job.skipped());
+        assertEquals(List.of(1L), activeUserIds());
+        assertEquals("user2@example.com_deleted", email(2));
+    }
+
+    @Test
+    void neverDemotesRequester() throws InterruptedException {
+        insertUser(1, "USER", "ADMIN");
+        insertUser(2, "USER", "ADMIN");
+        requestedBy = 1L;
+
+        var job = run(byIds(Operation.REMOVE_ROLE, "ADMIN", 1L, 2L));
+
+        assertEquals(1, job.updated());
+        assertEquals(1, job.skipped());
+        assertEquals(List.of(1L), admins());
+    }
+
+    @Test
+    void keepsLastAdminAcrossChunks() throws InterruptedException {
+        insertUser(1, "USER", "ADMIN");
+        insertUser(2, "USER", "ADMIN");
+        insertUser(3, "USER", "ADMIN");
+        insertUser(4, "USER");
+
+        var filter = new BulkUserOperationRequest.Filter();
+        filter.setRole("ADMIN");
+        var job = run(byFilter(Operation.DISABLE, null, filter));
+
+        // The first chunk leaves admin 3, which the second chunk then keeps
+        assertEquals(BulkUserJob.Status.COMPLETED, job.status());
+        assertEquals(2, job.updated());
+        assertEquals(1, job.skipped());
+        assertEquals(List.of(3L, 4L), enabledUserIds());
+    }
+
+    @Test
+    void keepsLastAdminWhenDemoting() throws InterruptedException {
+        insertUser(1, "USER", "ADMIN");
+        insertUser(2, "USER", "ADMIN");
+
+        var job = run(byIds(Operation.REMOVE_ROLE, "ADMIN", 1L, 2L));
+
+        assertEquals(1, job.updated());
+        assertEquals(1, job.skipped());
+        assertEquals(List.of(1L), admins());
+    }
+
+    @Test
+    void doesNotCountDisabledAdminsAsRemaining() throws InterruptedException {
+        insertUser(1, "USER", "ADMIN");
+        insertUser(2, "USER", "ADMIN");
+        jdbcTemplate.update("UPDATE users SET enabled = FALSE WHERE id = 2");
+
+        var job = run(byIds(Operation.SOFT_DELETE, null, 1L));
+
+        assertEquals(0, job.updated());
+        assertEquals(1, job.skipped());
+        assertEquals(List.of(1L, 2L), activeUserIds());
+    }
+
+    @Test
+    void keepsLastRoleOfUsers() throws InterruptedException {
+        insertUser(1, "USER", "ADMIN");
+        insertUser(2, "USER");
+        insertUser(3, "USER", "ADMIN");
+        requestedBy = 1L;
+
+        var job = run(byIds(Operation.REMOVE_ROLE, "USER", 1L, 2L, 3L));
+
+        assertEquals(2, job.updated());
+        assertEquals(1, job.skipped());
+        assertEquals(List.of(2L), usersWithRole("USER"));
+        assertEquals(List.of(1L, 3L), jdbcTemplate.queryForList(
+                "SELECT user_id FROM role_change_logs WHERE role = 'USER' AND action = 'REMOVED'"
+                        + " AND changed_by_user_id = 1 AND changed_by_email = 'user1@example.com' ORDER BY user_id",
+                Long.class));
+    }
+
+    @Test
+    void skipsUsersAlreadyInRequestedState() throws InterruptedException {
+        insertUser(1, "USER", "ADMIN");
+        insertUser(2, "USER");
+        insertUser(3, "USER");
+
+        var job = run(byIds(Operation.ADD_ROLE, "ADMIN", 1L, 2L, 3L, 99L));
+
+        assertEquals(2, job.updated());
+        assertEquals(2, job.skipped());
+        assertEquals(List.of(1L, 2L, 3L), admins());
+    }
+
+    @Test
+    void rejectsRoleOperationWithoutRole() {
+        assertThrows(IllegalArgumentException.class, () -> service.submit(byIds(Operation.ADD_ROLE, null, 1L)));
+    }
+
+    @Test
+    void rejectsRequestWithIdsAndFilter() {
+        var request = byIds(Operation.DISABLE, null, 1L);
+        request.setFilter(new BulkUserOperationRequest.Filter());
+
+        assertThrows(IllegalArgumentException.class, () -> service.submit(request));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submit(byFilter(Operation.DISABLE, null, null)));
+    }
+
+    @Test
+    void recordsOwnerAndHeartbeatOfJobs() throws InterruptedException {
+        insertUser(1, "USER");
+
+        var job = run(byIds(Operation.DISABLE, null, 1L));
+
+        var row = jdbcTemplate.queryForMap("SELECT owner, heartbeat_at FROM bulk_user_jobs WHERE id = ?", job.id());
+        assertNotNull(row.get("owner"));
+        assertNotNull(row.get("heartbeat_at"));
+    }
+
+    @Test
+    void failsAbandonedJobOnRead() {
+        insertJob("stale", BulkUserJob.Status.RUNNING, 11);
+
+        var job = service.getJob("stale");
+
+        assertEquals(BulkUserJob.Status.FAILED, job.status());
+        assertTrue(job.error().startsWith("Abandoned"), job.error());
+        assertNotNull(job.finishedAt());
+    }
+
+    @Test
+    void keepsJobWithRecentHeartbeatRunning() {
+        insertJob("fresh", BulkUserJob.Status.RUNNING, 9);
+
+        var job = service.getJob("fresh");
+
+        assertEquals(BulkUserJob.Status.RUNNING, job.status());
+        assertNull(job.error());
+    }
+
+    @Test
+    void failsAbandonedJobsOnStartup() {
+        insertJob("stale-queued", BulkUserJob.Status.QUEUED, 30);
+        insertJob("stale-running", BulkUserJob.Status.RUNNING, 30);
+        insertJob("fresh", BulkUserJob.Status.RUNNING, 1);
+        insertJob("completed", BulkUserJob.Status.COMPLETED, 30);
+
+        service.afterPropertiesSet();
+
+        assertEquals("FAILED", status("stale-queued"));
+        assertEquals("FAILED", status("stale-running"));
+        assertEquals("RUNNING", status("fresh"));
+        assertEquals("COMPLETED", status("completed"));
+    }
+
+    /**
+     * Inserts a job of another instance, whose last heartbeat was some minutes ago.
+     */
+    private void insertJob(String id, BulkUserJob.Status status, int heartbeatMinutesAgo) {
+        var heartbeatAt = Timestamp.valueOf(LocalDateTime.now().minusMinutes(heartbeatMinutesAgo));
+        jdbcTemplate.update("INSERT INTO bulk_user_jobs (id, operation, status, created_at, owner, heartbeat_at)"
+                + " VALUES (?, 'DISABLE', ?, ?, 'crashed@host', ?)", id, status.name(), heartbeatAt, heartbeatAt);
+    }
+
+    private String status(String jobId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM bulk_user_jobs WHERE id = ?", String.class, jobId);
+    }
+
+    /**
+     * Submits a job and waits until it finished.
+     */
+    private BulkUserJob run(BulkUserOperationRequest request) throws InterruptedException {
+        var id = service.submit(request).id();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            var job = service.getJob(id);
+            if (job.status() == BulkUserJob.Status.COMPLETED || job.status() == BulkUserJob.Status.FAILED) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job " + id + " did not finish");
+    }
+
+    private static BulkUserOperationRequest byIds(Operation operation, String role, Long... userIds) {
+        var request = new BulkUserOperationRequest();
+        request.setOperation(operation);
+        request.setRole(role);
+        request.setUserIds(List.of(userIds));
+        return request;
+    }
+
+    private static BulkUserOperationRequest byFilter(Operation operation, String role,
+                                                     BulkUserOperationRequest.Filter filter) {
+        var request = new BulkUserOperationRequest();
+        request.setOperation(operation);
+        request.setRole(role);
+        request.setFilter(filter);
+        return request;
+    }
+
+    private void insertUser(long id, String... roles) {
+        jdbcTemplate.update("INSERT INTO users (id, email) VALUES (?, ?)", id, "user" + id + "@example.com");
+        for (var role : roles) {
+            jdbcTemplate.update("INSERT INTO user_roles (user_id, role) VALUES (?, ?)", id, role);
+        }
+    }
+
+    private List<Long> enabledUserIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE enabled = TRUE ORDER BY id", Long.class);
+    }
+
+    private List<Long> activeUserIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE deleted_at IS NULL ORDER BY id", Long.class);
+    }
+
+    private List<Long> admins() {
+        return usersWithRole("ADMIN");
+    }
+
+    private List<Long> usersWithRole(String role) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM user_roles WHERE role = ? ORDER BY user_id",
+                Long.class, role);
+    }
+
+    private long tokenEpoch(long id) {
+        return jdbcTemplate.queryForObject("SELECT token_epoch FROM users WHERE id = ?", Long.class, id);
+    }
+
+    private String email(long id) {
+        return jdbcTemplate.queryForObject("SELECT email FROM users WHERE id = ?", String.class, id);
+    }
+}
@@ -0,0 +1,78 @@
+package com.krd.starter.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CaffeineUserSnapshotCacheTest {
+
+    private final CaffeineUserSnapshotCache cache = new CaffeineUserSnapshotCache(100, Duration.ofMinutes(5));
+
+    @Test
+    void loadsOnceAndServesCachedSnapshot() {
+        var loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1, id -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(1, id -> "v" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void doesNotCacheMissingUser() {
+        assertNull(cache.get(1, id -> null));
+        assertEquals("found", cache.get(1, id -> "found"));
+    }
+
+    @Test
+    void invalidateDropsSnapshot() {
+        cache.get(1, id -> "old");
+
+        cache.invalidate(1);
+
+        assertEquals("new", cache.get(1, id -> "new"));
+    }
+
+    @Test
+    void invalidateDuringLoadDropsLoadedSnapshot() throws Exception {
+        var loading = new CountDownLatch(1);
+        var finishLoad = new CountDownLatch(1);
+        // A reader loads the user before a write commits...
+        var reader = CompletableFuture.supplyAsync(() -> cache.get(1, id -> {
+            loading.countDown();
+            await(finishLoad);
+            return "before write";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // ...and the writer invalidates the user while the stale load is still running
+        var writer = new Thread(() -> cache.invalidate(1));
+        writer.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getState() != Thread.State.BLOCKED && writer.getState() != Thread.State.WAITING
+                && writer.isAlive() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        finishLoad.countDown();
+        writer.join(5_000);
+
+        assertEquals("before write", reader.get(5, TimeUnit.SECONDS));
+        assertEquals("after write", cache.get(1, id -> "after write"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
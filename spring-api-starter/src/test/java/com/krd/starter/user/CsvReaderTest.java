@@ -0,0 +1,103 @@
+package com.krd.starter.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    @Test
+    void readsUnquotedFields() throws IOException {
+        assertEquals(List.of(List.of("email", "firstName"), List.of("a@example.com", "Alice")),
+                readAll("email,firstName\na@example.com,Alice\n"));
+    }
+
+    @Test
+    void readsLastRecordWithoutLineBreak() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d")), readAll("a,b\nc,d"));
+    }
+
+    @Test
+    void readsEmptyFields() throws IOException {
+        assertEquals(List.of(List.of("", "b", ""), List.of("", "")), readAll(",b,\n,\n"));
+    }
+
+    @Test
+    void readsEmptyLineAsOneEmptyField() throws IOException {
+        assertEquals(List.of(List.of("a"), List.of(""), List.of("b")), readAll("a\n\nb\n"));
+    }
+
+    @Test
+    void readsEmptyInputAsNoRecords() throws IOException {
+        assertNull(new CsvReader(new StringReader("")).next());
+    }
+
+    @Test
+    void readsQuotedFields() throws IOException {
+        assertEquals(List.of(List.of("Smith, John", "", "x")), readAll("\"Smith, John\",\"\",x\n"));
+    }
+
+    @Test
+    void readsDoubledQuotes() throws IOException {
+        assertEquals(List.of(List.of("say \"hi\"", "\"")), readAll("\"say \"\"hi\"\"\",\"\"\"\"\n"));
+    }
+
+    @Test
+    void keepsQuotesInsideUnquotedFields() throws IOException {
+        assertEquals(List.of(List.of("O\"Brien", "ab")), readAll("O\"Brien,\"a\"b\n"));
+    }
+
+    @Test
+    void readsLineBreaksInsideQuotedFields() throws IOException {
+        assertEquals(List.of(List.of("line 1\nline 2", "x"), List.of("y")),
+                readAll("\"line 1\nline 2\",x\ny\n"));
+        assertEquals(List.of(List.of("line 1\r\nline 2")), readAll("\"line 1\r\nline 2\"\r\n"));
+    }
+
+    @Test
+    void readsCrlfLineBreaks() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d")), readAll("a,b\r\nc,d\r\n"));
+    }
+
+    @Test
+    void readsLoneCrLineBreaks() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), readAll("a,b\rc\r"));
+    }
+
+    @Test
+    void reportsLineOfEachRecord() throws IOException {
+        var csv = new CsvReader(new StringReader("a\r\n\"b\nb\"\r\n\nc\rd"));
+        var lines = new ArrayList<Long>();
+        while (csv.next() != null) {
+            lines.add(csv.recordLine());
+        }
+
+        assertEquals(List.of(1L, 2L, 4L, 5L, 6L), lines);
+    }
+
+    @Test
+    void rejectsUnclosedQuotedField() throws IOException {
+        var csv = new CsvReader(new StringReader("a,b\n\"unclosed,c\n"));
+        csv.next();
+
+        var e = assertThrows(IllegalArgumentException.class, csv::next);
+        assertEquals("Unclosed quoted field", e.getMessage());
+    }
+
+    private static List<List<String>> readAll(String text) throws IOException {
+        var csv = new CsvReader(new StringReader(text));
+        var records = new ArrayList<List<String>>();
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
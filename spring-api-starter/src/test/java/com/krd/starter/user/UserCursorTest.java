@@ -0,0 +1,99 @@
+package com.krd.starter.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserCursorTest {
+
+    @Test
+    void roundTrips() {
+        var cursor = new UserCursor("email", 42, "alice@example.com");
+
+        assertEquals(cursor, UserCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsEmptyKey() {
+        var cursor = new UserCursor("firstName", 7, "");
+
+        assertEquals(cursor, UserCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsNullKey() {
+        var cursor = new UserCursor("username", 7, null);
+
+        assertEquals(cursor, UserCursor.decode(cursor.encode()));
+        assertNotEquals(cursor.encode(), new UserCursor("username", 7, "").encode());
+    }
+
+    @Test
+    void roundTripsKeyWithSeparatorsAndUnicode() {
+        var cursor = new UserCursor("lastName", Long.MAX_VALUE, "O'Brien\nJr. \u2013 Zo\u00eb");
+
+        assertEquals(cursor, UserCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encodesUrlSafeWithoutPadding() {
+        var encoded = new UserCursor("username", 1, "??>>~~").encode();
+
+        assertFalse(encoded.contains("+"));
+        assertFalse(encoded.contains("/"));
+        assertFalse(encoded.contains("="));
+    }
+
+    @Test
+    void rejectsInvalidBase64() {
+        assertInvalid("not a cursor!");
+    }
+
+    @Test
+    void rejectsEmptyCursor() {
+        assertInvalid("");
+    }
+
+    @Test
+    void rejectsMissingParts() {
+        assertInvalid(encode("email\n42"));
+        assertInvalid(encode("email"));
+    }
+
+    @Test
+    void rejectsNonNumericId() {
+        assertInvalid(encode("email\nabc\n=alice@example.com"));
+        assertInvalid(encode("email\n\n=alice@example.com"));
+    }
+
+    @Test
+    void rejectsUnmarkedKey() {
+        assertInvalid(encode("email\n42\nalice@example.com"));
+    }
+
+    @Test
+    void rejectsTamperedEncoding() {
+        var encoded = new UserCursor("email", 42, "alice@example.com").encode();
+        // Replacing the id digits with a letter leaves valid Base64 around an invalid id
+        var tampered = encode(new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8)
+                .replace("42", "4x"));
+
+        assertInvalid(tampered);
+        assertInvalid(encoded.substring(0, encoded.length() - 1) + "*");
+    }
+
+    private static void assertInvalid(String cursor) {
+        var e = assertThrows(IllegalArgumentException.class, () -> UserCursor.decode(cursor));
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+
+    private static String encode(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,155 @@
+package com.krd.starter.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs {@link UserHardDeleteScheduler} against an in-memory H2 database in MySQL mode.
+ */
+class UserHardDeleteSchedulerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserManagementConfig config;
+    private UserHardDeleteScheduler<BaseUser> scheduler;
+
+    /**
+     * Deleted and failed users of every batch, in order.
+     */
+    private final List<List<Integer>> batches = new ArrayList<>();
+
+    /**
+     * Ids of the users whose snapshots were invalidated, in order.
+     */
+    private final List<Long> invalidated = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, email VARCHAR(255) NOT NULL,"
+                + " deleted_at TIMESTAMP NULL)");
+        jdbcTemplate.execute("CREATE TABLE user_roles (user_id BIGINT NOT NULL REFERENCES users (id),"
+                + " role VARCHAR(50) NOT NULL, PRIMARY KEY (user_id, role))");
+        // A table of the application that references users without ON DELETE CASCADE
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY,"
+                + " user_id BIGINT NOT NULL REFERENCES users (id))");
+
+        config = new UserManagementConfig();
+        config.setHardDeleteAfterDays(30);
+        config.setHardDeleteBatchSize(3);
+        config.setHardDeletePauseRatio(0);
+
+        scheduler = new UserHardDeleteScheduler<>(null, config, jdbcTemplate,
+                new DataSourceTransactionManager(dataSource));
+        scheduler.setMetrics(new UserMetrics() {
+            @Override
+            public void hardDeleteBatchCompleted(int deleted, int failed, long nanos) {
+                batches.add(List.of(deleted, failed));
+            }
+        });
+        scheduler.setSnapshotCache(new UserSnapshotCache() {
+            @Override
+            public <S> S get(long userId, LongFunction<S> loader) {
+                return loader.apply(userId);
+            }
+
+            @Override
+            public void invalidate(long userId) {
+                invalidated.add(userId);
+            }
+
+            @Override
+            public void invalidateAll() {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
+
+    @Test
+    void deletesExpiredUsersInBatches() {
+        for (long id = 1; id <= 7; id++) {
+            insertUser(id, 40);
+        }
+        insertUser(8, 10);
+        insertUser(9, null);
+
+        scheduler.hardDeleteOldSoftDeletedUsers();
+
+        assertEquals(List.of(8L, 9L), userIds());
+        assertEquals(List.of(8L, 9L), roleUserIds());
+        assertEquals(List.of(List.of(3, 0), List.of(3, 0), List.of(1, 0)), batches);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), invalidated);
+    }
+
+    @Test
+    void deletesNothingWhenNoUserExpired() {
+        insertUser(1, 10);
+        insertUser(2, null);
+
+        scheduler.hardDeleteOldSoftDeletedUsers();
+
+        assertEquals(List.of(1L, 2L), userIds());
+        assertEquals(List.of(), batches);
+        assertEquals(List.of(), invalidated);
+    }
+
+    @Test
+    void skipsOnlyUsersThatCannotBeDeleted() {
+        for (long id = 1; id <= 3; id++) {
+            insertUser(id, 40);
+        }
+        jdbcTemplate.update("INSERT INTO orders (id, user_id) VALUES (1, 2)");
+
+        scheduler.hardDeleteOldSoftDeletedUsers();
+
+        // The failed batch is rolled back, so user 2 keeps its roles
+        assertEquals(List.of(2L), userIds());
+        assertEquals(List.of(2L), roleUserIds());
+        assertEquals(List.of(List.of(2, 1)), batches);
+        assertEquals(List.of(1L, 3L), invalidated);
+    }
+
+    @Test
+    void continuesAfterBatchesThatFailed() {
+        config.setHardDeleteBatchSize(2);
+        for (long id = 1; id <= 5; id++) {
+            insertUser(id, 40);
+        }
+        jdbcTemplate.update("INSERT INTO orders (id, user_id) VALUES (1, 1)");
+        jdbcTemplate.update("INSERT INTO orders (id, user_id) VALUES (2, 2)");
+
+        scheduler.hardDeleteOldSoftDeletedUsers();
+
+        assertEquals(List.of(1L, 2L), userIds());
+        assertEquals(List.of(List.of(0, 2), List.of(2, 0), List.of(1, 0)), batches);
+        assertEquals(List.of(3L, 4L, 5L), invalidated);
+    }
+
+    private void insertUser(long id, Integer deletedDaysAgo) {
+        var deletedAt = deletedDaysAgo == null ? null : Timestamp.valueOf(LocalDateTime.now().minusDays(deletedDaysAgo));
+        jdbcTemplate.update("INSERT INTO users (id, email, deleted_at) VALUES (?, ?, ?)",
+                id, "user" + id + "@example.com", deletedAt);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role) VALUES (?, 'USER')", id);
+    }
+
+    private List<Long> userIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+    }
+
+    private List<Long> roleUserIds() {
+        return jdbcTemplate.queryForList("SELECT user_id FROM user_roles ORDER BY user_id", Long.class);
+    }
+}